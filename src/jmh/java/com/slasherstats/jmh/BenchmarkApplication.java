@@ -0,0 +1,59 @@
+package com.slasherstats.jmh;
+
+import com.slasherstats.SlasherStatsApplication;
+import com.slasherstats.config.ConnectionPoolMetrics;
+import com.slasherstats.config.DataSourceConfig;
+import com.slasherstats.slasherStatsApp;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.AutoConfigurationPackage;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+
+import javax.sql.DataSource;
+
+/**
+ * The application as the benchmarks run it: every bean of {@link SlasherStatsApplication}, but with
+ * an in-memory H2 database in MySQL mode instead of the MySQL prompts, and without the console menu.
+ */
+@Configuration
+@EnableAutoConfiguration
+//Repositories and entities are found from the application's package, not this one
+@AutoConfigurationPackage(basePackageClasses = SlasherStatsApplication.class)
+@ComponentScan(basePackageClasses = SlasherStatsApplication.class, excludeFilters = @ComponentScan.Filter(
+        type = FilterType.ASSIGNABLE_TYPE,
+        classes = {SlasherStatsApplication.class, DataSourceConfig.class, slasherStatsApp.class}))
+public class BenchmarkApplication {
+
+    /**
+     * Creates the metrics collector that the connection pool reports borrows to.
+     *
+     * @return the pool metrics bean
+     */
+    @Bean
+    public ConnectionPoolMetrics connectionPoolMetrics() {
+        return new ConnectionPoolMetrics();
+    }
+
+    /**
+     * Creates a pooled in-memory H2 database that lives as long as the benchmark JVM.
+     *
+     * @param metrics collector for pool metrics
+     * @return the embedded {@code DataSource}
+     */
+    @Bean
+    public DataSource dataSource(ConnectionPoolMetrics metrics) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("slasherstats-bench");
+        config.setJdbcUrl("jdbc:h2:mem:bench;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        config.setUsername("sa");
+        config.setMaximumPoolSize(4);
+        config.setMetricsTrackerFactory(metrics);
+        HikariDataSource ds = new HikariDataSource(config);
+        metrics.bind(ds);
+        return ds;
+    }
+}
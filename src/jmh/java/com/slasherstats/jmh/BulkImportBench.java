@@ -0,0 +1,76 @@
+package com.slasherstats.jmh;
+
+import com.slasherstats.model.HorrorMovieSQL;
+import com.slasherstats.service.BulkRecordParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The bulk import: the parse/validate loop on its own, and {@code addBulkMovies} end to end
+ * into the embedded catalog. Both report time per row.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class BulkImportBench {
+
+    private static final int LINES = 10_000;
+
+    private final BulkRecordParser parser = new BulkRecordParser();
+    private byte[] buffer;
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void prepare() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < LINES; i++) text.append(CatalogState.line(i)).append('\n');
+        buffer = text.toString().getBytes(StandardCharsets.UTF_8);
+        //Numbered past the seeded catalog so the titles are new
+        file = Files.createTempFile("bulk", ".txt");
+        CatalogState.writeMovies(file, 1_000_000, 1_000_000 + LINES);
+    }
+
+    @TearDown(Level.Trial)
+    public void cleanUp() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public void parseAndValidate(Blackhole blackhole) {
+        int start = 0;
+        for (int i = 0; i < buffer.length; i++) {
+            if (buffer[i] != '\n') continue;
+            blackhole.consume(parser.parse(buffer, start, i));
+            start = i + 1;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public List<HorrorMovieSQL> addBulkMovies(CatalogState catalog) {
+        return catalog.manager.addBulkMovies(file.toString());
+    }
+}
@@ -0,0 +1,100 @@
+package com.slasherstats.jmh;
+
+import com.slasherstats.service.slasherStatsManager;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The running application with a seeded embedded catalog, shared by all threads of a benchmark.
+ * Started once per fork; the catalog holds {@link #rows} movies titled {@code "Movie 0"} and up.
+ */
+@State(Scope.Benchmark)
+public class CatalogState {
+
+    /** Number of movies seeded before measuring. */
+    @Param("10000")
+    public int rows;
+
+    /** The application's service. */
+    public slasherStatsManager manager;
+    /** Sends requests through the controllers and views without a network round trip. */
+    public MockMvc mvc;
+
+    private ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+        context = new SpringApplicationBuilder(BenchmarkApplication.class)
+                .properties("server.port=0",
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=WARN",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "spring.jpa.properties.hibernate.validator.apply_to_ddl=false",
+                        "slasherstats.points.reconcile-ms=3600000",
+                        "management.server.port=0")
+                .run();
+        manager = context.getBean(slasherStatsManager.class);
+        mvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).build();
+        Path file = Files.createTempFile("catalog", ".txt");
+        try {
+            writeMovies(file, 0, rows);
+            manager.addBulkMovies(file.toString());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    /**
+     * Returns the title of a seeded movie.
+     *
+     * @param i the movie's number, below {@link #rows}
+     * @return its title
+     */
+    public static String title(int i) {
+        return "Movie " + i;
+    }
+
+    /**
+     * Writes movies numbered {@code from} to {@code to - 1} as a bulk import file.
+     *
+     * @param file the file to write
+     * @param from number of the first movie
+     * @param to   number just past the last movie
+     * @throws IOException if the file cannot be written
+     */
+    public static void writeMovies(Path file, int from, int to) throws IOException {
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(file))) {
+            for (int i = from; i < to; i++) writer.println(line(i));
+        }
+    }
+
+    /**
+     * Returns one bulk import line for a numbered movie.
+     *
+     * @param i the movie's number
+     * @return the comma separated line
+     */
+    public static String line(int i) {
+        return title(i) + ",Director " + (i % 500) + "," + (1970 + i % 50) + "," + (80 + i % 60)
+                + ",Shudder," + (i % 100) / 10.0 + ",slasher," + String.format("%02d-10-2021", 1 + i % 28);
+    }
+}
@@ -0,0 +1,38 @@
+package com.slasherstats.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Renders the {@code index} view with a page of N movies through the controller and Thymeleaf.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IndexViewBench {
+
+    /** Movies on the rendered page. */
+    @Param({"50", "500"})
+    public int movies;
+
+    @Benchmark
+    public String renderIndex(CatalogState catalog) throws Exception {
+        return catalog.mvc.perform(get("/").param("size", String.valueOf(movies)))
+                .andReturn().getResponse().getContentAsString();
+    }
+}
@@ -0,0 +1,66 @@
+package com.slasherstats.jmh;
+
+import com.slasherstats.model.HorrorMovieSQL;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Title lookup, update, delete and points paths of the service against the embedded catalog.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ManagerBench {
+
+    private static final LocalDate WATCHED = LocalDate.of(2021, 10, 31);
+
+    private static String anyTitle(CatalogState catalog) {
+        return CatalogState.title(ThreadLocalRandom.current().nextInt(catalog.rows));
+    }
+
+    @Benchmark
+    public HorrorMovieSQL findMovie(CatalogState catalog) {
+        return catalog.manager.findMovie(anyTitle(catalog));
+    }
+
+    @Benchmark
+    public boolean updateMovie(CatalogState catalog) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return catalog.manager.updateMovie(new HorrorMovieSQL(anyTitle(catalog), "Director", 1980, 90,
+                "Shudder", random.nextInt(101) / 10.0, "slasher", WATCHED));
+    }
+
+    //Lookup miss, the path a mistyped title takes
+    @Benchmark
+    public boolean deleteMissing(CatalogState catalog) {
+        return catalog.manager.deleteMovie("No Such Movie " + ThreadLocalRandom.current().nextInt());
+    }
+
+    //Adds a movie and deletes it again through the title lookup, so the catalog keeps its size
+    @Benchmark
+    public boolean addThenDelete(CatalogState catalog) {
+        HorrorMovieSQL movie = new HorrorMovieSQL("Spare " + Thread.currentThread().getId(), "Director", 1980, 90,
+                "Shudder", 5.0, "slasher", WATCHED);
+        catalog.manager.addMovie(movie);
+        return catalog.manager.deleteMovie(movie.getTitle());
+    }
+
+    @Benchmark
+    public int recalculatePoints(CatalogState catalog) {
+        return catalog.manager.recalculatePoints();
+    }
+}
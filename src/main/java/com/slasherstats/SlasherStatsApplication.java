@@ -2,12 +2,14 @@ package com.slasherstats;
 //Imports spring application
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 //Makes this the main entry point for the spring boot application
 /**
  * Main class and entry point for the SlasherStats Spring Boot application.
  * This class bootstraps the application using Spring Boot's auto-configuration.
  */
 @SpringBootApplication
+@EnableScheduling
 //Main class for the application
 public class SlasherStatsApplication {
     //Main method to start the application
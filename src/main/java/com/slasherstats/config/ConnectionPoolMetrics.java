@@ -0,0 +1,98 @@
+package com.slasherstats.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live metrics for the application's connection pool.
+ * <p>
+ * Hikari reports every borrow to the tracker created by this factory, which keeps running totals
+ * of borrow-wait time, connection hold time and borrow timeouts. Pool occupancy (active, idle,
+ * pending) is read from the pool itself when a {@link Snapshot} is taken.
+ */
+public class ConnectionPoolMetrics implements MetricsTrackerFactory {
+
+    private final LongAdder borrows = new LongAdder();
+    private final LongAdder borrowWaitNanos = new LongAdder();
+    private final AtomicLong maxBorrowWaitNanos = new AtomicLong();
+    private final LongAdder usageMillis = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private volatile HikariDataSource dataSource;
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                borrows.increment();
+                borrowWaitNanos.add(elapsedAcquiredNanos);
+                maxBorrowWaitNanos.accumulateAndGet(elapsedAcquiredNanos, Math::max);
+            }
+
+            @Override
+            public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+                usageMillis.add(elapsedBorrowedMillis);
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                timeouts.increment();
+            }
+        };
+    }
+
+    /**
+     * Connects the metrics to the pool they describe, once the pool exists.
+     *
+     * @param dataSource the pool whose occupancy is reported
+     */
+    public void bind(HikariDataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Takes a point-in-time view of the pool.
+     *
+     * @return current pool occupancy and borrow statistics since startup
+     */
+    public Snapshot snapshot() {
+        HikariDataSource ds = dataSource;
+        HikariPoolMXBean pool = ds == null ? null : ds.getHikariPoolMXBean();
+        long count = borrows.sum();
+        return new Snapshot(
+                pool == null ? 0 : pool.getActiveConnections(),
+                pool == null ? 0 : pool.getIdleConnections(),
+                pool == null ? 0 : pool.getThreadsAwaitingConnection(),
+                pool == null ? 0 : pool.getTotalConnections(),
+                ds == null ? 0 : ds.getMaximumPoolSize(),
+                count,
+                count == 0 ? 0 : borrowWaitNanos.sum() / (double) count / 1_000_000.0,
+                maxBorrowWaitNanos.get() / 1_000_000.0,
+                count == 0 ? 0 : usageMillis.sum() / (double) count,
+                timeouts.sum());
+    }
+
+    /**
+     * Point-in-time view of the connection pool.
+     *
+     * @param active            connections currently borrowed
+     * @param idle              connections open and waiting in the pool
+     * @param pending           threads waiting for a connection
+     * @param total             connections currently open
+     * @param maxSize           the most connections the pool may open
+     * @param borrows           connections borrowed since startup
+     * @param avgBorrowWaitMs   average time a borrow waited for a connection
+     * @param maxBorrowWaitMs   longest time a borrow waited for a connection
+     * @param avgUsageMs        average time a connection was held before being returned
+     * @param borrowTimeouts    borrows that gave up waiting
+     */
+    public record Snapshot(int active, int idle, int pending, int total, int maxSize, long borrows,
+                           double avgBorrowWaitMs, double maxBorrowWaitMs, double avgUsageMs, long borrowTimeouts) {
+    }
+}
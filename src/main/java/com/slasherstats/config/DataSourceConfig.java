@@ -1,28 +1,79 @@
 package com.slasherstats.config;
 
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import javax.sql.DataSource;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
 /**
  * Configuration class responsible for setting up the application's
- * connection to the MySQL database.
+ * connection to the database: MySQL by default, or the in-memory database
+ * of the "embedded" profile. Every setting comes from configuration.
  */
 @Configuration
 public class DataSourceConfig {
     /**
-     * Creates and configures a {@link DataSource} bean for MySQL database connectivity.
+     * Creates the metrics collector that the connection pool reports borrows to.
      *
+     * @return the pool metrics bean
+     */
+    @Bean
+    public ConnectionPoolMetrics connectionPoolMetrics() {
+        return new ConnectionPoolMetrics();
+    }
+
+    /**
+     * Creates and configures a pooled {@link DataSource} bean for database connectivity.
+     * Connections are reused instead of being opened for every borrow.
+     *
+     * @param metrics             collector for pool metrics
+     * @param url                 JDBC URL; when blank, a MySQL URL is built from host, port and database
+     * @param host                MySQL host
+     * @param port                MySQL port
+     * @param database            MySQL database name
+     * @param driverClassName     JDBC driver class
+     * @param username            database user
+     * @param password            database password
+     * @param minIdle             idle connections the pool keeps open
+     * @param maxSize             the most connections the pool may open
+     * @param connectionTimeoutMs how long a borrow waits for a connection before failing
+     * @param validationTimeoutMs how long a connection liveness check may take
+     * @param leakDetectionMs     how long a connection may be held before a leak warning is logged, 0 to disable
+     * @param maxLifetimeMs       how long a connection lives before it is replaced
      * @return a configured {@code DataSource} instance
-     * @throws IllegalStateException if database configuration is incomplete or invalid
      */
     @Bean
-    public DataSource dataSource() {
-        DriverManagerDataSource ds = new DriverManagerDataSource();
-        ds.setDriverClassName("com.mysql.cj.jdbc.Driver");
-        ds.setUrl(DbConfig.getJdbcUrl());
-        ds.setUsername(DbConfig.getUsername());
-        ds.setPassword(DbConfig.getPassword());
+    public DataSource dataSource(ConnectionPoolMetrics metrics,
+                                 @Value("${slasherstats.db.url:}") String url,
+                                 @Value("${slasherstats.db.host:localhost}") String host,
+                                 @Value("${slasherstats.db.port:3306}") int port,
+                                 @Value("${slasherstats.db.name:slasherstats_db}") String database,
+                                 @Value("${slasherstats.db.driver-class-name:com.mysql.cj.jdbc.Driver}") String driverClassName,
+                                 @Value("${slasherstats.db.username:root}") String username,
+                                 @Value("${slasherstats.db.password:}") String password,
+                                 @Value("${slasherstats.pool.min-idle:2}") int minIdle,
+                                 @Value("${slasherstats.pool.max-size:10}") int maxSize,
+                                 @Value("${slasherstats.pool.connection-timeout-ms:30000}") long connectionTimeoutMs,
+                                 @Value("${slasherstats.pool.validation-timeout-ms:5000}") long validationTimeoutMs,
+                                 @Value("${slasherstats.pool.leak-detection-ms:60000}") long leakDetectionMs,
+                                 @Value("${slasherstats.pool.max-lifetime-ms:1800000}") long maxLifetimeMs) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("slasherstats");
+        config.setDriverClassName(driverClassName);
+        config.setJdbcUrl(url.isBlank() ? DbConfig.getJdbcUrl(host, port, database) : url);
+        config.setUsername(username);
+        config.setPassword(password);
+        config.setMinimumIdle(minIdle);
+        config.setMaximumPoolSize(maxSize);
+        config.setConnectionTimeout(connectionTimeoutMs);
+        config.setValidationTimeout(validationTimeoutMs);
+        config.setLeakDetectionThreshold(leakDetectionMs);
+        config.setMaxLifetime(maxLifetimeMs);
+        config.setMetricsTrackerFactory(metrics);
+
+        HikariDataSource ds = new HikariDataSource(config);
+        metrics.bind(ds);
         return ds;
     }
 }
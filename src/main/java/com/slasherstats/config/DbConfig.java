@@ -1,52 +1,25 @@
 package com.slasherstats.config;
 
-import java.util.Scanner;
 /**
- * Utility class for retrieving MySQL database configuration settings
- * from user input at runtime.
+ * Utility class for building the MySQL connection URL from the configured host, port and
+ * database name ({@code slasherstats.db.*}, or environment variables such as
+ * {@code SLASHERSTATS_DB_HOST}), so the application starts without asking for anything.
  */
 public class DbConfig {
 
-    /**
-     * Prompts the user to enter the MySQL host, port, and database name,
-     * and constructs a JDBC URL string.
-     *
-     * @return a formatted JDBC URL string for connecting to the MySQL database
-     * @throws java.util.InputMismatchException if user input is not valid
-     */
-    public static String getJdbcUrl() {
-        Scanner scanner = new Scanner(System.in);
-        System.out.print("Enter MySQL host (e.g., localhost): ");
-        String host = scanner.nextLine();
-
-        System.out.print("Enter MySQL port (default 3306): ");
-        String port = scanner.nextLine();
-
-        System.out.print("Enter MySQL database name: ");
-        String db = scanner.nextLine();
-
-        return "jdbc:mysql://" + host + ":" + port + "/" + db + "?useSSL=false&allowPublicKeyRetrieval=true";
+    private DbConfig() {
     }
 
     /**
-     * Prompts the user to enter their MySQL username.
+     * Constructs the JDBC URL of a MySQL database with the driver options the application relies on:
+     * batched inserts are rewritten into multi-row statements, and streaming reads honour their fetch size.
      *
-     * @return the entered MySQL username as a {@code String}
-     */
-    public static String getUsername() {
-        Scanner scanner = new Scanner(System.in);
-        System.out.print("Enter MySQL username: ");
-        return scanner.nextLine();
-    }
-
-    /**
-     * Prompts the user to enter their MySQL password.
-     *
-     * @return the entered MySQL password as a {@code String}
+     * @param host     the MySQL host, e.g. {@code localhost}
+     * @param port     the MySQL port, usually 3306
+     * @param database the database name
+     * @return a formatted JDBC URL string for connecting to the MySQL database
      */
-    public static String getPassword() {
-        Scanner scanner = new Scanner(System.in);
-        System.out.print("Enter MySQL password: ");
-        return scanner.nextLine();
+    public static String getJdbcUrl(String host, int port, String database) {
+        return "jdbc:mysql://" + host + ":" + port + "/" + database + "?useSSL=false&allowPublicKeyRetrieval=true&rewriteBatchedStatements=true&useCursorFetch=true";
     }
 }
@@ -0,0 +1,61 @@
+package com.slasherstats.config;
+
+import com.slasherstats.repository.QueryCounter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Records how many SQL statements every request sends, as the {@code slasherstats.db.queries}
+ * histogram tagged with the route and HTTP method. Route latency itself is timed by Spring's
+ * {@code http.server.requests} metric.
+ */
+@Configuration
+public class MetricsConfig implements WebMvcConfigurer {
+
+    /** Histogram of statements per request. */
+    public static final String QUERIES = "slasherstats.db.queries";
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    public MetricsConfig(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    //Web slices without metrics, such as @WebMvcTest, have no registry and get no interceptor
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        meterRegistry.ifAvailable(meters -> registry.addInterceptor(new QueryCountInterceptor(meters)));
+    }
+
+    //Counts the statements the request thread sends between the handler being picked and the response being done
+    private record QueryCountInterceptor(MeterRegistry registry) implements HandlerInterceptor {
+
+        @Override
+        public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+            QueryCounter.reset();
+            return true;
+        }
+
+        @Override
+        public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+            //The route pattern, not the raw path, keeps the number of series bounded
+            Object route = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            DistributionSummary.builder(QUERIES)
+                    .description("SQL statements sent while handling a request")
+                    .tag("uri", route == null ? "UNKNOWN" : route.toString())
+                    .tag("method", request.getMethod())
+                    .publishPercentileHistogram()
+                    .maximumExpectedValue(1_000.0)
+                    .register(registry)
+                    .record(QueryCounter.count());
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.slasherstats.controller;
+
+import com.slasherstats.service.CatalogCache;
+import com.slasherstats.service.MovieTableCache;
+import com.slasherstats.service.slasherStatsManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+/**
+ * Exposes the catalog cache and movie table cache counters so the caches can be sized.
+ */
+@Controller
+public class CacheMetricsController {
+    /** Service that owns the catalog cache. */
+    @Autowired
+    private slasherStatsManager manager;
+
+    /** Rendered movie tables of the index page. */
+    @Autowired
+    private MovieTableCache tableCache;
+
+    /**
+     * Returns the catalog cache's size, hits, misses, evictions, expirations and invalidations as JSON.
+     *
+     * @return the cache counters
+     */
+    @GetMapping("/cache")
+    @ResponseBody
+    public CatalogCache.Stats cache() {
+        return manager.getCatalogCache().stats();
+    }
+
+    /**
+     * Returns the movie table cache's size, hits, misses, evictions, expirations and invalidations as JSON.
+     *
+     * @return the cache counters
+     */
+    @GetMapping("/cache/table")
+    @ResponseBody
+    public MovieTableCache.Stats tableCache() {
+        return tableCache.stats();
+    }
+}
@@ -0,0 +1,47 @@
+package com.slasherstats.controller;
+
+import com.slasherstats.service.CatalogExport;
+import com.slasherstats.service.slasherStatsManager;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.context.request.WebRequest;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Downloads the whole catalog as CSV or NDJSON, streamed from the database as it is written.
+ */
+@Controller
+public class ExportController {
+    /** Service used to stream the catalog out of the database. */
+    @Autowired
+    private slasherStatsManager manager;
+
+    /**
+     * Writes every movie to the response, one per line. The body is written on the request thread
+     * straight to the response, so a long export is not cut off by an async request timeout.
+     *
+     * @param extension "csv" for the bulk upload format or "ndjson" for one JSON object per line
+     * @param response  the response the export is written to
+     * @param request   the request, for its {@code If-None-Match} header; an unchanged catalog gets 304
+     * @throws IOException if writing the response fails
+     */
+    @GetMapping("/movies/export.{extension}")
+    public void export(@PathVariable String extension, HttpServletResponse response, WebRequest request) throws IOException {
+        CatalogExport.Format format = CatalogExport.Format.fromExtension(extension);
+        if (format == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, "Unknown export format: " + extension);
+            return;
+        }
+        if (request.checkNotModified(manager.getCatalogETag())) return;
+        response.setContentType(format.getContentType());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"slasherstats." + format.getExtension() + "\"");
+        manager.exportMovies(format, response.getOutputStream());
+    }
+}
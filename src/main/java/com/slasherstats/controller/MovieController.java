@@ -3,21 +3,46 @@ package com.slasherstats.controller;
 //imports horrorMovie and slasherStatsManager
 import com.slasherstats.model.HorrorMovieSQL;
 import com.slasherstats.model.horrorMovie;
+import com.slasherstats.repository.MovieField;
+import com.slasherstats.repository.MovieFilter;
+import com.slasherstats.repository.MovieSort;
+import com.slasherstats.service.BulkImportJob;
+import com.slasherstats.service.BulkImportJobService;
+import com.slasherstats.service.MoviePage;
+import com.slasherstats.service.MovieTableCache;
+import com.slasherstats.service.MovieUpdate;
+import com.slasherstats.service.TagSearchResult;
+import com.slasherstats.service.TitleSuggestIndex;
 import com.slasherstats.service.slasherStatsManager;
 //Used for Spring
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 import org.springframework.web.bind.WebDataBinder;
 import org.springframework.web.bind.annotation.InitBinder;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.support.RequestContextUtils;
+import org.thymeleaf.context.WebContext;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.web.servlet.JakartaServletWebApplication;
 import java.beans.PropertyEditorSupport;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 //Tells Spring to treat this class as the controller
 /**
@@ -31,23 +56,70 @@ public class MovieController {
     @Autowired
     private slasherStatsManager manager;
 
-    //Handles the default routing which adds all movies to the list and returns index.html
+    /** Runs bulk uploads in the background. */
+    @Autowired
+    private BulkImportJobService importJobs;
+
+    /** Rendered movie tables of the index page. */
+    @Autowired
+    private MovieTableCache tableCache;
+
+    /** Renders the movie table on its own before it is cached. */
+    @Autowired
+    private SpringTemplateEngine templateEngine;
+
+    @Autowired
+    private ServletContext servletContext;
+
+    //Handles the default routing which adds a page of movies to the list and returns index.html
     /**
-     * Handles the root ("/") GET request and loads the index page with current movies,
-     * an empty movie form, and current account points.
+     * Handles the root ("/") GET request and loads the index page with one page of movies,
+     * an empty movie form, and current account points. The page carries the catalog's entity tag,
+     * and a request whose {@code If-None-Match} still matches it gets 304 without the database or
+     * the template being touched. The movie table is rendered once per catalog version and page, and
+     * then served from the {@link MovieTableCache} until the catalog changes.
      *
+     * @param sort  property to sort by: title, rating, releaseYear or dateWatched
+     * @param dir   "desc" to sort from the highest value down, anything else sorts ascending
+     * @param after cursor of the page to show, taken from the previous page's "Next" link
+     * @param size  number of movies per page
      * @param model the model object for passing data to the view
-     * @return the "index" Thymeleaf template
+     * @param request the request, for its {@code If-None-Match} header
+     * @param servletRequest the request, for rendering links in the movie table
+     * @param servletResponse the response, for rendering links in the movie table
+     * @return the "index" Thymeleaf template, or {@code null} if the page has not changed
      */
     @GetMapping
-    public String index(Model model) {
-        manager.recalculatePoints(); // Add this
-        model.addAttribute("movies", manager.viewMovies());
+    public String index(@RequestParam(defaultValue = "title") String sort,
+                        @RequestParam(defaultValue = "asc") String dir,
+                        @RequestParam(required = false) String after,
+                        @RequestParam(defaultValue = "" + slasherStatsManager.DEFAULT_PAGE_SIZE) int size,
+                        Model model, WebRequest request,
+                        HttpServletRequest servletRequest, HttpServletResponse servletResponse) {
+        //The page shown right after an upload also tracks the import job, so it is always rendered
+        if (!model.containsAttribute("importJobId") && request.checkNotModified(manager.getCatalogETag())) return null;
+        boolean descending = "desc".equalsIgnoreCase(dir);
+        //Read before the page is loaded, so a write in between leaves the table newer than its key, never older
+        MovieTableCache.Key key = new MovieTableCache.Key(manager.getCatalogVersion(), sort, descending, after, size);
+        String table = tableCache.get(key);
+        if (table == null) {
+            MoviePage page = manager.viewMovies(MovieSort.fromProperty(sort), descending, after, size);
+            table = renderMovieTable(page, servletRequest, servletResponse);
+            tableCache.put(key, table);
+        }
+        model.addAttribute("movieTable", table);
         model.addAttribute("movie", new horrorMovie());
         model.addAttribute("accountPoints", manager.getAccountPoints());
         return "index";
     }
 
+    //Renders only the movie table of templates/movieTable.html for one page, as the index page would show it
+    private String renderMovieTable(MoviePage page, HttpServletRequest request, HttpServletResponse response) {
+        WebContext context = new WebContext(JakartaServletWebApplication.buildApplication(servletContext)
+                .buildExchange(request, response), RequestContextUtils.getLocale(request), Map.of("page", page));
+        return templateEngine.process("movieTable", Set.of("movieTable"), context);
+    }
+
     //Adds a single movie manually
     /**
      * Handles adding a new movie manually via form input.
@@ -61,7 +133,7 @@ public class MovieController {
                            BindingResult result,
                            Model model) {
         if (result.hasErrors()) {
-            model.addAttribute("movies", manager.viewMovies());
+            model.addAttribute("page", manager.viewMovies());
             model.addAttribute("accountPoints", manager.getAccountPoints());
             return "index";
         }
@@ -72,27 +144,33 @@ public class MovieController {
 
     //Handles the POST upload request when a movie file is uploaded
     /**
-     * Handles uploading a file containing bulk movie entries.
+     * Handles uploading a file containing bulk movie entries. The file is handed to a
+     * background import job and the request returns right away with the job id.
      *
      * @param file  the uploaded file (CSV or TXT expected)
      * @param model the model object for returning errors if needed
+     * @param redirectAttributes carries the job id to the page after the redirect
      * @return redirect to "/" on success or return "index" view on error
      */
     @PostMapping("/upload")
-    public String uploadMovies(@RequestParam("file") MultipartFile file, Model model) {
+    public String uploadMovies(@RequestParam("file") MultipartFile file, Model model,
+                               RedirectAttributes redirectAttributes) {
         //If no file is uploaded return an error. Shows index.html again.
         if (file.isEmpty()) {
             model.addAttribute("error", "Please select a file to upload");
-            model.addAttribute("movies", manager.viewMovies());
+            model.addAttribute("page", manager.viewMovies());
+            model.addAttribute("movie", new HorrorMovieSQL());
             return "index";
         }
-        //Reads and processes the text file
+        //Queues the text file for import on the background import executor
         try {
-            manager.addBulkMovies(file); // Use the MultipartFile version of the method
-        //If an error occurs display the error and return home
+            BulkImportJob job = importJobs.submit(file);
+            redirectAttributes.addFlashAttribute("importJobId", job.getId());
+        //If the file cannot be queued display the error and return home
         } catch (Exception e) {
             model.addAttribute("error", "Failed to upload file: " + e.getMessage());
-            model.addAttribute("movies", manager.viewMovies());
+            model.addAttribute("page", manager.viewMovies());
+            model.addAttribute("movie", new HorrorMovieSQL());
             //Returns index.html
             return "index";
         }
@@ -100,6 +178,61 @@ public class MovieController {
         return "redirect:/";
     }
 
+    /**
+     * Returns the progress of a background bulk import as JSON: rows read, accepted and
+     * rejected, rows per second and the estimated time remaining.
+     *
+     * @param id the job id returned by the upload
+     * @return the job progress, or 404 if the job is unknown
+     */
+    @GetMapping("/upload/jobs/{id}")
+    @ResponseBody
+    public ResponseEntity<BulkImportJob.Progress> uploadProgress(@PathVariable String id) {
+        BulkImportJob job = importJobs.getJob(id);
+        if (job == null) return ResponseEntity.notFound().build();
+        return ResponseEntity.ok(job.progress());
+    }
+
+    /**
+     * Searches movies by tag and returns the matches as JSON, e.g.
+     * {@code /search/tags?all=slasher&none=remake} or {@code /search/tags?any=found footage,mockumentary}.
+     *
+     * @param all   comma separated tags a movie must all have
+     * @param any   comma separated tags of which a movie must have at least one
+     * @param none  comma separated tags a movie must not have
+     * @param after id from the previous page's {@code nextAfter}, 0 for the first page
+     * @param size  number of movies per page
+     * @param request the request, for its {@code If-None-Match} header
+     * @return the number of matches, the most common tags among them and one page of the movies,
+     *         or nothing with 304 if the catalog has not changed
+     */
+    @GetMapping("/search/tags")
+    @ResponseBody
+    public TagSearchResult searchByTags(@RequestParam(defaultValue = "") String all,
+                                        @RequestParam(defaultValue = "") String any,
+                                        @RequestParam(defaultValue = "") String none,
+                                        @RequestParam(defaultValue = "0") int after,
+                                        @RequestParam(defaultValue = "" + slasherStatsManager.DEFAULT_PAGE_SIZE) int size,
+                                        WebRequest request) {
+        if (request.checkNotModified(manager.getCatalogETag())) return null;
+        return manager.searchByTags(all, any, none, after, size);
+    }
+
+    /**
+     * Suggests titles for what has been typed so far, tolerating typos, for the autocomplete on the
+     * update and delete forms.
+     *
+     * @param q     the typed text
+     * @param limit the most suggestions to return
+     * @return the closest titles as JSON, best first
+     */
+    @GetMapping("/suggest")
+    @ResponseBody
+    public List<TitleSuggestIndex.Suggestion> suggestTitles(@RequestParam("q") String q,
+                                                            @RequestParam(defaultValue = "10") int limit) {
+        return manager.suggestTitles(q, limit);
+    }
+
     /**
      * Deletes a movie using its title from the path variable.
      *
@@ -108,17 +241,15 @@ public class MovieController {
      */
     @GetMapping("/delete")
     public String deleteMovie(@RequestParam("title") String title, Model model) {
-        HorrorMovieSQL movie = manager.findMovie(title);
-
-        if (movie == null) {
-            model.addAttribute("movies", manager.viewMovies());
+        //deleteMovie looks the title up itself, so a missing movie shows up as false
+        if (!manager.deleteMovie(title)) {
+            model.addAttribute("page", manager.viewMovies());
             model.addAttribute("movie", new HorrorMovieSQL());
             model.addAttribute("error", "Movie with title '" + title + "' not found.");
 
             return "index";
         }
 
-        manager.deleteMovie(movie.getTitle());
         model.addAttribute("message", "Movie deleted successfully.");
         return "redirect:/";
     }
@@ -131,16 +262,14 @@ public class MovieController {
      */
     @GetMapping("/searchToDelete")
     public String searchToDelete(@RequestParam String title, Model model) {
-        HorrorMovieSQL found = manager.findMovie(title);
-
-        if (found == null) {
+        if (!manager.deleteMovie(title)) {
             model.addAttribute("deleteError", "Movie with title '" + title + "' not found.");
-            model.addAttribute("movies", manager.viewMovies());
+            model.addAttribute("deleteSuggestions", manager.suggestTitles(title, 5));
+            model.addAttribute("page", manager.viewMovies());
             model.addAttribute("movie", new HorrorMovieSQL()); // prevent Thymeleaf binding error
             return "index";
         }
 
-        manager.deleteMovie(title);
         return "redirect:/";
     }
 
@@ -153,16 +282,119 @@ public class MovieController {
      */
     @PostMapping("/deleteConfirmed")
     public String deleteConfirmed(@RequestParam String title, Model model) {
-        HorrorMovieSQL movie = manager.findMovie(title);
-        if (movie == null) {
+        if (!manager.deleteMovie(title)) {
             model.addAttribute("error", "Movie with title '" + title + "' not found.");
-            model.addAttribute("movies", manager.viewMovies());
+            model.addAttribute("page", manager.viewMovies());
+            model.addAttribute("movie", new HorrorMovieSQL());
             return "index";
         }
 
-        manager.deleteMovie(title);
         return "redirect:/";
     }
+
+    /**
+     * Deletes every movie with one of the titles in the JSON array body, e.g.
+     * {@code ["Scream 5", "Scream VI"]}, with one set-based statement.
+     *
+     * @param titles the titles to delete, matched ignoring case
+     * @return the number of movies deleted as JSON
+     */
+    @PostMapping("/movies/delete")
+    @ResponseBody
+    public Map<String, Integer> deleteMovies(@RequestBody List<String> titles) {
+        return Map.of("deleted", manager.deleteMovies(titles));
+    }
+
+    /**
+     * Sets the platform, tags or rating of every movie matching a filter with one set-based statement, e.g.
+     * {@code POST /movies/update?field=platform&value=Shudder&platform=Shudder TV}. The filter takes the
+     * same parameters as {@code /stats/scan}; without any every movie is changed.
+     *
+     * @param field  platform, tags or rating
+     * @param value  the new value
+     * @param filter which movies to change
+     * @return the number of movies changed as JSON, or 400 if the field is not one of those three or the value is invalid
+     */
+    @PostMapping("/movies/update")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> updateMovies(@RequestParam String field,
+                                                            @RequestParam(required = false) String value,
+                                                            MovieFilter filter) {
+        MovieField movieField = MovieField.fromProperty(field);
+        if (movieField == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Unknown field '" + field + "'"));
+        }
+        //Titles, directors, years and watch dates belong to single movies and are changed one at a time
+        if (!slasherStatsManager.BULK_UPDATE_FIELDS.contains(movieField)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Field '" + field + "' cannot be updated in bulk"));
+        }
+        try {
+            return ResponseEntity.ok(Map.of("updated", manager.updateMovies(filter, movieField, value)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    /**
+     * Lists the movies watched between two dates as JSON, earliest first, e.g.
+     * {@code GET /movies/watched?from=2024-10-01&to=2024-10-31} for October. With a platform only
+     * movies on it are listed. Answers 304 while the catalog is unchanged, as the index page does.
+     *
+     * @param from     earliest watch date, yyyy-MM-dd
+     * @param to       latest watch date, yyyy-MM-dd
+     * @param platform streaming platform, or none for every platform
+     * @param limit    the most movies to list
+     * @param request  the request, for its {@code If-None-Match} header
+     * @return the matching movies, or {@code null} if they have not changed
+     */
+    @GetMapping("/movies/watched")
+    @ResponseBody
+    public List<HorrorMovieSQL> watchedBetween(@RequestParam LocalDate from, @RequestParam LocalDate to,
+                                               @RequestParam(required = false) String platform,
+                                               @RequestParam(defaultValue = "" + slasherStatsManager.DEFAULT_PAGE_SIZE) int limit,
+                                               WebRequest request) {
+        if (request.checkNotModified(manager.getCatalogETag())) return null;
+        if (platform == null || platform.isBlank()) return manager.findWatchedBetween(from, to, limit);
+        return manager.findOnPlatformWatchedBetween(platform, from, to, limit);
+    }
+
+    /**
+     * Lists the movies released between two years as JSON, earliest first, e.g.
+     * {@code GET /movies/released?fromYear=1978&toYear=1989}.
+     *
+     * @param fromYear earliest release year
+     * @param toYear   latest release year
+     * @param limit    the most movies to list
+     * @param request  the request, for its {@code If-None-Match} header
+     * @return the matching movies, or {@code null} if they have not changed
+     */
+    @GetMapping("/movies/released")
+    @ResponseBody
+    public List<HorrorMovieSQL> releasedBetween(@RequestParam int fromYear, @RequestParam int toYear,
+                                                @RequestParam(defaultValue = "" + slasherStatsManager.DEFAULT_PAGE_SIZE) int limit,
+                                                WebRequest request) {
+        if (request.checkNotModified(manager.getCatalogETag())) return null;
+        return manager.findReleasedBetween(fromYear, toYear, limit);
+    }
+
+    /**
+     * Lists the movies on a streaming platform rated at least a score as JSON, highest rated first, e.g.
+     * {@code GET /movies/rated?platform=Shudder&minRating=8}.
+     *
+     * @param platform  streaming platform
+     * @param minRating lowest rating
+     * @param limit     the most movies to list
+     * @param request   the request, for its {@code If-None-Match} header
+     * @return the matching movies, or {@code null} if they have not changed
+     */
+    @GetMapping("/movies/rated")
+    @ResponseBody
+    public List<HorrorMovieSQL> ratedAtLeast(@RequestParam String platform, @RequestParam double minRating,
+                                             @RequestParam(defaultValue = "" + slasherStatsManager.DEFAULT_PAGE_SIZE) int limit,
+                                             WebRequest request) {
+        if (request.checkNotModified(manager.getCatalogETag())) return null;
+        return manager.findOnPlatformRatedAtLeast(platform, minRating, limit);
+    }
+
     //Shows update form for movie
     /**
      * Displays the movie update form for a specific title.
@@ -176,7 +408,8 @@ public class MovieController {
         HorrorMovieSQL movie = manager.findMovie(title);
         if (movie == null) {
             model.addAttribute("updateError", "Movie with title '" + title + "' not found.");
-            model.addAttribute("movies", manager.viewMovies());
+            model.addAttribute("updateSuggestions", manager.suggestTitles(title, 5));
+            model.addAttribute("page", manager.viewMovies());
 
             model.addAttribute("movie", new HorrorMovieSQL());
 
@@ -202,9 +435,15 @@ public class MovieController {
             });
         }
 
-        boolean success = manager.updateMovie(movie);
+        MovieUpdate update = manager.editMovie(movie);
 
-        if (!success) {
+        if (update.outcome() == MovieUpdate.Outcome.CONFLICT) {
+            //Shows the stored movie so the edit can be made again on top of it
+            model.addAttribute("error", "This movie was changed by someone else. Review it and update again.");
+            model.addAttribute("movie", update.movie() != null ? update.movie() : manager.findMovie(movie.getTitle()));
+            return "updateMovie";
+        }
+        if (update.outcome() != MovieUpdate.Outcome.UPDATED) {
             model.addAttribute("error", "Update failed. Check required fields and formatting.");
             model.addAttribute("movie", movie);
             return "updateMovie";
@@ -213,6 +452,46 @@ public class MovieController {
         return "redirect:/";
     }
 
+    /**
+     * Changes some fields of a movie and writes only those columns. The JSON body holds the new values by
+     * field name (director, releaseYear, runtimeMinutes, platform, rating, tags, dateWatched as yyyy-MM-dd)
+     * and optionally the {@code version} they are based on, e.g. {@code {"version": 3, "rating": 8.5}}.
+     *
+     * @param title the title of the movie to change
+     * @param body  the new values and the expected version
+     * @return the movie as it is now; 400 for an unknown field or invalid value, 404 if there is no such
+     * movie and 409 if it was changed since the given version
+     */
+    @PatchMapping("/movies")
+    @ResponseBody
+    public ResponseEntity<MovieUpdate> patchMovie(@RequestParam String title, @RequestBody Map<String, Object> body) {
+        Long version = null;
+        Map<MovieField, String> changes = new EnumMap<>(MovieField.class);
+        for (Map.Entry<String, Object> entry : body.entrySet()) {
+            if (entry.getKey().equals("version")) {
+                if (!(entry.getValue() instanceof Number number)) {
+                    return ResponseEntity.badRequest().body(new MovieUpdate(MovieUpdate.Outcome.INVALID, null, "Version must be a number"));
+                }
+                version = number.longValue();
+                continue;
+            }
+            MovieField field = MovieField.fromProperty(entry.getKey());
+            if (field == null) {
+                return ResponseEntity.badRequest().body(new MovieUpdate(MovieUpdate.Outcome.INVALID, null,
+                        "Unknown field '" + entry.getKey() + "'"));
+            }
+            changes.put(field, entry.getValue() == null ? null : entry.getValue().toString());
+        }
+        MovieUpdate update = manager.patchMovie(title, version, changes);
+        HttpStatus status = switch (update.outcome()) {
+            case UPDATED -> HttpStatus.OK;
+            case NOT_FOUND -> HttpStatus.NOT_FOUND;
+            case INVALID -> HttpStatus.BAD_REQUEST;
+            case CONFLICT -> HttpStatus.CONFLICT;
+        };
+        return ResponseEntity.status(status).body(update);
+    }
+
 
     //Converts certain fields before processing
     /**
@@ -0,0 +1,28 @@
+package com.slasherstats.controller;
+
+import com.slasherstats.config.ConnectionPoolMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+/**
+ * Exposes live connection pool metrics from inside the application.
+ */
+@Controller
+public class PoolMetricsController {
+    /** Metrics collected from the connection pool. */
+    @Autowired
+    private ConnectionPoolMetrics poolMetrics;
+
+    /**
+     * Returns the pool's active, idle and pending connections and its borrow-wait times as JSON.
+     *
+     * @return a snapshot of the connection pool
+     */
+    @GetMapping("/pool")
+    @ResponseBody
+    public ConnectionPoolMetrics.Snapshot pool() {
+        return poolMetrics.snapshot();
+    }
+}
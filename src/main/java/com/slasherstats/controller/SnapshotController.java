@@ -0,0 +1,72 @@
+package com.slasherstats.controller;
+
+import com.slasherstats.service.BulkImportJob;
+import com.slasherstats.service.BulkImportJobService;
+import com.slasherstats.service.slasherStatsManager;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Backs the catalog up to a binary snapshot and restores it from one.
+ */
+@Controller
+public class SnapshotController {
+    /** Service used to write snapshots. */
+    @Autowired
+    private slasherStatsManager manager;
+
+    /** Runs restores in the background. */
+    @Autowired
+    private BulkImportJobService importJobs;
+
+    /**
+     * Downloads a binary snapshot of every movie, streamed from the database as it is written.
+     *
+     * @param response the response the snapshot is written to
+     * @param request  the request, for its {@code If-None-Match} header; an unchanged catalog gets 304
+     * @throws IOException if writing the response fails
+     */
+    @GetMapping("/movies/snapshot")
+    public void download(HttpServletResponse response, WebRequest request) throws IOException {
+        if (request.checkNotModified(manager.getCatalogETag())) return;
+        response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"slasherstats.snapshot\"");
+        manager.writeSnapshot(Channels.newChannel(response.getOutputStream()));
+    }
+
+    /**
+     * Queues an uploaded snapshot to be restored in the background. Progress is served by
+     * {@code /upload/jobs/{id}} like any other import.
+     *
+     * @param file the snapshot file
+     * @return 202 with the queued job, 400 without a file, or 503 if too many imports are running
+     */
+    @PostMapping("/movies/snapshot")
+    @ResponseBody
+    public ResponseEntity<BulkImportJob.Progress> restore(@RequestParam("file") MultipartFile file) {
+        if (file.isEmpty()) return ResponseEntity.badRequest().build();
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(importJobs.submitRestore(file).progress());
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        } catch (IOException e) {
+            System.out.println("Failed to spool snapshot upload: " + e.getMessage());
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.slasherstats.controller;
+
+import com.slasherstats.repository.MovieFilter;
+import com.slasherstats.service.CatalogColumns;
+import com.slasherstats.service.CatalogStatistics;
+import com.slasherstats.service.slasherStatsManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serves catalog statistics per director, streaming platform, tag and release decade,
+ * as a page and as JSON.
+ */
+@Controller
+public class StatisticsController {
+    /** Most groups a single request may list. */
+    private static final int MAX_TOP = 1_000;
+
+    /** Incrementally maintained catalog statistics. */
+    @Autowired
+    private CatalogStatistics statistics;
+
+    /** Service used to rebuild the statistics from the table. */
+    @Autowired
+    private slasherStatsManager manager;
+
+    /**
+     * Shows the statistics page with the leading groups of every dimension.
+     *
+     * @param top   number of groups to list per dimension
+     * @param model the model object for passing data to the view
+     * @return the "statistics" Thymeleaf template
+     */
+    @GetMapping("/statistics")
+    public String statisticsPage(@RequestParam(defaultValue = "10") int top, Model model) {
+        model.addAttribute("overview", statistics.overview(clamp(top)));
+        return "statistics";
+    }
+
+    /**
+     * Returns statistics over the whole catalog and the leading groups of every dimension as JSON.
+     *
+     * @param top number of groups to list per dimension
+     * @return the catalog overview
+     */
+    @GetMapping("/stats")
+    @ResponseBody
+    public CatalogStatistics.Overview overview(@RequestParam(defaultValue = "10") int top) {
+        return statistics.overview(clamp(top));
+    }
+
+    /**
+     * Aggregates the movies matching a filter as JSON, answered from the columnar copy of the catalog.
+     * Every bound is inclusive and may be left out.
+     *
+     * @param minRating   lowest rating
+     * @param maxRating   highest rating
+     * @param fromYear    earliest release year
+     * @param toYear      latest release year
+     * @param minRuntime  shortest runtime in minutes
+     * @param maxRuntime  longest runtime in minutes
+     * @param platform    streaming platform
+     * @param director    director
+     * @param watchedFrom earliest watch date, yyyy-MM-dd
+     * @param watchedTo   latest watch date, yyyy-MM-dd
+     * @return the count, rating and runtime aggregates and platform breakdown of the matches
+     */
+    @GetMapping("/stats/scan")
+    @ResponseBody
+    public CatalogColumns.Summary scan(@RequestParam(required = false) Double minRating,
+                                       @RequestParam(required = false) Double maxRating,
+                                       @RequestParam(required = false) Integer fromYear,
+                                       @RequestParam(required = false) Integer toYear,
+                                       @RequestParam(required = false) Integer minRuntime,
+                                       @RequestParam(required = false) Integer maxRuntime,
+                                       @RequestParam(required = false) String platform,
+                                       @RequestParam(required = false) String director,
+                                       @RequestParam(required = false) LocalDate watchedFrom,
+                                       @RequestParam(required = false) LocalDate watchedTo) {
+        return manager.scanCatalog(new MovieFilter(minRating, maxRating, fromYear, toYear,
+                minRuntime, maxRuntime, platform, director, watchedFrom, watchedTo));
+    }
+
+    /**
+     * Returns the leading groups of one dimension as JSON.
+     *
+     * @param dimension director, platform, tag or decade
+     * @param top       number of groups to list
+     * @param by        "rating" to rank by mean rating, anything else ranks by number of movies
+     * @return the groups, or 404 if the dimension is unknown
+     */
+    @GetMapping("/stats/{dimension}")
+    @ResponseBody
+    public ResponseEntity<List<CatalogStatistics.GroupSummary>> top(@PathVariable String dimension,
+                                                                    @RequestParam(defaultValue = "10") int top,
+                                                                    @RequestParam(defaultValue = "count") String by) {
+        CatalogStatistics.Dimension d = CatalogStatistics.Dimension.fromPath(dimension);
+        if (d == null) return ResponseEntity.notFound().build();
+        CatalogStatistics.Ranking ranking = "rating".equalsIgnoreCase(by)
+                ? CatalogStatistics.Ranking.RATING : CatalogStatistics.Ranking.COUNT;
+        return ResponseEntity.ok(statistics.top(d, ranking, clamp(top)));
+    }
+
+    /**
+     * Returns the statistics of one group as JSON.
+     *
+     * @param dimension director, platform, tag or decade
+     * @param name      the group name, e.g. a director's name or "1980s"
+     * @return the group, or 404 if the dimension is unknown or no movie is in the group
+     */
+    @GetMapping("/stats/{dimension}/{name}")
+    @ResponseBody
+    public ResponseEntity<CatalogStatistics.GroupSummary> group(@PathVariable String dimension, @PathVariable String name) {
+        CatalogStatistics.Dimension d = CatalogStatistics.Dimension.fromPath(dimension);
+        CatalogStatistics.GroupSummary group = d == null ? null : statistics.group(d, name);
+        if (group == null) return ResponseEntity.notFound().build();
+        return ResponseEntity.ok(group);
+    }
+
+    /**
+     * Rebuilds the statistics from the movie table in one streaming pass.
+     *
+     * @return the number of movies read and how long the pass took
+     */
+    @PostMapping("/stats/rebuild")
+    @ResponseBody
+    public Map<String, Long> rebuild() {
+        long start = System.nanoTime();
+        long movies = manager.rebuildCatalogListeners();
+        return Map.of("movies", movies, "millis", (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private static int clamp(int top) {
+        return Math.max(0, Math.min(top, MAX_TOP));
+    }
+}
@@ -1,15 +1,26 @@
 package com.slasherstats.model;
+import org.hibernate.annotations.DynamicUpdate;
 import org.springframework.format.annotation.DateTimeFormat;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 /**
  * Entity class representing a horror movie record stored in the SQL database.
  * This class is mapped to the {@code horror_movies} table using JPA annotations.
+ * <p>
+ * Updates write only the columns that changed, and the {@code version} column makes them
+ * optimistic: an update based on an older version of the row is rejected instead of
+ * overwriting someone else's change.
  */
 @Entity
-@Table(name = "horror_movies")
+@DynamicUpdate
+@Table(name = "horror_movies", indexes = @Index(name = "idx_horror_movies_title_key", columnList = "title_key"))
 public class HorrorMovieSQL {
 
     @Id
@@ -19,6 +30,9 @@ public class HorrorMovieSQL {
     //Requires a title
     @NotBlank(message = "Title is required")
     private String title;
+    //Lower-cased, trimmed copy of the title so case-insensitive lookups can use an index
+    @Column(name = "title_key", nullable = false)
+    private String titleKey;
     //Requires a director field
     @NotBlank(message = "Director is required")
     private String director;
@@ -41,6 +55,9 @@ public class HorrorMovieSQL {
     @DateTimeFormat(pattern = "MM-dd-yyyy")
     @NotNull(message = "Date is required and must be in MM-DD-YYYY format.")
     private LocalDate dateWatched;
+    //Bumped by every update; null until the movie has been saved
+    @Version
+    private Long version;
 
     public HorrorMovieSQL() {
         // Required by JPA for Hibernate to instantiate the object
@@ -49,22 +66,39 @@ public class HorrorMovieSQL {
     //Constructs a HorrorMovieSQL object with these fields
     public HorrorMovieSQL(String title, String director, int releaseYear, int runtimeMinutes,
                           String streamingPlatform, double rating, String tags, LocalDate dateWatched) {
-        this.title = title;
-        this.director = director;
+        setTitle(title);
+        setDirector(director);
         this.releaseYear = releaseYear;
         this.runtimeMinutes = runtimeMinutes;
-        this.streamingPlatform = streamingPlatform;
+        setStreamingPlatform(streamingPlatform);
         this.rating = rating;
         this.tags = tags;
         this.dateWatched = dateWatched;
     }
 
+    //Constructs a detached copy of another movie, including its id
+    public HorrorMovieSQL(HorrorMovieSQL other) {
+        this(other.title, other.director, other.releaseYear, other.runtimeMinutes,
+                other.streamingPlatform, other.rating, other.tags, other.dateWatched);
+        this.id = other.id;
+        this.version = other.version;
+    }
+
     // Getters and Setters for each field
+    public int getId() { return id; }
+    public void setId(int id) { this.id = id; }
+
     public String getTitle() { return title; }
-    public void setTitle(String title) { this.title = title; }
+    public void setTitle(String title) {
+        this.title = title;
+        this.titleKey = normalizeTitle(title);
+    }
+
+    public String getTitleKey() { return titleKey; }
 
     public String getDirector() { return director; }
-    public void setDirector(String director) { this.director = director; }
+    //Stored trimmed so that filters can compare the column directly
+    public void setDirector(String director) { this.director = trimName(director); }
 
     public int getReleaseYear() { return releaseYear; }
     public void setReleaseYear(int releaseYear) { this.releaseYear = releaseYear; }
@@ -73,7 +107,7 @@ public class HorrorMovieSQL {
     public void setRuntimeMinutes(int runtimeMinutes) { this.runtimeMinutes = runtimeMinutes; }
 
     public String getStreamingPlatform() { return streamingPlatform; }
-    public void setStreamingPlatform(String streamingPlatform) { this.streamingPlatform = streamingPlatform; }
+    public void setStreamingPlatform(String streamingPlatform) { this.streamingPlatform = trimName(streamingPlatform); }
 
     public double getRating() { return rating; }
     public void setRating(double rating) { this.rating = rating; }
@@ -84,4 +118,56 @@ public class HorrorMovieSQL {
     public LocalDate getDateWatched() { return dateWatched; }
     public void setDateWatched(LocalDate dateWatched) { this.dateWatched = dateWatched; }
 
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
+    //Keeps the title key in step with the title on every insert and update
+    @PrePersist
+    @PreUpdate
+    void updateTitleKey() {
+        this.titleKey = normalizeTitle(title);
+    }
+
+    /**
+     * Normalizes a title into the form stored in {@code title_key}: trimmed and lower-cased.
+     * Two titles that differ only in case or surrounding spaces have the same key.
+     *
+     * @param title the title, may be {@code null}
+     * @return the title key, or {@code null} if the title is {@code null}
+     */
+    public static String normalizeTitle(String title) {
+        return title == null ? null : title.trim().toLowerCase(Locale.ROOT);
+    }
+
+    //Drops the surrounding spaces of a director or platform, keeping null as null
+    private static String trimName(String name) {
+        return name == null ? null : name.trim();
+    }
+
+    /**
+     * Normalizes a tag so that tags differing only in case or surrounding spaces are the same tag.
+     *
+     * @param tag the tag
+     * @return the trimmed, lower-cased tag
+     */
+    public static String normalizeTag(String tag) {
+        return tag.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Splits a comma separated tag list into its tags. Blank entries are skipped and a tag listed
+     * more than once is returned once, spelled as it first appears.
+     *
+     * @param tags the tag list, may be {@code null}
+     * @return the distinct tags, trimmed, in the order they appear
+     */
+    public static List<String> splitTags(String tags) {
+        if (tags == null || tags.isBlank()) return List.of();
+        Map<String, String> distinct = new LinkedHashMap<>();
+        for (String tag : tags.split(",")) {
+            String trimmed = tag.trim();
+            if (!trimmed.isEmpty()) distinct.putIfAbsent(normalizeTag(trimmed), trimmed);
+        }
+        return new ArrayList<>(distinct.values());
+    }
 }
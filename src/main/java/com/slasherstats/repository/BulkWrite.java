@@ -0,0 +1,28 @@
+package com.slasherstats.repository;
+
+import com.slasherstats.model.HorrorMovieSQL;
+
+import java.util.List;
+
+/**
+ * What a set-based delete or update changed. Up to a row limit the rows are read before the
+ * statement runs, in the same transaction, and the statement is then restricted to exactly those
+ * rows; above the limit the statement runs on its own and only the count is known.
+ *
+ * @param count the number of movies deleted or updated
+ * @param rows  the movies as they were before the statement, or {@code null} if more matched than the limit
+ */
+public record BulkWrite(int count, List<HorrorMovieSQL> rows) {
+
+    /** Nothing matched. */
+    public static final BulkWrite NONE = new BulkWrite(0, List.of());
+
+    /**
+     * Returns whether the changed rows were read, so that each can be reported on its own.
+     *
+     * @return {@code true} if {@link #rows()} lists every changed movie
+     */
+    public boolean rowsKnown() {
+        return rows != null;
+    }
+}
@@ -0,0 +1,75 @@
+package com.slasherstats.repository;
+
+import com.slasherstats.model.HorrorMovieSQL;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Custom repository fragment for writing and reading many {@link HorrorMovieSQL} rows at once.
+ * <p>
+ * {@code HorrorMovieSQL} uses {@code GenerationType.IDENTITY}, so Hibernate cannot batch
+ * its inserts. This fragment bypasses the persistence context and writes rows through
+ * JDBC batches instead. Bulk deletes and updates are set-based statements rather than
+ * a lookup and a write per movie.
+ */
+public interface HorrorMovieBulkRepository {
+
+    /**
+     * Inserts a chunk of movies as one JDBC batch and commits it as one transaction.
+     * If the batch fails, the chunk is retried row by row so that one bad row does not
+     * keep the rest of its chunk out of the database. Generated ids are copied back onto
+     * the written movies.
+     *
+     * @param movies the movies to insert
+     * @return the movies from the chunk that could not be written, empty if all were written
+     */
+    List<HorrorMovieSQL> insertChunk(List<HorrorMovieSQL> movies);
+
+    /**
+     * Streams every movie in the table to {@code action} in one pass, without holding the
+     * table in memory or attaching the rows to a persistence context. Every field is read,
+     * in whatever order the database returns the rows.
+     *
+     * @param action receives each movie
+     * @return the number of movies read
+     */
+    long forEachMovie(Consumer<HorrorMovieSQL> action);
+
+    /**
+     * Streams every movie with all of its fields to {@code action}, in id order, from a database
+     * cursor. Rows are fetched a batch at a time, so memory use does not grow with the table.
+     * Exceptions thrown by {@code action} stop the stream and are passed on.
+     *
+     * @param action receives each movie; the movie is not kept after the call
+     * @return the number of movies read
+     */
+    long streamMovies(Consumer<HorrorMovieSQL> action);
+
+    /**
+     * Deletes every movie whose title key is one of {@code titleKeys}, in one transaction. Up to
+     * {@code maxRows} matching movies are read first and then deleted by id, so the result lists
+     * exactly the movies that went; when more match, one set-based {@code DELETE} per part of the key
+     * list runs instead and only the count is returned.
+     *
+     * @param titleKeys titles as returned by {@link HorrorMovieSQL#normalizeTitle(String)}
+     * @param maxRows   the most movies to read and report one by one
+     * @return the number of movies deleted and, up to {@code maxRows}, the movies themselves
+     */
+    BulkWrite deleteByTitleKeys(Collection<String> titleKeys, int maxRows);
+
+    /**
+     * Sets one field on every movie matching {@code filter}, in one transaction. Up to {@code maxRows}
+     * matching movies are read first with the filter and then updated by id, so the result lists exactly
+     * the movies that changed, as they were before; when more match, one set-based {@code UPDATE} runs
+     * with the filter instead and only the count is returned.
+     *
+     * @param filter  which movies to change, {@link MovieFilter#ALL} for every movie
+     * @param field   the field to set
+     * @param value   the new value, as returned by {@link MovieField#parseValue(String)}
+     * @param maxRows the most movies to read and report one by one
+     * @return the number of movies changed and, up to {@code maxRows}, the movies before the change
+     */
+    BulkWrite updateMatching(MovieFilter filter, MovieField field, Object value, int maxRows);
+}
@@ -0,0 +1,342 @@
+package com.slasherstats.repository;
+
+import com.slasherstats.model.HorrorMovieSQL;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * JDBC implementation of {@link HorrorMovieBulkRepository}.
+ * Spring Data picks this class up by name and mixes it into {@link HorrorMovieRepository}.
+ */
+public class HorrorMovieBulkRepositoryImpl implements HorrorMovieBulkRepository {
+
+    static final String INSERT_SQL = "INSERT INTO horror_movies "
+            + "(title, director, release_year, runtime_minutes, streaming_platform, rating, tags, date_watched, title_key, version) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, 0)";
+
+    static final String SCAN_SQL = "SELECT id, title, director, release_year, runtime_minutes, streaming_platform, "
+            + "rating, tags, date_watched FROM horror_movies";
+    //Rows fetched per round trip while streaming; MySQL needs useCursorFetch=true to honour it
+    static final int SCAN_FETCH_SIZE = 1_000;
+
+    static final String ROW_SQL = "SELECT id, title, director, release_year, runtime_minutes, streaming_platform, "
+            + "rating, tags, date_watched FROM horror_movies";
+    //Keeps IN lists of long title lists to a size every database and driver accepts
+    static final int IN_LIST_LIMIT = 1_000;
+
+    private final DataSource dataSource;
+
+    /**
+     * Creates the bulk repository on top of the application's {@link DataSource}.
+     *
+     * @param dataSource the data source to borrow connections from
+     */
+    public HorrorMovieBulkRepositoryImpl(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public List<HorrorMovieSQL> insertChunk(List<HorrorMovieSQL> movies) {
+        if (movies.isEmpty()) return List.of();
+        //The chunk owns its connection so that exactly one commit is issued per chunk
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                try {
+                    insertBatch(connection, movies);
+                    connection.commit();
+                    return List.of();
+                } catch (SQLException batchFailure) {
+                    //Throw away whatever part of the batch went in and retry one row at a time
+                    connection.rollback();
+                }
+                List<HorrorMovieSQL> failed = insertRowByRow(connection, movies);
+                connection.commit();
+                return failed;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            throw new DataAccessResourceFailureException("Failed to write movie chunk", e);
+        }
+    }
+
+    @Override
+    public long forEachMovie(Consumer<HorrorMovieSQL> action) {
+        return scan(SCAN_SQL, rs -> action.accept(readRow(rs)));
+    }
+
+    @Override
+    public long streamMovies(Consumer<HorrorMovieSQL> action) {
+        //Walking the primary key lets the database stream rows without sorting the table first
+        return scan(ROW_SQL + " ORDER BY id", rs -> action.accept(readRow(rs)));
+    }
+
+    //Reads a whole query through a forward-only cursor, SCAN_FETCH_SIZE rows per round trip
+    private long scan(String sql, RowHandler handler) {
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            //Cursor-based fetching only streams inside a transaction on some drivers
+            connection.setAutoCommit(false);
+            try (PreparedStatement ps = connection.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                ps.setFetchSize(SCAN_FETCH_SIZE);
+                long rows = 0;
+                QueryCounter.increment();
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        handler.handle(rs);
+                        rows++;
+                    }
+                }
+                connection.commit();
+                return rows;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            throw new DataAccessResourceFailureException("Failed to read movies", e);
+        }
+    }
+
+    private interface RowHandler {
+        void handle(ResultSet rs) throws SQLException;
+    }
+
+    //Maps a row selected by SCAN_SQL or ROW_SQL, which list the same columns
+    private static HorrorMovieSQL readRow(ResultSet rs) throws SQLException {
+        Date watched = rs.getDate(9);
+        HorrorMovieSQL movie = new HorrorMovieSQL(rs.getString(2), rs.getString(3), rs.getInt(4),
+                rs.getInt(5), rs.getString(6), rs.getDouble(7), rs.getString(8),
+                watched == null ? null : watched.toLocalDate());
+        movie.setId(rs.getInt(1));
+        return movie;
+    }
+
+    @Override
+    public BulkWrite deleteByTitleKeys(Collection<String> titleKeys, int maxRows) {
+        List<String> keys = new ArrayList<>(titleKeys);
+        if (keys.isEmpty()) return BulkWrite.NONE;
+        return inTransaction("Failed to delete movies", connection -> {
+            //Read what the DELETE will remove, giving up once more rows match than the caller wants reported
+            List<HorrorMovieSQL> rows = new ArrayList<>();
+            for (int from = 0; from < keys.size() && rows != null; from += IN_LIST_LIMIT) {
+                List<Object> part = keyPart(keys, from);
+                rows = readUpTo(connection, " WHERE title_key IN (" + placeholders(part.size()) + ")", part, rows, maxRows);
+            }
+            if (rows == null) {
+                int deleted = 0;
+                for (int from = 0; from < keys.size(); from += IN_LIST_LIMIT) {
+                    List<Object> part = keyPart(keys, from);
+                    deleted += execute(connection, "DELETE FROM horror_movies WHERE title_key IN ("
+                            + placeholders(part.size()) + ")", part);
+                }
+                return new BulkWrite(deleted, null);
+            }
+            return new BulkWrite(executeForIds(connection, "DELETE FROM horror_movies", List.of(), rows), rows);
+        });
+    }
+
+    @Override
+    public BulkWrite updateMatching(MovieFilter filter, MovieField field, Object value, int maxRows) {
+        List<Object> filterParams = new ArrayList<>();
+        String where = where(filter, filterParams);
+        //Bumping the version makes edits still based on the old rows fail their optimistic check
+        String update = "UPDATE horror_movies SET " + field.column() + " = ?, version = version + 1";
+        List<Object> valueParam = new ArrayList<>();
+        valueParam.add(value);
+        return inTransaction("Failed to update movies", connection -> {
+            List<HorrorMovieSQL> rows = readUpTo(connection, where, filterParams, new ArrayList<>(), maxRows);
+            if (rows == null) {
+                List<Object> params = new ArrayList<>(valueParam);
+                params.addAll(filterParams);
+                return new BulkWrite(execute(connection, update + where, params), null);
+            }
+            return new BulkWrite(executeForIds(connection, update, valueParam, rows), rows);
+        });
+    }
+
+    //Adds the rows matching a WHERE clause to rows, or returns null once they come to more than maxRows.
+    //The rows stay locked until the transaction ends, so the write that follows changes them as they were read
+    private List<HorrorMovieSQL> readUpTo(Connection connection, String where, List<Object> params,
+                                          List<HorrorMovieSQL> rows, int maxRows) throws SQLException {
+        List<Object> limited = new ArrayList<>(params);
+        //One row past the limit is enough to tell that the limit was passed
+        limited.add(maxRows - rows.size() + 1);
+        try (PreparedStatement ps = connection.prepareStatement(ROW_SQL + where + " LIMIT ? FOR UPDATE")) {
+            bindAll(ps, limited);
+            QueryCounter.increment();
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    if (rows.size() == maxRows) return null;
+                    rows.add(readRow(rs));
+                }
+            }
+        }
+        return rows;
+    }
+
+    //Runs a DELETE or UPDATE restricted to the ids of rows, IN_LIST_LIMIT ids per statement
+    private int executeForIds(Connection connection, String sql, List<Object> params,
+                              List<HorrorMovieSQL> rows) throws SQLException {
+        int changed = 0;
+        for (int from = 0; from < rows.size(); from += IN_LIST_LIMIT) {
+            List<HorrorMovieSQL> part = rows.subList(from, Math.min(rows.size(), from + IN_LIST_LIMIT));
+            List<Object> partParams = new ArrayList<>(params);
+            for (HorrorMovieSQL row : part) partParams.add(row.getId());
+            changed += execute(connection, sql + " WHERE id IN (" + placeholders(part.size()) + ")", partParams);
+        }
+        return changed;
+    }
+
+    private static List<Object> keyPart(List<String> keys, int from) {
+        return new ArrayList<>(keys.subList(from, Math.min(keys.size(), from + IN_LIST_LIMIT)));
+    }
+
+    private static String placeholders(int count) {
+        return "?, ".repeat(count - 1) + "?";
+    }
+
+    //Turns a filter into a WHERE clause with the same meaning as the in-memory scan, collecting its parameters
+    private static String where(MovieFilter filter, List<Object> params) {
+        List<String> conditions = new ArrayList<>();
+        bound(conditions, params, "rating >= ?", filter.minRating());
+        bound(conditions, params, "rating <= ?", filter.maxRating());
+        bound(conditions, params, "release_year >= ?", filter.fromYear());
+        bound(conditions, params, "release_year <= ?", filter.toYear());
+        bound(conditions, params, "runtime_minutes >= ?", filter.minRuntime());
+        bound(conditions, params, "runtime_minutes <= ?", filter.maxRuntime());
+        //A blank name places no restriction, as in the scan. Names are stored trimmed and the column's
+        //case-insensitive collation does the rest, so the plain comparison can use an index
+        if (filter.platform() != null && !filter.platform().isBlank()) {
+            bound(conditions, params, "streaming_platform = ?", filter.platform().trim());
+        }
+        if (filter.director() != null && !filter.director().isBlank()) {
+            bound(conditions, params, "director = ?", filter.director().trim());
+        }
+        //Comparisons with a NULL date are never true, so movies without a watch date drop out of date bounds
+        bound(conditions, params, "date_watched >= ?", filter.watchedFrom());
+        bound(conditions, params, "date_watched <= ?", filter.watchedTo());
+        return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+    }
+
+    private static void bound(List<String> conditions, List<Object> params, String condition, Object value) {
+        if (value == null) return;
+        conditions.add(condition);
+        params.add(value);
+    }
+
+    private int execute(Connection connection, String sql, List<Object> params) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            bindAll(ps, params);
+            QueryCounter.increment();
+            return ps.executeUpdate();
+        }
+    }
+
+    private static void bindAll(PreparedStatement ps, List<Object> params) throws SQLException {
+        for (int i = 0; i < params.size(); i++) {
+            Object param = params.get(i);
+            if (param == null) {
+                ps.setNull(i + 1, Types.VARCHAR);
+            } else if (param instanceof LocalDate date) {
+                ps.setDate(i + 1, Date.valueOf(date));
+            } else {
+                ps.setObject(i + 1, param);
+            }
+        }
+    }
+
+    //Runs work on its own connection as one transaction, rolled back if it fails
+    private <T> T inTransaction(String failure, SqlWork<T> work) {
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                T result = work.run(connection);
+                connection.commit();
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                //Setting auto-commit back would otherwise commit the half-done work
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            throw new DataAccessResourceFailureException(failure, e);
+        }
+    }
+
+    private interface SqlWork<T> {
+        T run(Connection connection) throws SQLException;
+    }
+
+    //Sends the whole chunk as one JDBC batch
+    private void insertBatch(Connection connection, List<HorrorMovieSQL> movies) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+            for (HorrorMovieSQL movie : movies) {
+                bind(ps, movie);
+                ps.addBatch();
+            }
+            QueryCounter.increment();
+            ps.executeBatch();
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                for (int i = 0; i < movies.size() && keys.next(); i++) {
+                    movies.get(i).setId(keys.getInt(1));
+                }
+            }
+        }
+    }
+
+    //Fallback path: each row is its own statement, failed rows are collected instead of thrown.
+    //Relies on statement-level atomicity (MySQL/InnoDB, H2) so one failure does not abort the transaction.
+    private List<HorrorMovieSQL> insertRowByRow(Connection connection, List<HorrorMovieSQL> movies) throws SQLException {
+        List<HorrorMovieSQL> failed = new ArrayList<>();
+        try (PreparedStatement ps = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+            for (HorrorMovieSQL movie : movies) {
+                try {
+                    bind(ps, movie);
+                    QueryCounter.increment();
+                    ps.executeUpdate();
+                    try (ResultSet keys = ps.getGeneratedKeys()) {
+                        if (keys.next()) movie.setId(keys.getInt(1));
+                    }
+                } catch (SQLException rowFailure) {
+                    failed.add(movie);
+                }
+            }
+        }
+        return failed;
+    }
+
+    private void bind(PreparedStatement ps, HorrorMovieSQL movie) throws SQLException {
+        ps.setString(1, movie.getTitle());
+        ps.setString(2, movie.getDirector());
+        ps.setInt(3, movie.getReleaseYear());
+        ps.setInt(4, movie.getRuntimeMinutes());
+        ps.setString(5, movie.getStreamingPlatform());
+        ps.setDouble(6, movie.getRating());
+        ps.setString(7, movie.getTags());
+        if (movie.getDateWatched() != null) {
+            ps.setDate(8, Date.valueOf(movie.getDateWatched()));
+        } else {
+            ps.setNull(8, Types.DATE);
+        }
+        ps.setString(9, HorrorMovieSQL.normalizeTitle(movie.getTitle()));
+    }
+}
@@ -0,0 +1,27 @@
+package com.slasherstats.repository;
+
+import com.slasherstats.model.HorrorMovieSQL;
+
+import java.util.List;
+
+/**
+ * Keyset (seek) pagination over the movie table.
+ * <p>
+ * Instead of an {@code OFFSET}, which makes the database walk past every earlier row, each page
+ * starts strictly after the sort key and id of the last row of the previous page. With an index on
+ * the sort column the cost of a page is the same at the start and the end of the table.
+ */
+public interface HorrorMoviePageRepository {
+
+    /**
+     * Loads one page of movies ordered by {@code sort} and then by id.
+     *
+     * @param sort       the sort key
+     * @param descending true to order from the highest key down
+     * @param afterKey   sort key of the last row of the previous page, may be {@code null} for nullable sorts
+     * @param afterId    id of the last row of the previous page, or {@code null} for the first page
+     * @param limit      the most rows to return
+     * @return up to {@code limit} movies following the given row
+     */
+    List<HorrorMovieSQL> findPage(MovieSort sort, boolean descending, Object afterKey, Integer afterId, int limit);
+}
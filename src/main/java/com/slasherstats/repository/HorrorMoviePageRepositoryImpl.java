@@ -0,0 +1,48 @@
+package com.slasherstats.repository;
+
+import com.slasherstats.model.HorrorMovieSQL;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+import java.util.List;
+
+/**
+ * JPQL implementation of {@link HorrorMoviePageRepository}.
+ * Spring Data picks this class up by name and mixes it into {@link HorrorMovieRepository}.
+ */
+public class HorrorMoviePageRepositoryImpl implements HorrorMoviePageRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<HorrorMovieSQL> findPage(MovieSort sort, boolean descending, Object afterKey, Integer afterId, int limit) {
+        String key = "m." + sort.getProperty();
+        String after = descending ? "<" : ">";
+        StringBuilder jpql = new StringBuilder("SELECT m FROM HorrorMovieSQL m");
+
+        if (afterId != null) {
+            //NULL keys sort first ascending and last descending, as MySQL orders them
+            if (afterKey == null) {
+                jpql.append(" WHERE (").append(key).append(" IS NULL AND m.id ").append(after).append(" :afterId)");
+                if (!descending) jpql.append(" OR ").append(key).append(" IS NOT NULL");
+            } else {
+                //A row-value comparison is one range on the (key, id) index, which an OR of the two cases often is not
+                jpql.append(" WHERE (").append(key).append(", m.id) ").append(after).append(" (:afterKey, :afterId)");
+                if (descending && sort.isNullable()) jpql.append(" OR ").append(key).append(" IS NULL");
+            }
+        }
+        String direction = descending ? " DESC" : " ASC";
+        jpql.append(" ORDER BY ").append(key).append(direction);
+        if (sort.isNullable()) jpql.append(descending ? " NULLS LAST" : " NULLS FIRST");
+        jpql.append(", m.id").append(direction);
+
+        TypedQuery<HorrorMovieSQL> query = entityManager.createQuery(jpql.toString(), HorrorMovieSQL.class);
+        if (afterId != null) {
+            query.setParameter("afterId", afterId);
+            if (afterKey != null) query.setParameter("afterKey", afterKey);
+        }
+        return query.setMaxResults(limit).getResultList();
+    }
+}
@@ -2,16 +2,101 @@ package com.slasherstats.repository;
 
 import com.slasherstats.model.HorrorMovieSQL;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
 
 /**
  * Repository interface for accessing and managing {@link HorrorMovieSQL} entities.
+ * <p>
+ * The range queries are plain SQL written for an index of db/slasherStats.sql each: the bounded column
+ * leads the index and the order follows it, so the database reads only the matching rows, already sorted,
+ * and stops at the limit. The statements are public so tests can check their plans with {@code EXPLAIN}.
  */
-public interface HorrorMovieRepository extends JpaRepository<HorrorMovieSQL, Integer> {
+public interface HorrorMovieRepository extends JpaRepository<HorrorMovieSQL, Integer>, HorrorMovieBulkRepository,
+        HorrorMoviePageRepository {
+
+    /** Movies watched between two dates, read through {@code idx_horror_movies_date_watched}. */
+    String WATCHED_BETWEEN = "SELECT * FROM horror_movies WHERE date_watched BETWEEN :from AND :to"
+            + " ORDER BY date_watched, id LIMIT :limit";
+    /** Movies released between two years, read through {@code idx_horror_movies_release_year}. */
+    String RELEASED_BETWEEN = "SELECT * FROM horror_movies WHERE release_year BETWEEN :fromYear AND :toYear"
+            + " ORDER BY release_year, id LIMIT :limit";
+    /** Movies on a platform rated at least a score, best first, read through {@code idx_horror_movies_platform_rating}. */
+    String PLATFORM_RATED_AT_LEAST = "SELECT * FROM horror_movies WHERE streaming_platform = :platform AND rating >= :minRating"
+            + " ORDER BY rating DESC, id DESC LIMIT :limit";
+    /** Movies on a platform watched between two dates, read through {@code idx_horror_movies_platform_date_watched}. */
+    String PLATFORM_WATCHED_BETWEEN = "SELECT * FROM horror_movies WHERE streaming_platform = :platform"
+            + " AND date_watched BETWEEN :from AND :to ORDER BY date_watched, id LIMIT :limit";
+
     /**
      * Retrieves a horror movie by its title, ignoring case sensitivity.
+     * The lookup goes through the indexed {@code title_key} column rather than {@code LOWER(title)}.
+     * If several movies share the title, the one added first is returned.
      *
      * @param title the title of the movie to find
      * @return the {@link HorrorMovieSQL} object if found, or {@code null} if not found
      */
-    HorrorMovieSQL findByTitleIgnoreCase(String title);
+    default HorrorMovieSQL findByTitleIgnoreCase(String title) {
+        return title == null ? null : findFirstByTitleKeyOrderByIdAsc(HorrorMovieSQL.normalizeTitle(title));
+    }
+
+    /**
+     * Retrieves the first horror movie with the given normalized title.
+     *
+     * @param titleKey the title as returned by {@link HorrorMovieSQL#normalizeTitle(String)}
+     * @return the matching movie with the lowest id, or {@code null} if there is none
+     */
+    HorrorMovieSQL findFirstByTitleKeyOrderByIdAsc(String titleKey);
+
+    /**
+     * Retrieves the movies watched between two dates, earliest first. Movies without a watch date are left out.
+     *
+     * @param from  earliest watch date, inclusive
+     * @param to    latest watch date, inclusive
+     * @param limit the most movies to return
+     * @return the matching movies ordered by watch date and then id
+     */
+    @Query(value = WATCHED_BETWEEN, nativeQuery = true)
+    List<HorrorMovieSQL> findWatchedBetween(@Param("from") LocalDate from, @Param("to") LocalDate to, @Param("limit") int limit);
+
+    /**
+     * Retrieves the movies released between two years, earliest first.
+     *
+     * @param fromYear earliest release year, inclusive
+     * @param toYear   latest release year, inclusive
+     * @param limit    the most movies to return
+     * @return the matching movies ordered by release year and then id
+     */
+    @Query(value = RELEASED_BETWEEN, nativeQuery = true)
+    List<HorrorMovieSQL> findReleasedBetween(@Param("fromYear") int fromYear, @Param("toYear") int toYear, @Param("limit") int limit);
+
+    /**
+     * Retrieves the movies on a streaming platform rated at least a score, highest rated first. The platform
+     * is compared by the column's collation, which ignores case under MySQL's default one.
+     *
+     * @param platform  the streaming platform
+     * @param minRating lowest rating, inclusive
+     * @param limit     the most movies to return
+     * @return the matching movies ordered by rating and then id, both descending
+     */
+    @Query(value = PLATFORM_RATED_AT_LEAST, nativeQuery = true)
+    List<HorrorMovieSQL> findOnPlatformRatedAtLeast(@Param("platform") String platform, @Param("minRating") double minRating,
+                                                    @Param("limit") int limit);
+
+    /**
+     * Retrieves the movies on a streaming platform watched between two dates, earliest first. The platform
+     * is compared by the column's collation, which ignores case under MySQL's default one.
+     *
+     * @param platform the streaming platform
+     * @param from     earliest watch date, inclusive
+     * @param to       latest watch date, inclusive
+     * @param limit    the most movies to return
+     * @return the matching movies ordered by watch date and then id
+     */
+    @Query(value = PLATFORM_WATCHED_BETWEEN, nativeQuery = true)
+    List<HorrorMovieSQL> findOnPlatformWatchedBetween(@Param("platform") String platform, @Param("from") LocalDate from,
+                                                      @Param("to") LocalDate to, @Param("limit") int limit);
 }
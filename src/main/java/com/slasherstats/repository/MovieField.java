@@ -0,0 +1,101 @@
+package com.slasherstats.repository;
+
+import com.slasherstats.model.HorrorMovieSQL;
+
+import java.time.LocalDate;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Movie fields that can be changed on their own: on one movie by a partial update, or on many
+ * movies at once by a single set-based update.
+ */
+public enum MovieField {
+    DIRECTOR("director", "director", String::trim, HorrorMovieSQL::getDirector,
+            (movie, value) -> movie.setDirector((String) value)),
+    RELEASE_YEAR("releaseYear", "release_year", s -> Integer.valueOf(s.trim()), HorrorMovieSQL::getReleaseYear,
+            (movie, value) -> movie.setReleaseYear((Integer) value)),
+    RUNTIME_MINUTES("runtimeMinutes", "runtime_minutes", s -> Integer.valueOf(s.trim()), HorrorMovieSQL::getRuntimeMinutes,
+            (movie, value) -> movie.setRuntimeMinutes((Integer) value)),
+    PLATFORM("platform", "streaming_platform", String::trim, HorrorMovieSQL::getStreamingPlatform,
+            (movie, value) -> movie.setStreamingPlatform((String) value)),
+    RATING("rating", "rating", s -> Double.valueOf(s.trim()), HorrorMovieSQL::getRating,
+            (movie, value) -> movie.setRating((Double) value)),
+    TAGS("tags", "tags", s -> s, HorrorMovieSQL::getTags,
+            (movie, value) -> movie.setTags((String) value)),
+    DATE_WATCHED("dateWatched", "date_watched", s -> LocalDate.parse(s.trim()), HorrorMovieSQL::getDateWatched,
+            (movie, value) -> movie.setDateWatched((LocalDate) value));
+
+    private final String property;
+    private final String column;
+    private final Function<String, Object> parser;
+    private final Function<HorrorMovieSQL, Object> getter;
+    private final BiConsumer<HorrorMovieSQL, Object> setter;
+
+    MovieField(String property, String column, Function<String, Object> parser,
+               Function<HorrorMovieSQL, Object> getter, BiConsumer<HorrorMovieSQL, Object> setter) {
+        this.property = property;
+        this.column = column;
+        this.parser = parser;
+        this.getter = getter;
+        this.setter = setter;
+    }
+
+    /**
+     * Returns the name this field is asked for by, e.g. in a request parameter.
+     *
+     * @return the property name
+     */
+    public String getProperty() {
+        return property;
+    }
+
+    //Column written by the update
+    String column() {
+        return column;
+    }
+
+    /**
+     * Parses a value for this field from text. Numbers are plain decimals and dates are yyyy-MM-dd.
+     *
+     * @param text the value as text, may be {@code null}
+     * @return the value, a {@link String}, {@link Integer}, {@link Double} or {@link LocalDate}
+     * @throws RuntimeException if the text is not a valid value for this field
+     */
+    public Object parseValue(String text) {
+        return text == null ? null : parser.apply(text);
+    }
+
+    /**
+     * Returns this field's value on a movie.
+     *
+     * @param movie the movie
+     * @return the value, boxed
+     */
+    public Object valueOf(HorrorMovieSQL movie) {
+        return getter.apply(movie);
+    }
+
+    /**
+     * Sets this field on a movie, the same way the set-based update sets it in the table.
+     *
+     * @param movie the movie to change
+     * @param value a value returned by {@link #parseValue(String)}
+     */
+    public void apply(HorrorMovieSQL movie, Object value) {
+        setter.accept(movie, value);
+    }
+
+    /**
+     * Looks a field up by its property name, ignoring case.
+     *
+     * @param property the property name, e.g. {@code "platform"}
+     * @return the matching field, or {@code null} if there is none
+     */
+    public static MovieField fromProperty(String property) {
+        for (MovieField field : values()) {
+            if (field.property.equalsIgnoreCase(property)) return field;
+        }
+        return null;
+    }
+}
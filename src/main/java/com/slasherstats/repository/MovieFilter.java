@@ -0,0 +1,27 @@
+package com.slasherstats.repository;
+
+import java.time.LocalDate;
+
+/**
+ * Restricts a scan or a bulk update to matching movies. Every bound is inclusive and {@code null}
+ * places no restriction. Movies without a watch date never match a watch date bound.
+ *
+ * @param minRating   lowest rating
+ * @param maxRating   highest rating
+ * @param fromYear    earliest release year
+ * @param toYear      latest release year
+ * @param minRuntime  shortest runtime in minutes
+ * @param maxRuntime  longest runtime in minutes
+ * @param platform    streaming platform, matched ignoring case and surrounding spaces; the database
+ *                    does the case part through the column's collation
+ * @param director    director, matched the same way as the platform
+ * @param watchedFrom earliest watch date
+ * @param watchedTo   latest watch date
+ */
+public record MovieFilter(Double minRating, Double maxRating, Integer fromYear, Integer toYear,
+                          Integer minRuntime, Integer maxRuntime, String platform, String director,
+                          LocalDate watchedFrom, LocalDate watchedTo) {
+
+    /** Matches every movie. */
+    public static final MovieFilter ALL = new MovieFilter(null, null, null, null, null, null, null, null, null, null);
+}
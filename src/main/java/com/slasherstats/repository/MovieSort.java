@@ -0,0 +1,81 @@
+package com.slasherstats.repository;
+
+import com.slasherstats.model.HorrorMovieSQL;
+
+import java.time.LocalDate;
+import java.util.function.Function;
+
+/**
+ * Sort keys the movie listing can be paged by. Every sort is made stable by breaking ties on the
+ * movie id, so a page boundary can always be described by the last row's key and id.
+ */
+public enum MovieSort {
+    TITLE("title", false, HorrorMovieSQL::getTitle, s -> s),
+    RATING("rating", false, HorrorMovieSQL::getRating, Double::valueOf),
+    RELEASE_YEAR("releaseYear", false, HorrorMovieSQL::getReleaseYear, Integer::valueOf),
+    DATE_WATCHED("dateWatched", true, HorrorMovieSQL::getDateWatched, LocalDate::parse);
+
+    private final String property;
+    private final boolean nullable;
+    private final Function<HorrorMovieSQL, Object> key;
+    private final Function<String, Object> parser;
+
+    MovieSort(String property, boolean nullable, Function<HorrorMovieSQL, Object> key, Function<String, Object> parser) {
+        this.property = property;
+        this.nullable = nullable;
+        this.key = key;
+        this.parser = parser;
+    }
+
+    /**
+     * Returns the entity property this sort orders by, which is also its request parameter value.
+     *
+     * @return the property name
+     */
+    public String getProperty() {
+        return property;
+    }
+
+    /**
+     * Returns whether the sort column may hold {@code NULL}, which then sorts before every value.
+     *
+     * @return true if the column is nullable
+     */
+    public boolean isNullable() {
+        return nullable;
+    }
+
+    /**
+     * Returns the sort key of a movie.
+     *
+     * @param movie the movie
+     * @return the value of the sort property, possibly {@code null} for nullable sorts
+     */
+    public Object keyOf(HorrorMovieSQL movie) {
+        return key.apply(movie);
+    }
+
+    /**
+     * Parses a sort key written with {@link String#valueOf(Object)}.
+     *
+     * @param text the key as text
+     * @return the key
+     * @throws RuntimeException if the text is not a valid key for this sort
+     */
+    public Object parseKey(String text) {
+        return parser.apply(text);
+    }
+
+    /**
+     * Looks a sort up by its property name, ignoring case.
+     *
+     * @param property the property name, e.g. {@code "rating"}
+     * @return the matching sort, or {@link #TITLE} if there is none
+     */
+    public static MovieSort fromProperty(String property) {
+        for (MovieSort sort : values()) {
+            if (sort.property.equalsIgnoreCase(property)) return sort;
+        }
+        return TITLE;
+    }
+}
@@ -0,0 +1,47 @@
+package com.slasherstats.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the SQL statements each thread sends to the database, so that the queries a request
+ * causes can be measured. Hibernate reports every statement it prepares through this inspector
+ * (configured as {@code hibernate.session_factory.statement_inspector}); the plain JDBC paths in
+ * {@link HorrorMovieBulkRepositoryImpl} report theirs with {@link #increment()}.
+ * <p>
+ * Counting is a thread-local increment, so it costs next to nothing. Statements sent from other
+ * threads, such as background imports, count towards those threads.
+ */
+public class QueryCounter implements StatementInspector {
+
+    private static final ThreadLocal<long[]> COUNT = ThreadLocal.withInitial(() -> new long[1]);
+
+    //Leaves the SQL untouched; only counts it
+    @Override
+    public String inspect(String sql) {
+        increment();
+        return sql;
+    }
+
+    /**
+     * Counts one statement sent by the current thread.
+     */
+    public static void increment() {
+        COUNT.get()[0]++;
+    }
+
+    /**
+     * Starts counting the current thread's statements from zero.
+     */
+    public static void reset() {
+        COUNT.get()[0] = 0;
+    }
+
+    /**
+     * Returns the statements the current thread sent since the last {@link #reset()}.
+     *
+     * @return the number of statements
+     */
+    public static long count() {
+        return COUNT.get()[0];
+    }
+}
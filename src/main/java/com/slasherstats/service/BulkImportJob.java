@@ -0,0 +1,78 @@
+package com.slasherstats.service;
+
+import java.util.Map;
+
+/**
+ * A bulk movie upload that is imported in the background by {@link BulkImportJobService}.
+ * The job's {@link BulkImportReport} doubles as its live progress.
+ */
+public class BulkImportJob {
+
+    /** Lifecycle of an import job. */
+    public enum Status { QUEUED, RUNNING, COMPLETED, FAILED }
+
+    private final String id;
+    private final String fileName;
+    private final BulkImportReport report;
+    private volatile Status status = Status.QUEUED;
+    private volatile String error;
+
+    BulkImportJob(String id, String fileName, BulkImportReport report) {
+        this.id = id;
+        this.fileName = fileName;
+        this.report = report;
+    }
+
+    public String getId() { return id; }
+
+    public String getFileName() { return fileName; }
+
+    public BulkImportReport getReport() { return report; }
+
+    public Status getStatus() { return status; }
+
+    public String getError() { return error; }
+
+    public boolean isDone() { return status == Status.COMPLETED || status == Status.FAILED; }
+
+    /**
+     * Takes a snapshot of the job's progress for the progress endpoint.
+     *
+     * @return the current progress of the job
+     */
+    public Progress progress() {
+        double fraction = report.getFractionDone();
+        return new Progress(id, fileName, status, report.getRowsRead(), report.getRowsAccepted(),
+                report.getRowsRejected(), report.getRowsPerSecond(), fraction < 0 ? -1 : fraction * 100,
+                status == Status.QUEUED ? -1 : report.getEtaSeconds(), report.getRejectCounts(), error);
+    }
+
+    void started() { status = Status.RUNNING; }
+
+    void completed() { status = Status.COMPLETED; }
+
+    void failed(String error) {
+        this.error = error;
+        status = Status.FAILED;
+    }
+
+    /**
+     * Point-in-time progress of an import job.
+     *
+     * @param id            the job id
+     * @param fileName      the name of the uploaded file
+     * @param status        where the job is in its lifecycle
+     * @param rowsRead      lines read so far
+     * @param rowsAccepted  movies written so far
+     * @param rowsRejected  lines rejected so far
+     * @param rowsPerSecond movies written per second
+     * @param percentDone   share of the file processed, or -1 if unknown
+     * @param etaSeconds    estimated seconds remaining, or -1 if unknown
+     * @param rejectCounts  rejected lines by reason
+     * @param error         why the job failed, or {@code null}
+     */
+    public record Progress(String id, String fileName, Status status, long rowsRead, long rowsAccepted,
+                           long rowsRejected, double rowsPerSecond, double percentDone, double etaSeconds,
+                           Map<BulkRejectReason, Long> rejectCounts, String error) {
+    }
+}
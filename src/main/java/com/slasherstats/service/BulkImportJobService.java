@@ -0,0 +1,171 @@
+package com.slasherstats.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs uploaded bulk movie files and catalog snapshots as background jobs so that request threads are not tied up
+ * for the length of an import.
+ * <p>
+ * Jobs run on a dedicated, bounded executor: at most {@code slasherstats.import.max-concurrent}
+ * imports run at once and at most {@code slasherstats.import.queue-capacity} wait behind them.
+ * Uploads past that are refused instead of piling up and starving interactive traffic.
+ */
+@Service
+public class BulkImportJobService {
+
+    /** Number of jobs, running or finished, kept around for progress lookups. */
+    static final int RETAINED_JOBS = 100;
+
+    private final slasherStatsManager manager;
+    private final ThreadPoolExecutor executor;
+    //Insertion-ordered so the oldest jobs are forgotten first
+    private final Map<String, BulkImportJob> jobs = Collections.synchronizedMap(new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, BulkImportJob> eldest) {
+            return size() > RETAINED_JOBS;
+        }
+    });
+
+    /**
+     * Creates the job service and its import executor.
+     *
+     * @param manager       service that performs the imports
+     * @param maxConcurrent number of imports that may run at the same time, at least 1
+     * @param queueCapacity number of imports that may wait for a free slot
+     * @throws IllegalArgumentException if {@code maxConcurrent} is less than 1 or {@code queueCapacity} is negative
+     */
+    @Autowired
+    public BulkImportJobService(slasherStatsManager manager,
+                                @Value("${slasherstats.import.max-concurrent:2}") int maxConcurrent,
+                                @Value("${slasherstats.import.queue-capacity:4}") int queueCapacity) {
+        if (maxConcurrent < 1) {
+            throw new IllegalArgumentException("slasherstats.import.max-concurrent must be at least 1, was " + maxConcurrent);
+        }
+        if (queueCapacity < 0) {
+            throw new IllegalArgumentException("slasherstats.import.queue-capacity must not be negative, was " + queueCapacity);
+        }
+        this.manager = manager;
+        AtomicInteger threadIds = new AtomicInteger();
+        //A capacity of 0 means uploads are only accepted while a slot is free
+        BlockingQueue<Runnable> waiting = queueCapacity > 0 ? new ArrayBlockingQueue<>(queueCapacity) : new SynchronousQueue<>();
+        this.executor = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 0L, TimeUnit.MILLISECONDS, waiting, r -> {
+            Thread t = new Thread(r, "bulk-import-job-" + threadIds.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Spools an uploaded file to a temporary file and queues it for import.
+     *
+     * @param file the uploaded bulk movie file
+     * @return the queued job, whose id can be used to look up progress
+     * @throws IOException                if the upload cannot be spooled to disk
+     * @throws RejectedExecutionException if too many imports are already running or queued
+     */
+    public BulkImportJob submit(MultipartFile file) throws IOException {
+        return submit(file, ".txt", manager::importBulkMovies);
+    }
+
+    /**
+     * Spools an uploaded catalog snapshot to a temporary file and queues it to be restored.
+     * Restores share the import executor and its limits.
+     *
+     * @param file the uploaded snapshot
+     * @return the queued job, whose id can be used to look up progress
+     * @throws IOException                if the upload cannot be spooled to disk
+     * @throws RejectedExecutionException if too many imports are already running or queued
+     */
+    public BulkImportJob submitRestore(MultipartFile file) throws IOException {
+        return submit(file, ".snapshot", (spooled, report) -> {
+            try (FileChannel channel = FileChannel.open(spooled, StandardOpenOption.READ)) {
+                report.setTotalBytes(channel.size());
+                manager.restoreSnapshot(channel, report);
+            }
+        });
+    }
+
+    private BulkImportJob submit(MultipartFile file, String suffix, SpooledImport work) throws IOException {
+        Path spooled = Files.createTempFile("slasherstats-upload-", suffix);
+        try {
+            file.transferTo(spooled);
+        } catch (IOException e) {
+            Files.deleteIfExists(spooled);
+            throw e;
+        }
+
+        BulkImportJob job = new BulkImportJob(UUID.randomUUID().toString(), file.getOriginalFilename(),
+                new BulkImportReport(manager.getBulkChunkSize()));
+        jobs.put(job.getId(), job);
+        try {
+            executor.execute(() -> run(job, spooled, work));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            Files.deleteIfExists(spooled);
+            throw new RejectedExecutionException("Too many imports in progress, please try again shortly", e);
+        }
+        return job;
+    }
+
+    /**
+     * Looks up a job by id.
+     *
+     * @param id the job id returned by {@link #submit(MultipartFile)}
+     * @return the job, or {@code null} if it is unknown or has been forgotten
+     */
+    public BulkImportJob getJob(String id) {
+        return jobs.get(id);
+    }
+
+    //Runs one import on an executor thread and always removes the spooled file afterwards
+    private void run(BulkImportJob job, Path spooled, SpooledImport work) {
+        job.started();
+        try {
+            work.run(spooled, job.getReport());
+            job.completed();
+        } catch (Exception e) {
+            System.out.println("Bulk import job " + job.getId() + " failed: " + e.getMessage());
+            job.failed(e.getMessage());
+        } finally {
+            try {
+                Files.deleteIfExists(spooled);
+            } catch (IOException e) {
+                System.out.println("Could not delete spooled upload " + spooled + ": " + e.getMessage());
+            }
+        }
+    }
+
+    //Imports one spooled upload into the job's report
+    private interface SpooledImport {
+        void run(Path spooled, BulkImportReport report) throws IOException;
+    }
+
+    /**
+     * Stops running imports when the application shuts down.
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,280 @@
+package com.slasherstats.service;
+
+import com.slasherstats.model.HorrorMovieSQL;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Three-stage pipeline for bulk movie files.
+ * <ol>
+ *     <li>One reader thread pulls raw bytes from a {@link ReadableByteChannel} and cuts them into
+ *     blocks of whole lines.</li>
+ *     <li>N parser threads turn each block into validated {@link HorrorMovieSQL} objects.</li>
+ *     <li>The calling thread gathers parsed blocks back into file order and hands them to the
+ *     chunk writer.</li>
+ * </ol>
+ * The stages are joined by bounded queues and a cap on blocks in flight, so memory stays flat
+ * no matter how large the file is.
+ */
+class BulkImportPipeline {
+
+    /** Starting size of a block of lines handed to a parser thread. */
+    static final int BLOCK_SIZE = 256 * 1024;
+
+    //Marks the end of the stream on both queues
+    private static final LineBlock END_OF_BLOCKS = new LineBlock(-1, new byte[0], 0, 0);
+    private static final ParsedBlock END_OF_PARSED = new ParsedBlock(-1, 0, List.of(), new long[0], 0, List.of());
+
+    private final int workers;
+    private final int chunkSize;
+    private final ChunkWriter chunkWriter;
+
+    /**
+     * Creates a pipeline.
+     *
+     * @param workers     number of parse/validate threads
+     * @param chunkSize   number of movies handed to the chunk writer at a time
+     * @param chunkWriter writes one chunk of movies; always called on the thread that runs the pipeline
+     */
+    BulkImportPipeline(int workers, int chunkSize, ChunkWriter chunkWriter) {
+        this.workers = Math.max(1, workers);
+        this.chunkSize = chunkSize;
+        this.chunkWriter = chunkWriter;
+    }
+
+    /**
+     * Runs the whole file through the pipeline and returns once every valid row has been written.
+     *
+     * @param channel the source of the bulk file; not closed by this method
+     * @param report  the report that collects row counts
+     * @throws IOException if the source cannot be read or the pipeline is interrupted
+     */
+    void run(ReadableByteChannel channel, BulkImportReport report) throws IOException {
+        BlockingQueue<LineBlock> blocks = new ArrayBlockingQueue<>(workers * 2);
+        BlockingQueue<ParsedBlock> parsed = new ArrayBlockingQueue<>(workers * 2);
+        //Caps how many blocks exist between the reader and the writer, which also bounds reordering
+        Semaphore inFlight = new Semaphore(workers * 4);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        AtomicInteger threadIds = new AtomicInteger();
+        ExecutorService threads = Executors.newFixedThreadPool(workers + 1, r -> {
+            Thread t = new Thread(r, "bulk-import-" + threadIds.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            threads.execute(() -> readBlocks(channel, blocks, inFlight, failure));
+            for (int i = 0; i < workers; i++) {
+                threads.execute(() -> parseBlocks(blocks, parsed, failure));
+            }
+            writeInOrder(parsed, inFlight, failure, report);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Bulk import interrupted");
+        } finally {
+            threads.shutdownNow();
+        }
+
+        Throwable error = failure.get();
+        if (error instanceof IOException io) throw io;
+        if (error != null) throw new IOException("Bulk import failed: " + error.getMessage(), error);
+    }
+
+    //Stage 1: cut the byte stream into blocks that only contain whole lines
+    private void readBlocks(ReadableByteChannel channel, BlockingQueue<LineBlock> blocks,
+                            Semaphore inFlight, AtomicReference<Throwable> failure) {
+        try {
+            byte[] buffer = new byte[BLOCK_SIZE];
+            int filled = 0;
+            long seq = 0;
+            long firstLine = 1;
+            boolean eof = false;
+            while (!eof) {
+                //Fill the buffer after whatever partial line was carried over
+                ByteBuffer target = ByteBuffer.wrap(buffer, filled, buffer.length - filled);
+                while (target.hasRemaining()) {
+                    if (channel.read(target) < 0) {
+                        eof = true;
+                        break;
+                    }
+                }
+                filled = target.position();
+
+                int end = eof ? filled : lastNewline(buffer, filled) + 1;
+                if (end == 0) {
+                    //A single line longer than the buffer: grow it and keep reading
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                    continue;
+                }
+
+                inFlight.acquire();
+                int lines = countLines(buffer, end);
+                blocks.put(new LineBlock(seq++, buffer, end, firstLine));
+                firstLine += lines;
+
+                //Carry the trailing partial line into a fresh buffer
+                byte[] next = new byte[Math.max(BLOCK_SIZE, filled - end)];
+                System.arraycopy(buffer, end, next, 0, filled - end);
+                filled -= end;
+                buffer = next;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Throwable t) {
+            failure.compareAndSet(null, t);
+        }
+        try {
+            for (int i = 0; i < workers; i++) {
+                blocks.put(END_OF_BLOCKS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    //Stage 2: parse and validate blocks until the reader signals the end
+    private void parseBlocks(BlockingQueue<LineBlock> blocks, BlockingQueue<ParsedBlock> parsed,
+                             AtomicReference<Throwable> failure) {
+        try {
+            BulkRecordParser parser = new BulkRecordParser();
+            LineBlock block;
+            while ((block = blocks.take()) != END_OF_BLOCKS) {
+                parsed.put(parseBlock(block, parser));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (Throwable t) {
+            failure.compareAndSet(null, t);
+        }
+        try {
+            parsed.put(END_OF_PARSED);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    //Stage 3: restore file order and hand movies to the chunk writer on the calling thread
+    private void writeInOrder(BlockingQueue<ParsedBlock> parsed, Semaphore inFlight,
+                              AtomicReference<Throwable> failure, BulkImportReport report) throws InterruptedException {
+        Map<Long, ParsedBlock> pending = new HashMap<>();
+        List<HorrorMovieSQL> chunk = new ArrayList<>(chunkSize);
+        long[] chunkLines = new long[chunkSize];
+        long nextSeq = 0;
+        int finishedWorkers = 0;
+        while (finishedWorkers < workers) {
+            ParsedBlock block = parsed.poll(100, TimeUnit.MILLISECONDS);
+            if (block == null) {
+                //A failed stage may leave a gap that would never be filled, so stop waiting
+                if (failure.get() != null) return;
+                continue;
+            }
+            if (block == END_OF_PARSED) {
+                finishedWorkers++;
+                continue;
+            }
+            pending.put(block.seq(), block);
+            while ((block = pending.remove(nextSeq)) != null) {
+                nextSeq++;
+                report.bytesProcessed(block.bytes());
+                for (int i = 0; i < block.lines(); i++) report.rowRead();
+                for (BulkImportReport.RejectedLine rejected : block.rejected()) {
+                    report.rowRejected(rejected.lineNumber(), rejected.reason());
+                }
+                for (int i = 0; i < block.movies().size(); i++) {
+                    chunkLines[chunk.size()] = block.movieLines()[i];
+                    chunk.add(block.movies().get(i));
+                    if (chunk.size() >= chunkSize) {
+                        chunkWriter.write(chunk, chunkLines);
+                        chunk = new ArrayList<>(chunkSize);
+                        chunkLines = new long[chunkSize];
+                    }
+                }
+                inFlight.release();
+            }
+        }
+        if (!chunk.isEmpty()) chunkWriter.write(chunk, chunkLines);
+    }
+
+    private ParsedBlock parseBlock(LineBlock block, BulkRecordParser parser) {
+        List<HorrorMovieSQL> movies = new ArrayList<>();
+        long[] movieLines = new long[64];
+        List<BulkImportReport.RejectedLine> rejected = new ArrayList<>();
+        int lines = 0;
+        long lineNumber = block.firstLine();
+        int start = 0;
+        byte[] data = block.data();
+        while (start < block.length()) {
+            int end = start;
+            while (end < block.length() && data[end] != '\n') end++;
+            int lineEnd = end > start && data[end - 1] == '\r' ? end - 1 : end;
+            //Blank lines are skipped rather than counted as rejected rows
+            if (lineEnd > start) {
+                lines++;
+                HorrorMovieSQL movie = parser.parse(data, start, lineEnd);
+                if (movie != null) {
+                    if (movies.size() == movieLines.length) movieLines = Arrays.copyOf(movieLines, movieLines.length * 2);
+                    movieLines[movies.size()] = lineNumber;
+                    movies.add(movie);
+                } else {
+                    rejected.add(new BulkImportReport.RejectedLine(lineNumber, parser.rejectReason()));
+                }
+            }
+            lineNumber++;
+            start = end + 1;
+        }
+        return new ParsedBlock(block.seq(), block.length(), movies, movieLines, lines, rejected);
+    }
+
+    private static int lastNewline(byte[] buffer, int length) {
+        for (int i = length - 1; i >= 0; i--) {
+            if (buffer[i] == '\n') return i;
+        }
+        return -1;
+    }
+
+    private static int countLines(byte[] buffer, int length) {
+        int lines = 0;
+        for (int i = 0; i < length; i++) {
+            if (buffer[i] == '\n') lines++;
+        }
+        return lines;
+    }
+
+    /** A run of whole lines cut from the source, numbered so they can be put back in order. */
+    private record LineBlock(long seq, byte[] data, int length, long firstLine) {
+    }
+
+    /** The validated movies, their line numbers and the rejected lines produced from one {@link LineBlock}. */
+    private record ParsedBlock(long seq, int bytes, List<HorrorMovieSQL> movies, long[] movieLines, int lines,
+                               List<BulkImportReport.RejectedLine> rejected) {
+    }
+
+    /** Receives chunks of validated movies from the pipeline. */
+    @FunctionalInterface
+    interface ChunkWriter {
+        /**
+         * Writes one chunk of movies.
+         *
+         * @param chunk       the movies to write, in file order
+         * @param lineNumbers the source line of each movie; only the first {@code chunk.size()} entries are used
+         */
+        void write(List<HorrorMovieSQL> chunk, long[] lineNumbers);
+    }
+}
@@ -0,0 +1,193 @@
+package com.slasherstats.service;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Summary of one bulk movie import: how many rows were read, written and rejected,
+ * which lines were rejected and why, and how long the chunked writes took.
+ * <p>
+ * Counters are only written by the thread running the import but are volatile, or atomic for the
+ * per-reason counts, so another thread can read them as live progress while the import is still going.
+ * The list of rejected lines is guarded by its own lock and handed out as a copy.
+ */
+public class BulkImportReport {
+
+    /** Most rejected lines listed individually; beyond this only the per-reason counts grow. */
+    public static final int MAX_LISTED_REJECTS = 1000;
+
+    private final int chunkSize;
+    private volatile long startNanos = System.nanoTime();
+    private volatile long finishNanos;
+
+    private volatile long totalBytes = -1;
+    private volatile long bytesProcessed;
+    private volatile long rowsRead;
+    private volatile long rowsAccepted;
+    private volatile long rowsRejected;
+
+    private final AtomicLongArray rejectsByReason = new AtomicLongArray(BulkRejectReason.values().length);
+    private final List<RejectedLine> rejectedLines = new ArrayList<>();
+
+    private volatile long chunks;
+    private volatile long totalChunkNanos;
+    private volatile long minChunkNanos = Long.MAX_VALUE;
+    private volatile long maxChunkNanos;
+
+    /**
+     * Starts a new report for an import that writes in chunks of the given size.
+     *
+     * @param chunkSize the number of rows written per chunk
+     */
+    public BulkImportReport(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    //Restarts the clock, so time spent waiting in a queue does not count against the import
+    void markStarted() { startNanos = System.nanoTime(); }
+
+    void rowRead() { rowsRead++; }
+
+    void bytesProcessed(long bytes) { bytesProcessed += bytes; }
+
+    /**
+     * Sets the size of the source, which lets the report estimate progress and time remaining.
+     *
+     * @param totalBytes size of the source in bytes, or -1 if unknown
+     */
+    public void setTotalBytes(long totalBytes) { this.totalBytes = totalBytes; }
+
+    //Records one rejected line; only the first MAX_LISTED_REJECTS are kept individually
+    void rowRejected(long lineNumber, BulkRejectReason reason) {
+        rowsRejected++;
+        rejectsByReason.incrementAndGet(reason.ordinal());
+        synchronized (rejectedLines) {
+            if (rejectedLines.size() < MAX_LISTED_REJECTS) rejectedLines.add(new RejectedLine(lineNumber, reason));
+        }
+    }
+
+    //Records one committed chunk and how long its write took
+    void chunkWritten(int accepted, long nanos) {
+        //Latencies first, so a reader that sees the new chunk count also sees its latency
+        minChunkNanos = Math.min(minChunkNanos, nanos);
+        maxChunkNanos = Math.max(maxChunkNanos, nanos);
+        totalChunkNanos += nanos;
+        rowsAccepted += accepted;
+        chunks++;
+    }
+
+    void finish() { finishNanos = System.nanoTime(); }
+
+    public int getChunkSize() { return chunkSize; }
+
+    public boolean isFinished() { return finishNanos != 0; }
+
+    public long getTotalBytes() { return totalBytes; }
+
+    public long getBytesProcessed() { return bytesProcessed; }
+
+    public long getRowsRead() { return rowsRead; }
+
+    public long getRowsAccepted() { return rowsAccepted; }
+
+    public long getRowsRejected() { return rowsRejected; }
+
+    public long getChunks() { return chunks; }
+
+    /**
+     * Returns the rejected lines in the order they were found, up to {@link #MAX_LISTED_REJECTS} of them.
+     * While the import is running this is the lines rejected so far.
+     *
+     * @return a copy of the first rejected lines with their line numbers and reasons
+     */
+    public List<RejectedLine> getRejectedLines() {
+        synchronized (rejectedLines) {
+            return List.copyOf(rejectedLines);
+        }
+    }
+
+    /**
+     * Returns how many lines were rejected for each reason, including lines past the listed limit.
+     *
+     * @return reject counts by reason, only for reasons that occurred
+     */
+    public Map<BulkRejectReason, Long> getRejectCounts() {
+        Map<BulkRejectReason, Long> counts = new EnumMap<>(BulkRejectReason.class);
+        for (BulkRejectReason reason : BulkRejectReason.values()) {
+            long count = rejectsByReason.get(reason.ordinal());
+            if (count > 0) counts.put(reason, count);
+        }
+        return counts;
+    }
+
+    /**
+     * Returns the wall-clock time of the import so far, or in total once it has finished.
+     *
+     * @return elapsed time in milliseconds
+     */
+    public double getElapsedMillis() {
+        long end = finishNanos == 0 ? System.nanoTime() : finishNanos;
+        return (end - startNanos) / 1_000_000.0;
+    }
+
+    /**
+     * Returns the number of accepted rows written per second of wall-clock time.
+     *
+     * @return rows per second, or 0 if no time has elapsed
+     */
+    public double getRowsPerSecond() {
+        double seconds = getElapsedMillis() / 1000.0;
+        return seconds > 0 ? rowsAccepted / seconds : 0;
+    }
+
+    /**
+     * Returns how much of the source has been parsed and handed to the writer.
+     *
+     * @return progress from 0.0 to 1.0, or -1 if the source size is unknown
+     */
+    public double getFractionDone() {
+        if (isFinished()) return 1.0;
+        if (totalBytes <= 0) return -1;
+        return Math.min(1.0, bytesProcessed / (double) totalBytes);
+    }
+
+    /**
+     * Estimates the time left from the bytes processed so far.
+     *
+     * @return estimated seconds remaining, or -1 if it cannot be estimated yet
+     */
+    public double getEtaSeconds() {
+        if (isFinished()) return 0;
+        long done = bytesProcessed;
+        if (totalBytes <= 0 || done == 0) return -1;
+        double seconds = getElapsedMillis() / 1000.0;
+        return (totalBytes - done) * seconds / done;
+    }
+
+    public double getAvgChunkMillis() { return chunks == 0 ? 0 : totalChunkNanos / (double) chunks / 1_000_000.0; }
+
+    public double getMinChunkMillis() { return chunks == 0 ? 0 : minChunkNanos / 1_000_000.0; }
+
+    public double getMaxChunkMillis() { return maxChunkNanos / 1_000_000.0; }
+
+    //Override the toString to show the report in a single log line
+    @Override
+    public String toString() {
+        return String.format("Bulk import: read=%d accepted=%d rejected=%d %s chunks=%d (size %d) "
+                        + "elapsed=%.1fms rate=%.0f rows/s chunk latency avg=%.2fms min=%.2fms max=%.2fms",
+                rowsRead, rowsAccepted, rowsRejected, getRejectCounts(), chunks, chunkSize,
+                getElapsedMillis(), getRowsPerSecond(), getAvgChunkMillis(), getMinChunkMillis(), getMaxChunkMillis());
+    }
+
+    /**
+     * One line of a bulk file that was not imported.
+     *
+     * @param lineNumber the 1-based line number in the source file
+     * @param reason     why the line was rejected
+     */
+    public record RejectedLine(long lineNumber, BulkRejectReason reason) {
+    }
+}
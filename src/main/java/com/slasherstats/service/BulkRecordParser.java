@@ -0,0 +1,206 @@
+package com.slasherstats.service;
+
+import com.slasherstats.model.HorrorMovieSQL;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.Year;
+
+/**
+ * Parser for one line of the 8-field bulk movie format:
+ * {@code title,director,releaseYear,runtimeMinutes,platform,rating,tags,dd-MM-yyyy}.
+ * A field may be wrapped in double quotes to hold commas or surrounding spaces; a doubled quote
+ * inside it stands for one quote, as in CSV. A quoted field cannot span lines.
+ * <p>
+ * The line is scanned in place inside a UTF-8 byte buffer. Numbers and dates are parsed
+ * straight from the bytes, so the only Strings built are the four text fields the movie keeps.
+ * Bad lines never throw: {@link #parse} returns {@code null} and {@link #rejectReason()}
+ * says why. An instance keeps scratch state, so each thread needs its own parser.
+ */
+public class BulkRecordParser {
+
+    private static final int FIELDS = 8;
+    private static final double[] POWERS_OF_TEN = {1, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15};
+
+    //Trimmed start/end offsets of each field of the current line
+    private final int[] fieldStart = new int[FIELDS];
+    private final int[] fieldEnd = new int[FIELDS];
+    //Whether a quoted field holds doubled quotes that text() has to undo
+    private final boolean[] fieldEscaped = new boolean[FIELDS];
+
+    private BulkRejectReason rejectReason;
+    //Scratch result of parseInt, valid only when it returns true
+    private int intValue;
+    private double doubleValue;
+
+    /**
+     * Parses the line held in {@code buf[start, end)}, without its line terminator.
+     *
+     * @param buf   the buffer holding the line as UTF-8 bytes
+     * @param start offset of the first byte of the line
+     * @param end   offset just past the last byte of the line
+     * @return the parsed movie, or {@code null} if the line was rejected
+     */
+    public HorrorMovieSQL parse(byte[] buf, int start, int end) {
+        rejectReason = null;
+        if (!splitFields(buf, start, end)) return reject(BulkRejectReason.FIELD_COUNT);
+        if (fieldStart[0] == fieldEnd[0]) return reject(BulkRejectReason.MISSING_TITLE);
+
+        if (!parseInt(buf, fieldStart[2], fieldEnd[2])) return reject(BulkRejectReason.BAD_YEAR);
+        int releaseYear = intValue;
+        if (!parseInt(buf, fieldStart[3], fieldEnd[3])) return reject(BulkRejectReason.BAD_RUNTIME);
+        int runtime = intValue;
+        if (!parseDouble(buf, fieldStart[5], fieldEnd[5])) return reject(BulkRejectReason.BAD_RATING);
+        double rating = doubleValue;
+        //Rating validation check
+        if (rating < 0.0 || rating > 10.0) return reject(BulkRejectReason.RATING_OUT_OF_RANGE);
+        LocalDate dateWatched = parseDate(buf, fieldStart[7], fieldEnd[7]);
+        if (dateWatched == null) return reject(BulkRejectReason.BAD_DATE);
+
+        return new HorrorMovieSQL(text(buf, 0), text(buf, 1), releaseYear, runtime,
+                text(buf, 4), rating, text(buf, 6), dateWatched);
+    }
+
+    /**
+     * Returns why the last call to {@link #parse} returned {@code null}.
+     *
+     * @return the reject reason, or {@code null} if the last line was accepted
+     */
+    public BulkRejectReason rejectReason() {
+        return rejectReason;
+    }
+
+    private HorrorMovieSQL reject(BulkRejectReason reason) {
+        rejectReason = reason;
+        return null;
+    }
+
+    //Finds exactly 8 comma-separated fields and trims the whitespace around each unquoted one
+    private boolean splitFields(byte[] buf, int start, int end) {
+        int field = 0;
+        int i = start;
+        while (true) {
+            if (field == FIELDS) return false;
+            int s = i;
+            while (s < end && isSpace(buf[s])) s++;
+            boolean escaped = false;
+            int e;
+            if (s < end && buf[s] == '"') {
+                //Runs to the closing quote; commas and spaces inside are part of the field
+                e = s + 1;
+                while (true) {
+                    if (e == end) return false;
+                    if (buf[e] == '"') {
+                        if (e + 1 == end || buf[e + 1] != '"') break;
+                        escaped = true;
+                        e++;
+                    }
+                    e++;
+                }
+                s++;
+                i = e + 1;
+                while (i < end && isSpace(buf[i])) i++;
+                if (i < end && buf[i] != ',') return false;
+            } else {
+                i = s;
+                while (i < end && buf[i] != ',') i++;
+                e = i;
+                while (e > s && isSpace(buf[e - 1])) e--;
+            }
+            fieldStart[field] = s;
+            fieldEnd[field] = e;
+            fieldEscaped[field] = escaped;
+            field++;
+            if (i == end) return field == FIELDS;
+            i++;
+        }
+    }
+
+    private String text(byte[] buf, int field) {
+        String text = new String(buf, fieldStart[field], fieldEnd[field] - fieldStart[field], StandardCharsets.UTF_8);
+        return fieldEscaped[field] ? text.replace("\"\"", "\"") : text;
+    }
+
+    //Parses an optionally signed whole number into intValue
+    private boolean parseInt(byte[] buf, int start, int end) {
+        boolean negative = false;
+        if (start < end && (buf[start] == '-' || buf[start] == '+')) {
+            negative = buf[start] == '-';
+            start++;
+        }
+        if (start == end) return false;
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = buf[i] - '0';
+            if (digit < 0 || digit > 9) return false;
+            value = value * 10 + digit;
+            if (value > (long) Integer.MAX_VALUE + 1) return false;
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) return false;
+        intValue = (int) value;
+        return true;
+    }
+
+    //Parses an optionally signed plain decimal (e.g. 7, 7.5, .5) into doubleValue
+    private boolean parseDouble(byte[] buf, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (buf[i] == '-' || buf[i] == '+')) {
+            negative = buf[i] == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean seenPoint = false;
+        for (; i < end; i++) {
+            byte b = buf[i];
+            if (b == '.' && !seenPoint) {
+                seenPoint = true;
+                continue;
+            }
+            int digit = b - '0';
+            if (digit < 0 || digit > 9) return false;
+            if (digits < 18) mantissa = mantissa * 10 + digit;
+            digits++;
+            if (seenPoint) fractionDigits++;
+        }
+        if (digits == 0) return false;
+        if (digits <= 15 && fractionDigits < POWERS_OF_TEN.length) {
+            //Both operands are exact doubles, so the division is correctly rounded
+            double value = mantissa / POWERS_OF_TEN[fractionDigits];
+            doubleValue = negative ? -value : value;
+        } else {
+            //Very long numbers are rare; the syntax is already checked so this cannot throw
+            doubleValue = Double.parseDouble(new String(buf, start, end - start, StandardCharsets.US_ASCII));
+        }
+        return true;
+    }
+
+    //Parses dd-MM-yyyy; any other layout, or a day and month that are not a real date, is a bad date
+    private LocalDate parseDate(byte[] buf, int start, int end) {
+        if (end - start != 10 || buf[start + 2] != '-' || buf[start + 5] != '-') return null;
+        int day = twoDigits(buf, start);
+        int month = twoDigits(buf, start + 3);
+        int year = twoDigits(buf, start + 6) * 100 + twoDigits(buf, start + 8);
+        if (day < 0 || month < 0 || year < 0 || !isDate(year, month, day)) return null;
+        return LocalDate.of(year, month, day);
+    }
+
+    private static boolean isDate(int year, int month, int day) {
+        return month >= 1 && month <= 12 && day >= 1 && day <= Month.of(month).length(Year.isLeap(year));
+    }
+
+    private static int twoDigits(byte[] buf, int at) {
+        int tens = buf[at] - '0';
+        int ones = buf[at + 1] - '0';
+        if (tens < 0 || tens > 9 || ones < 0 || ones > 9) return -1;
+        return tens * 10 + ones;
+    }
+
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+}
@@ -0,0 +1,23 @@
+package com.slasherstats.service;
+
+/**
+ * Why a line of a bulk movie file was not imported.
+ */
+public enum BulkRejectReason {
+    /** The line does not have exactly 8 comma-separated fields. */
+    FIELD_COUNT,
+    /** The title field is empty. */
+    MISSING_TITLE,
+    /** The release year is not a whole number. */
+    BAD_YEAR,
+    /** The runtime is not a whole number. */
+    BAD_RUNTIME,
+    /** The rating is not a decimal number. */
+    BAD_RATING,
+    /** The rating is outside 0.0 - 10.0. */
+    RATING_OUT_OF_RANGE,
+    /** The date watched is not a real date in dd-MM-yyyy format. */
+    BAD_DATE,
+    /** The row was valid but the database refused it. */
+    WRITE_FAILED
+}
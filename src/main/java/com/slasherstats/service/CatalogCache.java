@@ -0,0 +1,320 @@
+package com.slasherstats.service;
+
+import com.slasherstats.model.HorrorMovieSQL;
+import com.slasherstats.repository.MovieSort;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Read-through cache for listing pages and title lookups.
+ * <p>
+ * Both regions are bounded least-recently-used maps whose entries also expire after a time to live.
+ * Writes invalidate precisely: a cached page is dropped only if a changed movie falls inside the
+ * range of sort keys the page covers, and a cached lookup only if the changed movie has that title.
+ * Movies are copied in and out of the lookup region so callers can modify what they get back.
+ * <p>
+ * Pages loaded while a write was in flight are not cached, so a page read just before a commit
+ * cannot outlive the invalidation that follows it.
+ */
+public class CatalogCache implements CatalogListener {
+
+    /** Default number of listing pages kept. */
+    public static final int DEFAULT_MAX_PAGES = 256;
+    /** Default number of title lookups kept. */
+    public static final int DEFAULT_MAX_LOOKUPS = 10_000;
+    /** Default time an entry is served before it is loaded again. */
+    public static final Duration DEFAULT_TTL = Duration.ofMinutes(1);
+
+    //Titles compare with the database collation, which may ignore case; checking both orders never misses a page
+    private static final Comparator<Object> BINARY_ORDER = CatalogCache::compareKeys;
+    private static final Comparator<Object> CASE_INSENSITIVE_ORDER = (a, b) ->
+            a instanceof String s && b instanceof String t ? s.compareToIgnoreCase(t) : compareKeys(a, b);
+
+    private final Region<PageKey, MoviePage> pages = new Region<>(DEFAULT_MAX_PAGES);
+    private final Region<String, HorrorMovieSQL> lookups = new Region<>(DEFAULT_MAX_LOOKUPS);
+    private volatile long ttlNanos = DEFAULT_TTL.toNanos();
+    //Bumped by every write; a load that saw an older generation is not cached
+    private long generation;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    /**
+     * Identifies a cached page: the listing order, the row it starts after and its size.
+     *
+     * @param sort       the sort key
+     * @param descending whether the listing runs from the highest key down
+     * @param after      the row the page starts after, or {@code null} for the first page
+     * @param size       the page size
+     */
+    record PageKey(MovieSort sort, boolean descending, MoviePage.Position after, int size) {
+    }
+
+    synchronized long generation() {
+        return generation;
+    }
+
+    synchronized MoviePage getPage(PageKey key) {
+        return counted(pages.get(key, ttlNanos));
+    }
+
+    synchronized void putPage(PageKey key, MoviePage page, long loadedAt) {
+        if (loadedAt == generation) pages.put(key, page);
+    }
+
+    synchronized HorrorMovieSQL getLookup(String titleKey) {
+        HorrorMovieSQL movie = counted(lookups.get(titleKey, ttlNanos));
+        return movie == null ? null : new HorrorMovieSQL(movie);
+    }
+
+    synchronized void putLookup(String titleKey, HorrorMovieSQL movie, long loadedAt) {
+        if (loadedAt == generation) lookups.put(titleKey, new HorrorMovieSQL(movie));
+    }
+
+    /**
+     * Drops the entries a change to one movie makes stale.
+     *
+     * @param before the movie as it was, or {@code null} if it was added
+     * @param after  the movie as it is now, or {@code null} if it was deleted
+     */
+    synchronized void movieChanged(HorrorMovieSQL before, HorrorMovieSQL after) {
+        generation++;
+        if (before != null) dropLookup(before.getTitleKey());
+        //A renamed movie may now be the first one with its new title. A new movie has the highest id,
+        //so it never replaces the first movie with its title, and titles that were not found are not cached.
+        if (after != null && before != null) dropLookup(after.getTitleKey());
+        Iterator<Map.Entry<PageKey, Timed<MoviePage>>> it = pages.entries().iterator();
+        while (it.hasNext()) {
+            Map.Entry<PageKey, Timed<MoviePage>> entry = it.next();
+            if (covers(entry.getKey(), entry.getValue().value(), before) || covers(entry.getKey(), entry.getValue().value(), after)) {
+                it.remove();
+                invalidations.increment();
+            }
+        }
+    }
+
+    @Override
+    public void movieAdded(HorrorMovieSQL movie) {
+        movieChanged(null, movie);
+    }
+
+    @Override
+    public void movieRemoved(HorrorMovieSQL movie) {
+        movieChanged(movie, null);
+    }
+
+    @Override
+    public void movieUpdated(HorrorMovieSQL before, HorrorMovieSQL after) {
+        movieChanged(before, after);
+    }
+
+    /**
+     * Drops the pages a batch of newly added movies makes stale.
+     *
+     * @param added the movies that were written
+     */
+    @Override
+    public synchronized void moviesAdded(List<HorrorMovieSQL> added) {
+        if (added.isEmpty()) return;
+        generation++;
+        Iterator<Map.Entry<PageKey, Timed<MoviePage>>> it = pages.entries().iterator();
+        while (it.hasNext()) {
+            Map.Entry<PageKey, Timed<MoviePage>> entry = it.next();
+            for (HorrorMovieSQL movie : added) {
+                if (covers(entry.getKey(), entry.getValue().value(), movie)) {
+                    it.remove();
+                    invalidations.increment();
+                    break;
+                }
+            }
+        }
+    }
+
+    //Nothing to rebuild; entries simply load again after the rebuild
+    @Override
+    public Rebuild startRebuild() {
+        return new Rebuild() {
+            @Override
+            public void accept(HorrorMovieSQL movie) {
+            }
+
+            @Override
+            public void finish() {
+                clear();
+            }
+        };
+    }
+
+    synchronized void clear() {
+        generation++;
+        invalidations.add(pages.size() + lookups.size());
+        pages.entries().clear();
+        lookups.entries().clear();
+    }
+
+    synchronized void setMaxPages(int maxPages) {
+        pages.setMaxEntries(maxPages);
+    }
+
+    synchronized void setMaxLookups(int maxLookups) {
+        lookups.setMaxEntries(maxLookups);
+    }
+
+    void setTtl(Duration ttl) {
+        if (ttl.isNegative()) throw new IllegalArgumentException("Cache time to live must not be negative");
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    /**
+     * Returns the cache counters since startup.
+     *
+     * @return a point-in-time view of the cache
+     */
+    public synchronized Stats stats() {
+        return new Stats(pages.size(), pages.maxEntries, lookups.size(), lookups.maxEntries, ttlNanos / 1_000_000,
+                hits.sum(), misses.sum(), evictions.sum(), expirations.sum(), invalidations.sum());
+    }
+
+    /**
+     * Point-in-time view of the catalog cache.
+     *
+     * @param pages         listing pages cached
+     * @param maxPages      the most listing pages kept
+     * @param lookups       title lookups cached
+     * @param maxLookups    the most title lookups kept
+     * @param ttlMillis     how long an entry is served before it is loaded again
+     * @param hits          reads served from the cache
+     * @param misses        reads that went to the database
+     * @param evictions     entries dropped to make room
+     * @param expirations   entries dropped because they outlived the time to live
+     * @param invalidations entries dropped because a write made them stale
+     */
+    public record Stats(int pages, int maxPages, int lookups, int maxLookups, long ttlMillis,
+                        long hits, long misses, long evictions, long expirations, long invalidations) {
+
+        /**
+         * Returns the share of reads served from the cache.
+         *
+         * @return hits divided by all reads, 0 if there were none
+         */
+        public double hitRatio() {
+            long reads = hits + misses;
+            return reads == 0 ? 0 : hits / (double) reads;
+        }
+    }
+
+    private <V> V counted(V value) {
+        if (value == null) misses.increment();
+        else hits.increment();
+        return value;
+    }
+
+    private void dropLookup(String titleKey) {
+        if (titleKey != null && lookups.remove(titleKey)) invalidations.increment();
+    }
+
+    //Whether the movie sorts into the slice of the listing a cached page shows
+    private static boolean covers(PageKey key, MoviePage page, HorrorMovieSQL movie) {
+        if (movie == null) return false;
+        HorrorMovieSQL last = page.hasNext() ? page.movies().get(page.movies().size() - 1) : null;
+        return covers(key, last, movie, BINARY_ORDER) || covers(key, last, movie, CASE_INSENSITIVE_ORDER);
+    }
+
+    private static boolean covers(PageKey key, HorrorMovieSQL last, HorrorMovieSQL movie, Comparator<Object> order) {
+        MovieSort sort = key.sort();
+        Object movieKey = sort.keyOf(movie);
+        //The page starts strictly after its start row and runs up to and including its last row
+        if (key.after() != null
+                && compare(order, key.descending(), movieKey, movie.getId(), key.after().key(), key.after().id()) <= 0) {
+            return false;
+        }
+        return last == null || compare(order, key.descending(), movieKey, movie.getId(), sort.keyOf(last), last.getId()) <= 0;
+    }
+
+    private static int compare(Comparator<Object> order, boolean descending, Object key1, int id1, Object key2, int id2) {
+        int c = order.compare(key1, key2);
+        if (c == 0) c = Integer.compare(id1, id2);
+        return descending ? -c : c;
+    }
+
+    //NULL sorts first, as it does in MySQL
+    @SuppressWarnings("unchecked")
+    private static int compareKeys(Object a, Object b) {
+        if (Objects.equals(a, b)) return 0;
+        if (a == null) return -1;
+        if (b == null) return 1;
+        return ((Comparable<Object>) a).compareTo(b);
+    }
+
+    //A cached value and when it was loaded
+    private record Timed<V>(V value, long loadedNanos) {
+    }
+
+    //One bounded, access-ordered region of the cache; callers hold the cache lock
+    private final class Region<K, V> {
+
+        private int maxEntries;
+        private final LinkedHashMap<K, Timed<V>> map = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Timed<V>> eldest) {
+                if (size() <= maxEntries) return false;
+                evictions.increment();
+                return true;
+            }
+        };
+
+        Region(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        V get(K key, long ttl) {
+            Timed<V> entry = map.get(key);
+            if (entry == null) return null;
+            if (System.nanoTime() - entry.loadedNanos() > ttl) {
+                map.remove(key);
+                expirations.increment();
+                return null;
+            }
+            return entry.value();
+        }
+
+        void put(K key, V value) {
+            if (maxEntries > 0) map.put(key, new Timed<>(value, System.nanoTime()));
+        }
+
+        boolean remove(K key) {
+            return map.remove(key) != null;
+        }
+
+        Collection<Map.Entry<K, Timed<V>>> entries() {
+            return map.entrySet();
+        }
+
+        int size() {
+            return map.size();
+        }
+
+        //A size of 0 turns the region off
+        void setMaxEntries(int maxEntries) {
+            if (maxEntries < 0) throw new IllegalArgumentException("Cache size must not be negative");
+            this.maxEntries = maxEntries;
+            Iterator<K> eldest = map.keySet().iterator();
+            while (map.size() > maxEntries) {
+                eldest.next();
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+    }
+}
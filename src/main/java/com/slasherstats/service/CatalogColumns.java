@@ -0,0 +1,311 @@
+package com.slasherstats.service;
+
+import com.slasherstats.model.HorrorMovieSQL;
+import com.slasherstats.repository.MovieFilter;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Read-optimized, column-per-field copy of the catalog for filters and aggregates.
+ * <p>
+ * Every movie is one row across plain primitive arrays: ratings as {@code double[]}, release years
+ * and runtimes as {@code int[]}, watch dates as epoch days and the platform and director as ids into
+ * a dictionary of names. A scan is a single loop over those arrays with no objects, boxing or
+ * pointer chasing, so a million movies take a few megabytes and a few milliseconds instead of a
+ * list of entities.
+ * <p>
+ * Writes patch single rows in place; a deleted row is filled with the last one. A rebuild streams
+ * the table into fresh columns and swaps them in when done, which also drops dictionary names no
+ * movie uses any more. Rows are addressed by movie id, which the table assigns in ascending order.
+ */
+public class CatalogColumns implements CatalogListener {
+
+    //Watch date of movies that have none; below every real date, so any date filter leaves them out
+    private static final int NO_DATE = Integer.MIN_VALUE;
+    //Dictionary id of a missing platform or director
+    private static final int NO_NAME = -1;
+
+    //Guarded by this; replaced wholesale when a rebuild finishes
+    private Columns columns = new Columns(16);
+
+    /**
+     * Aggregates over the movies a scan matched.
+     *
+     * @param movies              number of matching movies
+     * @param meanRating          mean rating, 0 if nothing matched
+     * @param minRating           lowest rating, 0 if nothing matched
+     * @param maxRating           highest rating, 0 if nothing matched
+     * @param totalRuntimeMinutes runtime of all matching movies together
+     * @param ratingHistogram     matching movies per whole rating point; the last bucket also holds 10
+     * @param platforms           matching movies per streaming platform, most first
+     */
+    public record Summary(long movies, double meanRating, double minRating, double maxRating,
+                          long totalRuntimeMinutes, long[] ratingHistogram, Map<String, Long> platforms) {
+    }
+
+    @Override
+    public synchronized void movieAdded(HorrorMovieSQL movie) {
+        columns.put(movie);
+    }
+
+    @Override
+    public synchronized void movieRemoved(HorrorMovieSQL movie) {
+        columns.remove(movie.getId());
+    }
+
+    @Override
+    public synchronized void movieUpdated(HorrorMovieSQL before, HorrorMovieSQL after) {
+        if (before.getId() != after.getId()) columns.remove(before.getId());
+        columns.put(after);
+    }
+
+    @Override
+    public synchronized void moviesAdded(List<HorrorMovieSQL> movies) {
+        for (HorrorMovieSQL movie : movies) columns.put(movie);
+    }
+
+    @Override
+    public Rebuild startRebuild() {
+        //Built off to the side so scans keep reading the old columns until the new ones are complete
+        Columns rebuilt = new Columns(1024);
+        return new Rebuild() {
+            @Override
+            public void accept(HorrorMovieSQL movie) {
+                rebuilt.put(movie);
+            }
+
+            @Override
+            public void finish() {
+                synchronized (CatalogColumns.this) {
+                    columns = rebuilt;
+                }
+            }
+        };
+    }
+
+    /**
+     * Aggregates the movies matching a filter in one pass over the columns.
+     *
+     * @param filter which movies to include, {@link MovieFilter#ALL} for every movie
+     * @return the count, rating and runtime aggregates and platform breakdown of the matches
+     */
+    public synchronized Summary scan(MovieFilter filter) {
+        Columns c = columns;
+        int platform = c.platforms.find(filter.platform());
+        int director = c.directors.find(filter.director());
+        //A name no movie has cannot match; NO_NAME here means "any"
+        if (platform == Dictionary.UNKNOWN || director == Dictionary.UNKNOWN) {
+            return summarize(c, 0, 0, 0, 0, 0, new long[10], new long[0]);
+        }
+
+        //Unset bounds become the widest ones so the loop needs no check for them
+        double minRating = filter.minRating() == null ? Double.NEGATIVE_INFINITY : filter.minRating();
+        double maxRating = filter.maxRating() == null ? Double.POSITIVE_INFINITY : filter.maxRating();
+        int fromYear = filter.fromYear() == null ? Integer.MIN_VALUE : filter.fromYear();
+        int toYear = filter.toYear() == null ? Integer.MAX_VALUE : filter.toYear();
+        int minRuntime = filter.minRuntime() == null ? Integer.MIN_VALUE : filter.minRuntime();
+        int maxRuntime = filter.maxRuntime() == null ? Integer.MAX_VALUE : filter.maxRuntime();
+        //Movies without a watch date only pass when no date bound is set at all
+        boolean byDate = filter.watchedFrom() != null || filter.watchedTo() != null;
+        int watchedFrom = filter.watchedFrom() != null ? epochDay(filter.watchedFrom()) : byDate ? NO_DATE + 1 : NO_DATE;
+        int watchedTo = filter.watchedTo() == null ? Integer.MAX_VALUE : epochDay(filter.watchedTo());
+
+        double[] ratings = c.ratings;
+        int[] years = c.years;
+        int[] runtimes = c.runtimes;
+        int[] watched = c.watched;
+        int[] platforms = c.platformIds;
+        int[] directors = c.directorIds;
+        long count = 0;
+        double ratingSum = 0;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        long runtimeSum = 0;
+        long[] histogram = new long[10];
+        //Platform ids are dense, so the breakdown is an array indexed by them; the extra slot counts missing platforms
+        long[] perPlatform = new long[c.platforms.size() + 1];
+        for (int i = 0; i < c.size; i++) {
+            double rating = ratings[i];
+            //Non-short-circuit operators keep the predicate free of branches
+            boolean match = rating >= minRating & rating <= maxRating
+                    & years[i] >= fromYear & years[i] <= toYear
+                    & runtimes[i] >= minRuntime & runtimes[i] <= maxRuntime
+                    & watched[i] >= watchedFrom & watched[i] <= watchedTo
+                    & (platform == NO_NAME | platforms[i] == platform)
+                    & (director == NO_NAME | directors[i] == director);
+            if (!match) continue;
+            count++;
+            ratingSum += rating;
+            min = Math.min(min, rating);
+            max = Math.max(max, rating);
+            runtimeSum += runtimes[i];
+            histogram[Math.max(0, Math.min(9, (int) rating))]++;
+            perPlatform[platforms[i] + 1]++;
+        }
+        return summarize(c, count, ratingSum, min, max, runtimeSum, histogram, perPlatform);
+    }
+
+    /**
+     * Returns the number of movies in the columns.
+     *
+     * @return the number of rows
+     */
+    public synchronized int size() {
+        return columns.size;
+    }
+
+    /**
+     * Estimates the heap taken by the columns and their dictionaries, including spare capacity.
+     *
+     * @return the approximate size in bytes
+     */
+    public synchronized long footprintBytes() {
+        Columns c = columns;
+        //Six 4-byte columns and one 8-byte column per row of capacity, plus the id -> row map
+        long bytes = (long) c.ids.length * (6 * Integer.BYTES + Double.BYTES) + (long) c.rowOfId.length * Integer.BYTES;
+        return bytes + c.platforms.footprintBytes() + c.directors.footprintBytes();
+    }
+
+    private static Summary summarize(Columns c, long count, double ratingSum, double min, double max, long runtimeSum,
+                                     long[] histogram, long[] perPlatform) {
+        //Slot 0 holds movies without a platform; listed after named platforms with as many movies
+        List<Integer> order = new ArrayList<>();
+        for (int i = 1; i <= perPlatform.length; i++) {
+            if (perPlatform[i % perPlatform.length] > 0) order.add(i % perPlatform.length);
+        }
+        order.sort((a, b) -> Long.compare(perPlatform[b], perPlatform[a]));
+        Map<String, Long> platforms = new LinkedHashMap<>();
+        for (int i : order) platforms.put(i == 0 ? "" : c.platforms.name(i - 1), perPlatform[i]);
+        if (count == 0) return new Summary(0, 0, 0, 0, 0, histogram, platforms);
+        return new Summary(count, ratingSum / count, min, max, runtimeSum, histogram, platforms);
+    }
+
+    private static int epochDay(LocalDate date) {
+        return (int) date.toEpochDay();
+    }
+
+    //The columns themselves; rows 0..size-1 are live
+    private static final class Columns {
+        int size;
+        int[] ids;
+        double[] ratings;
+        int[] years;
+        int[] runtimes;
+        int[] watched;
+        int[] platformIds;
+        int[] directorIds;
+        //Movie id -> row + 1, 0 when the id has no row
+        int[] rowOfId = new int[16];
+        final Dictionary platforms = new Dictionary();
+        final Dictionary directors = new Dictionary();
+
+        Columns(int capacity) {
+            ids = new int[capacity];
+            ratings = new double[capacity];
+            years = new int[capacity];
+            runtimes = new int[capacity];
+            watched = new int[capacity];
+            platformIds = new int[capacity];
+            directorIds = new int[capacity];
+        }
+
+        //Writes a movie into its row, adding the row if the movie is new
+        void put(HorrorMovieSQL movie) {
+            int id = movie.getId();
+            if (id < 0) return;
+            int row = row(id);
+            if (row < 0) {
+                if (size == ids.length) grow();
+                row = size++;
+                if (id >= rowOfId.length) rowOfId = Arrays.copyOf(rowOfId, Math.max(id + 1, rowOfId.length * 2));
+                rowOfId[id] = row + 1;
+                ids[row] = id;
+            }
+            ratings[row] = movie.getRating();
+            years[row] = movie.getReleaseYear();
+            runtimes[row] = movie.getRuntimeMinutes();
+            watched[row] = movie.getDateWatched() == null ? NO_DATE : epochDay(movie.getDateWatched());
+            platformIds[row] = platforms.add(movie.getStreamingPlatform());
+            directorIds[row] = directors.add(movie.getDirector());
+        }
+
+        //Drops a movie's row by moving the last row into it
+        void remove(int id) {
+            int row = row(id);
+            if (row < 0) return;
+            int last = --size;
+            rowOfId[id] = 0;
+            if (row == last) return;
+            ids[row] = ids[last];
+            ratings[row] = ratings[last];
+            years[row] = years[last];
+            runtimes[row] = runtimes[last];
+            watched[row] = watched[last];
+            platformIds[row] = platformIds[last];
+            directorIds[row] = directorIds[last];
+            rowOfId[ids[row]] = row + 1;
+        }
+
+        int row(int id) {
+            return id >= 0 && id < rowOfId.length ? rowOfId[id] - 1 : -1;
+        }
+
+        private void grow() {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            ratings = Arrays.copyOf(ratings, capacity);
+            years = Arrays.copyOf(years, capacity);
+            runtimes = Arrays.copyOf(runtimes, capacity);
+            watched = Arrays.copyOf(watched, capacity);
+            platformIds = Arrays.copyOf(platformIds, capacity);
+            directorIds = Arrays.copyOf(directorIds, capacity);
+        }
+    }
+
+    //Gives every distinct name a small dense id; names are matched ignoring case and surrounding spaces
+    private static final class Dictionary {
+        //Returned by find for a name that is not in the dictionary
+        static final int UNKNOWN = -2;
+
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> names = new ArrayList<>();
+
+        int add(String name) {
+            if (name == null || name.isBlank()) return NO_NAME;
+            return ids.computeIfAbsent(key(name), k -> {
+                names.add(name.trim());
+                return names.size() - 1;
+            });
+        }
+
+        //NO_NAME for no name at all, so that it matches anything
+        int find(String name) {
+            if (name == null || name.isBlank()) return NO_NAME;
+            return ids.getOrDefault(key(name), UNKNOWN);
+        }
+
+        String name(int id) {
+            return names.get(id);
+        }
+
+        int size() {
+            return names.size();
+        }
+
+        long footprintBytes() {
+            //Roughly a map entry, a boxed id and two short strings per name
+            return names.size() * 160L;
+        }
+
+        private static String key(String name) {
+            return name.trim().toLowerCase(Locale.ROOT);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.slasherstats.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.slasherstats.model.HorrorMovieSQL;
+import com.slasherstats.repository.HorrorMovieBulkRepository;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Writes the whole catalog to a stream, one movie per line, straight from a database cursor.
+ * Each movie is written as soon as it is read and then dropped, so memory use stays the same
+ * however large the table is.
+ * <p>
+ * CSV lines use the bulk upload format, {@code title,director,releaseYear,runtimeMinutes,platform,rating,tags,dd-MM-yyyy},
+ * without a header, so an export can be uploaded again as it is. Fields holding commas, quotes or
+ * surrounding spaces are quoted. Line breaks inside a value are written as spaces, since the bulk
+ * format keeps one movie per line, and a movie without a watch date is rejected when uploaded again.
+ */
+public class CatalogExport {
+
+    /**
+     * The formats the catalog can be exported in.
+     */
+    public enum Format {
+        CSV("csv", "text/csv"),
+        NDJSON("ndjson", "application/x-ndjson");
+
+        private final String extension;
+        private final String contentType;
+
+        Format(String extension, String contentType) {
+            this.extension = extension;
+            this.contentType = contentType;
+        }
+
+        /**
+         * Returns the file extension of this format, e.g. {@code "csv"}.
+         *
+         * @return the extension, without a dot
+         */
+        public String getExtension() {
+            return extension;
+        }
+
+        /**
+         * Returns the media type of this format.
+         *
+         * @return the content type
+         */
+        public String getContentType() {
+            return contentType;
+        }
+
+        /**
+         * Looks a format up by its extension, ignoring case.
+         *
+         * @param extension the extension, e.g. {@code "ndjson"}
+         * @return the matching format, or {@code null} if there is none
+         */
+        public static Format fromExtension(String extension) {
+            for (Format format : values()) {
+                if (format.extension.equalsIgnoreCase(extension)) return format;
+            }
+            return null;
+        }
+    }
+
+    private static final DateTimeFormatter CSV_DATE = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+    private static final JsonFactory JSON = new JsonFactory();
+    //Characters buffered before they are encoded and handed to the stream
+    private static final int BUFFER_CHARS = 64 * 1024;
+
+    private CatalogExport() {
+    }
+
+    /**
+     * Streams every movie in the table to {@code out}. The stream is flushed but not closed.
+     *
+     * @param repository where the movies are read from
+     * @param format     how each movie is written
+     * @param out        where the export is written
+     * @return the number of movies written
+     * @throws IOException if writing to {@code out} fails
+     */
+    static long write(HorrorMovieBulkRepository repository, Format format, OutputStream out) throws IOException {
+        try {
+            return format == Format.CSV ? writeCsv(repository, out) : writeNdjson(repository, out);
+        } catch (UncheckedIOException e) {
+            //Writes inside the row callback cannot throw checked exceptions
+            throw e.getCause();
+        }
+    }
+
+    private static long writeCsv(HorrorMovieBulkRepository repository, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_CHARS);
+        StringBuilder line = new StringBuilder(256);
+        long rows = repository.streamMovies(movie -> {
+            line.setLength(0);
+            appendCsv(line, movie.getTitle()).append(',');
+            appendCsv(line, movie.getDirector()).append(',');
+            line.append(movie.getReleaseYear()).append(',');
+            line.append(movie.getRuntimeMinutes()).append(',');
+            appendCsv(line, movie.getStreamingPlatform()).append(',');
+            line.append(movie.getRating()).append(',');
+            appendCsv(line, movie.getTags()).append(',');
+            LocalDate watched = movie.getDateWatched();
+            if (watched != null) CSV_DATE.formatTo(watched, line);
+            line.append('\n');
+            try {
+                writer.append(line);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        writer.flush();
+        return rows;
+    }
+
+    //Quotes the value only when the bulk parser would otherwise split or trim it
+    private static StringBuilder appendCsv(StringBuilder line, String value) {
+        if (value == null) return line;
+        boolean quote = !value.isEmpty()
+                && (Character.isWhitespace(value.charAt(0)) || Character.isWhitespace(value.charAt(value.length() - 1)));
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) return line.append(value);
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') line.append('"');
+            line.append(c == '\n' || c == '\r' ? ' ' : c);
+        }
+        return line.append('"');
+    }
+
+    private static long writeNdjson(HorrorMovieBulkRepository repository, OutputStream out) throws IOException {
+        JsonGenerator json = JSON.createGenerator(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_CHARS));
+        //Each object ends its own line rather than being separated by the default space
+        json.setRootValueSeparator(null);
+        long rows = repository.streamMovies(movie -> {
+            try {
+                writeJson(json, movie);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        json.flush();
+        return rows;
+    }
+
+    private static void writeJson(JsonGenerator json, HorrorMovieSQL movie) throws IOException {
+        json.writeStartObject();
+        json.writeNumberField("id", movie.getId());
+        json.writeStringField("title", movie.getTitle());
+        json.writeStringField("director", movie.getDirector());
+        json.writeNumberField("releaseYear", movie.getReleaseYear());
+        json.writeNumberField("runtimeMinutes", movie.getRuntimeMinutes());
+        json.writeStringField("streamingPlatform", movie.getStreamingPlatform());
+        json.writeNumberField("rating", movie.getRating());
+        json.writeStringField("tags", movie.getTags());
+        LocalDate watched = movie.getDateWatched();
+        json.writeStringField("dateWatched", watched == null ? null : watched.toString());
+        json.writeEndObject();
+        json.writeRaw('\n');
+    }
+}
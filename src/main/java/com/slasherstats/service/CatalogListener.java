@@ -0,0 +1,70 @@
+package com.slasherstats.service;
+
+import com.slasherstats.model.HorrorMovieSQL;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Receives every change {@link slasherStatsManager} makes to the movie catalog, after it is committed,
+ * so that derived views can be kept up to date incrementally instead of being recomputed from the table.
+ * <p>
+ * Spring beans implementing this interface are registered with the manager automatically.
+ * Callbacks may arrive from several threads at once.
+ */
+public interface CatalogListener {
+
+    /**
+     * Called after a movie was added.
+     *
+     * @param movie the new movie
+     */
+    void movieAdded(HorrorMovieSQL movie);
+
+    /**
+     * Called after a movie was deleted.
+     *
+     * @param movie the movie as it was before it was deleted
+     */
+    void movieRemoved(HorrorMovieSQL movie);
+
+    /**
+     * Called after a movie was changed.
+     *
+     * @param before the movie as it was
+     * @param after  the movie as it is now
+     */
+    default void movieUpdated(HorrorMovieSQL before, HorrorMovieSQL after) {
+        movieRemoved(before);
+        movieAdded(after);
+    }
+
+    /**
+     * Called after a chunk of a bulk import was written.
+     *
+     * @param movies the movies that went in
+     */
+    default void moviesAdded(List<HorrorMovieSQL> movies) {
+        movies.forEach(this::movieAdded);
+    }
+
+    /**
+     * Starts rebuilding the listener's state from the whole table. Writes are paused while the table is
+     * streamed into the returned rebuild, and {@link Rebuild#finish()} is called once every movie was seen.
+     * If the rebuild is abandoned part way, the listener keeps its previous state.
+     *
+     * @return the rebuild that receives every movie in the table
+     */
+    Rebuild startRebuild();
+
+    /**
+     * A rebuild in progress; receives each movie in the table once.
+     */
+    interface Rebuild extends Consumer<HorrorMovieSQL> {
+
+        /**
+         * Makes the rebuilt state live.
+         */
+        void finish();
+    }
+}
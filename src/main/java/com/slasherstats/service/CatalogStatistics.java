@@ -0,0 +1,287 @@
+package com.slasherstats.service;
+
+import com.slasherstats.model.HorrorMovieSQL;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+/**
+ * Catalog statistics per director, streaming platform, tag and release decade.
+ * <p>
+ * Every group keeps its movie count, rating sum, rating histogram and total runtime, and is kept in
+ * two rankings (by count and by mean rating). Each add, update, delete or bulk chunk adjusts only the
+ * groups the movie belongs to, in O(log n) per group, so the statistics never rescan the table.
+ * A cold rebuild streams the table once into a fresh set of groups and swaps it in when done.
+ * <p>
+ * Group names are matched ignoring case and surrounding spaces; a group is shown with the
+ * spelling it was first seen with. Ratings are summed in thousandths so that adding and
+ * removing movies never lets the mean drift.
+ */
+@Service
+public class CatalogStatistics implements CatalogListener {
+
+    /**
+     * The ways movies are grouped.
+     */
+    public enum Dimension {
+        DIRECTOR("director", movie -> single(movie.getDirector())),
+        PLATFORM("platform", movie -> single(movie.getStreamingPlatform())),
+        TAG("tag", movie -> HorrorMovieSQL.splitTags(movie.getTags())),
+        DECADE("decade", movie -> movie.getReleaseYear() > 0 ? List.of((movie.getReleaseYear() / 10 * 10) + "s") : List.of());
+
+        private final String path;
+        private final Function<HorrorMovieSQL, List<String>> groupsOf;
+
+        Dimension(String path, Function<HorrorMovieSQL, List<String>> groupsOf) {
+            this.path = path;
+            this.groupsOf = groupsOf;
+        }
+
+        /**
+         * Returns the name of the dimension as used in URLs.
+         *
+         * @return the path segment, e.g. {@code "platform"}
+         */
+        public String getPath() {
+            return path;
+        }
+
+        /**
+         * Looks a dimension up by its URL name, ignoring case.
+         *
+         * @param path the path segment
+         * @return the dimension, or {@code null} if there is none with that name
+         */
+        public static Dimension fromPath(String path) {
+            for (Dimension dimension : values()) {
+                if (dimension.path.equalsIgnoreCase(path)) return dimension;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * The orders groups can be ranked in.
+     */
+    public enum Ranking {
+        /** Most movies first. */
+        COUNT,
+        /** Highest mean rating first. */
+        RATING
+    }
+
+    /**
+     * Statistics of one group of movies.
+     *
+     * @param name                the group name, e.g. a director
+     * @param movies              number of movies in the group
+     * @param meanRating          mean rating of the group's movies
+     * @param minRating           lowest rating in the group
+     * @param maxRating           highest rating in the group
+     * @param totalRuntimeMinutes runtime of all the group's movies together
+     */
+    public record GroupSummary(String name, long movies, double meanRating, double minRating, double maxRating,
+                               long totalRuntimeMinutes) {
+    }
+
+    /**
+     * Statistics of the whole catalog with the leading groups of every dimension.
+     *
+     * @param all    statistics over every movie
+     * @param groups number of groups per dimension
+     * @param top    the largest groups per dimension
+     */
+    public record Overview(GroupSummary all, Map<Dimension, Integer> groups, Map<Dimension, List<GroupSummary>> top) {
+    }
+
+    //Guarded by this; replaced wholesale when a rebuild finishes
+    private State state = new State();
+
+    @Override
+    public synchronized void movieAdded(HorrorMovieSQL movie) {
+        state.apply(movie, 1);
+    }
+
+    @Override
+    public synchronized void movieRemoved(HorrorMovieSQL movie) {
+        state.apply(movie, -1);
+    }
+
+    @Override
+    public synchronized void movieUpdated(HorrorMovieSQL before, HorrorMovieSQL after) {
+        state.apply(before, -1);
+        state.apply(after, 1);
+    }
+
+    @Override
+    public synchronized void moviesAdded(List<HorrorMovieSQL> movies) {
+        for (HorrorMovieSQL movie : movies) state.apply(movie, 1);
+    }
+
+    @Override
+    public Rebuild startRebuild() {
+        //Built off to the side so readers keep seeing the old numbers until the new ones are complete
+        State rebuilt = new State();
+        return new Rebuild() {
+            @Override
+            public void accept(HorrorMovieSQL movie) {
+                rebuilt.apply(movie, 1);
+            }
+
+            @Override
+            public void finish() {
+                synchronized (CatalogStatistics.this) {
+                    state = rebuilt;
+                }
+            }
+        };
+    }
+
+    /**
+     * Returns statistics over the whole catalog and the {@code top} largest groups of every dimension.
+     *
+     * @param top number of groups to list per dimension
+     * @return the catalog overview
+     */
+    public synchronized Overview overview(int top) {
+        Map<Dimension, Integer> groups = new EnumMap<>(Dimension.class);
+        Map<Dimension, List<GroupSummary>> leaders = new EnumMap<>(Dimension.class);
+        for (Dimension dimension : Dimension.values()) {
+            groups.put(dimension, state.groups.get(dimension).size());
+            leaders.put(dimension, top(dimension, Ranking.COUNT, top));
+        }
+        return new Overview(state.all.summary(), groups, leaders);
+    }
+
+    /**
+     * Returns the leading groups of a dimension.
+     *
+     * @param dimension how movies are grouped
+     * @param ranking   what the groups are ranked by
+     * @param n         the most groups to return
+     * @return up to {@code n} groups, best first
+     */
+    public synchronized List<GroupSummary> top(Dimension dimension, Ranking ranking, int n) {
+        TreeSet<Group> ranked = (ranking == Ranking.RATING ? state.byRating : state.byCount).get(dimension);
+        List<GroupSummary> result = new ArrayList<>(Math.min(Math.max(n, 0), ranked.size()));
+        Iterator<Group> it = ranked.iterator();
+        while (result.size() < n && it.hasNext()) result.add(it.next().summary());
+        return result;
+    }
+
+    /**
+     * Returns the statistics of a single group.
+     *
+     * @param dimension how movies are grouped
+     * @param name      the group name, matched ignoring case and surrounding spaces
+     * @return the group's statistics, or {@code null} if no movie belongs to it
+     */
+    public synchronized GroupSummary group(Dimension dimension, String name) {
+        Group group = state.groups.get(dimension).get(groupKey(name));
+        return group == null ? null : group.summary();
+    }
+
+    private static String groupKey(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static List<String> single(String name) {
+        return name == null || name.isBlank() ? List.of() : List.of(name.trim());
+    }
+
+    //Every group of every dimension plus the catalog as a whole
+    private static final class State {
+
+        private static final Comparator<Group> BY_COUNT = Comparator.comparingLong((Group g) -> g.count).reversed()
+                .thenComparing(g -> g.key);
+        private static final Comparator<Group> BY_RATING = Comparator.comparingDouble(Group::mean).reversed()
+                .thenComparing(Comparator.comparingLong((Group g) -> g.count).reversed())
+                .thenComparing(g -> g.key);
+
+        final Group all = new Group("", "All movies");
+        final Map<Dimension, Map<String, Group>> groups = new EnumMap<>(Dimension.class);
+        final Map<Dimension, TreeSet<Group>> byCount = new EnumMap<>(Dimension.class);
+        final Map<Dimension, TreeSet<Group>> byRating = new EnumMap<>(Dimension.class);
+
+        State() {
+            for (Dimension dimension : Dimension.values()) {
+                groups.put(dimension, new HashMap<>());
+                byCount.put(dimension, new TreeSet<>(BY_COUNT));
+                byRating.put(dimension, new TreeSet<>(BY_RATING));
+            }
+        }
+
+        //Adds (sign 1) or removes (sign -1) one movie from every group it belongs to
+        void apply(HorrorMovieSQL movie, int sign) {
+            all.apply(movie, sign);
+            for (Dimension dimension : Dimension.values()) {
+                Map<String, Group> dimensionGroups = groups.get(dimension);
+                for (String name : dimension.groupsOf.apply(movie)) {
+                    String key = groupKey(name);
+                    Group group = dimensionGroups.get(key);
+                    if (group == null) {
+                        if (sign < 0) continue;
+                        group = new Group(key, name);
+                        dimensionGroups.put(key, group);
+                    } else {
+                        //The rankings order by count and mean, so take the group out before changing them
+                        byCount.get(dimension).remove(group);
+                        byRating.get(dimension).remove(group);
+                    }
+                    group.apply(movie, sign);
+                    if (group.count > 0) {
+                        byCount.get(dimension).add(group);
+                        byRating.get(dimension).add(group);
+                    } else {
+                        dimensionGroups.remove(key);
+                    }
+                }
+            }
+        }
+    }
+
+    //Running totals of one group
+    private static final class Group {
+        final String key;
+        final String name;
+        long count;
+        long ratingMillisSum;
+        long runtimeSum;
+        //Rating in thousandths -> number of movies with it, for min and max that survive deletes
+        final TreeMap<Long, Integer> ratings = new TreeMap<>();
+
+        Group(String key, String name) {
+            this.key = key;
+            this.name = name;
+        }
+
+        void apply(HorrorMovieSQL movie, int sign) {
+            long rating = Math.round(movie.getRating() * 1000);
+            count += sign;
+            ratingMillisSum += sign * rating;
+            runtimeSum += (long) sign * movie.getRuntimeMinutes();
+            ratings.merge(rating, sign, (a, b) -> a + b == 0 ? null : a + b);
+        }
+
+        double mean() {
+            return count == 0 ? 0 : ratingMillisSum / 1000.0 / count;
+        }
+
+        GroupSummary summary() {
+            return new GroupSummary(name, count, mean(),
+                    ratings.isEmpty() ? 0 : ratings.firstKey() / 1000.0,
+                    ratings.isEmpty() ? 0 : ratings.lastKey() / 1000.0,
+                    runtimeSum);
+        }
+    }
+}
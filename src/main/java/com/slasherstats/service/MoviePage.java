@@ -0,0 +1,59 @@
+package com.slasherstats.service;
+
+import com.slasherstats.model.HorrorMovieSQL;
+import com.slasherstats.repository.MovieSort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * One page of the movie listing.
+ *
+ * @param movies     the movies on this page, in sort order
+ * @param sort       the sort key the listing is ordered by
+ * @param descending whether the listing runs from the highest key down
+ * @param pageSize   the most movies a page holds
+ * @param nextCursor opaque cursor for the following page, or {@code null} if this is the last page
+ */
+public record MoviePage(List<HorrorMovieSQL> movies, MovieSort sort, boolean descending, int pageSize, String nextCursor) {
+
+    /**
+     * Returns whether there is another page after this one.
+     *
+     * @return true if {@link #nextCursor()} is set
+     */
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    //Encodes the sort, direction, id and key of the last row on a page as URL-safe text
+    static String encodeCursor(MovieSort sort, boolean descending, HorrorMovieSQL last) {
+        Object key = sort.keyOf(last);
+        String text = sort.name() + '\n' + (descending ? 'd' : 'a') + '\n' + last.getId() + '\n'
+                + (key == null ? "" : "=" + key);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Position decoded from a cursor: the page starts after the row with this key and id.
+     *
+     * @param key sort key of the last row of the previous page
+     * @param id  id of the last row of the previous page
+     */
+    record Position(Object key, int id) {
+    }
+
+    //Decodes a cursor made for the same sort and direction; anything else yields null, i.e. the first page
+    static Position decodeCursor(String cursor, MovieSort sort, boolean descending) {
+        if (cursor == null || cursor.isEmpty()) return null;
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\n", 4);
+            if (parts.length != 4 || !parts[0].equals(sort.name()) || !parts[1].equals(descending ? "d" : "a")) return null;
+            Object key = parts[3].isEmpty() ? null : sort.parseKey(parts[3].substring(1));
+            return new Position(key, Integer.parseInt(parts[2]));
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+}
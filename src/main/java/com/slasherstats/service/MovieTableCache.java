@@ -0,0 +1,204 @@
+package com.slasherstats.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps the rendered HTML of the movie table on the index page, so a page view that was already
+ * rendered for the current catalog is served as a ready string instead of running the template again.
+ * <p>
+ * Entries are keyed by the {@linkplain slasherStatsManager#getCatalogVersion() catalog version} together
+ * with the sort, cursor and page size, so a write never needs to find the tables it makes stale: the next
+ * request simply asks for a newer version. Once a newer version is stored the older entries can never be
+ * asked for again and are dropped. The cache is a least-recently-used map bounded both by entry count and by
+ * the bytes its HTML takes, and entries also expire after a time to live, which bounds how long writes made
+ * outside the application can go unseen.
+ * <p>
+ * Hits, misses and evictions are published as {@value #METER} and can be read from {@code /cache/table}.
+ */
+@Service
+public class MovieTableCache {
+
+    /** Name of the cache's meters. */
+    public static final String METER = "slasherstats.table.cache";
+
+    /**
+     * Identifies a rendered table: the catalog it shows and the request parameters that pick the page.
+     * The cursor is kept as sent; a cursor made for another order renders the first page, under its own key.
+     *
+     * @param catalogVersion the catalog version read before the page was loaded
+     * @param sort           the sort property as requested
+     * @param descending     whether the listing runs from the highest key down
+     * @param after          the cursor of the page, or {@code null} for the first page
+     * @param size           the page size as requested
+     */
+    public record Key(long catalogVersion, String sort, boolean descending, String after, int size) {
+    }
+
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final int maxEntries;
+    private final long maxBytes;
+    private final long ttlNanos;
+    //The newest catalog version stored; tables rendered for older versions are not kept
+    private long newestVersion = Long.MIN_VALUE;
+    private long bytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    /**
+     * Creates the cache.
+     *
+     * @param maxEntries the most tables kept, 0 to stop caching
+     * @param maxBytes   the most bytes of HTML kept
+     * @param ttlMillis  how long a table is served before it is rendered again
+     */
+    public MovieTableCache(@Value("${slasherstats.table-cache.entries:256}") int maxEntries,
+                           @Value("${slasherstats.table-cache.max-bytes:16777216}") long maxBytes,
+                           @Value("${slasherstats.table-cache.ttl-ms:60000}") long ttlMillis) {
+        if (maxEntries < 0 || maxBytes < 0) throw new IllegalArgumentException("Cache size must not be negative");
+        if (ttlMillis < 0) throw new IllegalArgumentException("Cache time to live must not be negative");
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.ttlNanos = Duration.ofMillis(ttlMillis).toNanos();
+    }
+
+    /**
+     * Publishes the hit, miss and eviction counters and the cache size with a meter registry.
+     *
+     * @param registry where the meters are registered
+     */
+    @Autowired(required = false)
+    public void setMeterRegistry(MeterRegistry registry) {
+        FunctionCounter.builder(METER, hits, LongAdder::sum).tag("result", "hit")
+                .description("Movie tables served already rendered").register(registry);
+        FunctionCounter.builder(METER, misses, LongAdder::sum).tag("result", "miss")
+                .description("Movie tables rendered because none was cached").register(registry);
+        FunctionCounter.builder(METER + ".evictions", evictions, LongAdder::sum)
+                .description("Movie tables dropped to make room").register(registry);
+        Gauge.builder(METER + ".bytes", this, MovieTableCache::size)
+                .description("Bytes of rendered HTML held").baseUnit("bytes").register(registry);
+    }
+
+    /**
+     * Returns the rendered table for a key, if it is cached and has not expired.
+     *
+     * @param key the catalog version and page parameters
+     * @return the rendered HTML, or {@code null} if it has to be rendered
+     */
+    public synchronized String get(Key key) {
+        Entry entry = entries.get(key);
+        if (entry != null && System.nanoTime() - entry.renderedNanos() > ttlNanos) {
+            remove(key);
+            expirations.increment();
+            entry = null;
+        }
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.html();
+    }
+
+    /**
+     * Stores a rendered table, evicting the least recently used tables until the cache is within
+     * its bounds. A table rendered for an older catalog than one already stored is not kept, and
+     * storing a newer catalog drops every table of the older ones.
+     *
+     * @param key  the catalog version and page parameters the table was rendered for
+     * @param html the rendered HTML
+     */
+    public synchronized void put(Key key, String html) {
+        long weight = weigh(html);
+        if (maxEntries == 0 || weight > maxBytes || key.catalogVersion() < newestVersion) return;
+        if (key.catalogVersion() > newestVersion) {
+            newestVersion = key.catalogVersion();
+            Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Key, Entry> stale = it.next();
+                bytes -= stale.getValue().bytes();
+                it.remove();
+                invalidations.increment();
+            }
+        }
+        Entry previous = entries.put(key, new Entry(html, weight, System.nanoTime()));
+        if (previous != null) bytes -= previous.bytes();
+        bytes += weight;
+        Iterator<Map.Entry<Key, Entry>> eldest = entries.entrySet().iterator();
+        while (entries.size() > maxEntries || bytes > maxBytes) {
+            bytes -= eldest.next().getValue().bytes();
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    /**
+     * Returns the cache counters since startup.
+     *
+     * @return a point-in-time view of the cache
+     */
+    public synchronized Stats stats() {
+        return new Stats(entries.size(), maxEntries, bytes, maxBytes, ttlNanos / 1_000_000,
+                hits.sum(), misses.sum(), evictions.sum(), expirations.sum(), invalidations.sum());
+    }
+
+    /**
+     * Point-in-time view of the movie table cache.
+     *
+     * @param tables        rendered tables cached
+     * @param maxTables     the most tables kept
+     * @param bytes         bytes of HTML held
+     * @param maxBytes      the most bytes of HTML kept
+     * @param ttlMillis     how long a table is served before it is rendered again
+     * @param hits          page views served an already rendered table
+     * @param misses        page views that rendered the table
+     * @param evictions     tables dropped to make room
+     * @param expirations   tables dropped because they outlived the time to live
+     * @param invalidations tables dropped because the catalog changed
+     */
+    public record Stats(int tables, int maxTables, long bytes, long maxBytes, long ttlMillis,
+                        long hits, long misses, long evictions, long expirations, long invalidations) {
+
+        /**
+         * Returns the share of page views served an already rendered table.
+         *
+         * @return hits divided by all views, 0 if there were none
+         */
+        public double hitRatio() {
+            long reads = hits + misses;
+            return reads == 0 ? 0 : hits / (double) reads;
+        }
+    }
+
+    private synchronized long size() {
+        return bytes;
+    }
+
+    private void remove(Key key) {
+        Entry removed = entries.remove(key);
+        if (removed != null) bytes -= removed.bytes();
+    }
+
+    //Strings hold one byte per character when they are all Latin-1, two otherwise; count the worst case
+    private static long weigh(String html) {
+        return 2L * html.length();
+    }
+
+    //A rendered table, the bytes it is counted as and when it was rendered
+    private record Entry(String html, long bytes, long renderedNanos) {
+    }
+}
@@ -0,0 +1,35 @@
+package com.slasherstats.service;
+
+import com.slasherstats.model.HorrorMovieSQL;
+
+/**
+ * What became of an update to one movie.
+ *
+ * @param outcome whether the movie was updated, and if not why
+ * @param movie   the movie as it is now; {@code null} if it was not found
+ * @param message why the update was turned away, {@code null} if it went through
+ */
+public record MovieUpdate(Outcome outcome, HorrorMovieSQL movie, String message) {
+
+    /**
+     * How an update ended.
+     */
+    public enum Outcome {
+        /** The changed fields were written; also used when nothing needed to change. */
+        UPDATED,
+        /** No movie has the title. */
+        NOT_FOUND,
+        /** A value was missing or out of range; nothing was written. */
+        INVALID,
+        /** The movie changed since the version the update was based on; nothing was written. */
+        CONFLICT
+    }
+
+    static MovieUpdate updated(HorrorMovieSQL movie) {
+        return new MovieUpdate(Outcome.UPDATED, movie, null);
+    }
+
+    static MovieUpdate rejected(Outcome outcome, HorrorMovieSQL movie, String message) {
+        return new MovieUpdate(outcome, movie, message);
+    }
+}
@@ -0,0 +1,121 @@
+package com.slasherstats.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency timers for every {@link slasherStatsManager} operation and row counters for bulk imports.
+ * <p>
+ * Every meter is registered up front, so recording an operation is a clock read and a histogram
+ * update with no lookup. Timers are named {@code slasherstats.manager} and tagged with the
+ * operation and whether it succeeded; bulk rows are counted in {@code slasherstats.bulk.rows},
+ * tagged accepted or rejected.
+ */
+public class OperationMetrics {
+
+    /** Timer of every manager operation. */
+    public static final String TIMER = "slasherstats.manager";
+    /** Counter of bulk import rows. */
+    public static final String BULK_ROWS = "slasherstats.bulk.rows";
+
+    /**
+     * The timed manager operations.
+     */
+    public enum Operation {
+        ADD("add"),
+        BULK_IMPORT("bulkImport"),
+        EXPORT("export"),
+        SNAPSHOT("snapshot"),
+        RESTORE("restore"),
+        UPDATE("update"),
+        DELETE("delete"),
+        BULK_DELETE("bulkDelete"),
+        BULK_UPDATE("bulkUpdate"),
+        FIND("find"),
+        VIEW("view"),
+        TAG_SEARCH("tagSearch"),
+        SUGGEST("suggest"),
+        SCAN("scan"),
+        RANGE("range"),
+        REBUILD("rebuild"),
+        RECALCULATE_POINTS("recalculatePoints"),
+        RECONCILE_POINTS("reconcilePoints");
+
+        private final String tag;
+
+        Operation(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    private final Map<Operation, Timer> succeeded = new EnumMap<>(Operation.class);
+    private final Map<Operation, Timer> failed = new EnumMap<>(Operation.class);
+    private final Counter rowsAccepted;
+    private final Counter rowsRejected;
+
+    /**
+     * Registers the meters with a registry. A registry without any backing registries, such as an
+     * empty {@link CompositeMeterRegistry}, turns the meters into no-ops.
+     *
+     * @param registry where the meters are registered
+     */
+    public OperationMetrics(MeterRegistry registry) {
+        for (Operation operation : Operation.values()) {
+            succeeded.put(operation, timer(registry, operation, "success"));
+            failed.put(operation, timer(registry, operation, "failure"));
+        }
+        rowsAccepted = Counter.builder(BULK_ROWS).tag("result", "accepted")
+                .description("Bulk import rows written").register(registry);
+        rowsRejected = Counter.builder(BULK_ROWS).tag("result", "rejected")
+                .description("Bulk import rows rejected while parsing, validating or writing").register(registry);
+    }
+
+    /**
+     * Meters that record nothing, for a manager created outside Spring.
+     *
+     * @return no-op operation metrics
+     */
+    static OperationMetrics none() {
+        return new OperationMetrics(new CompositeMeterRegistry());
+    }
+
+    /**
+     * Records one operation that started at {@code startNanos}.
+     *
+     * @param operation  the operation
+     * @param startNanos {@link System#nanoTime()} when it started
+     * @param success    whether it did what was asked, e.g. the movie was found
+     */
+    void record(Operation operation, long startNanos, boolean success) {
+        (success ? succeeded : failed).get(operation).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Counts the rows of a finished bulk import.
+     *
+     * @param report the import's report
+     */
+    void recordImport(BulkImportReport report) {
+        rowsAccepted.increment(report.getRowsAccepted());
+        rowsRejected.increment(report.getRowsRejected());
+    }
+
+    private static Timer timer(MeterRegistry registry, Operation operation, String outcome) {
+        return Timer.builder(TIMER)
+                .description("Latency of slasherStatsManager operations")
+                .tag("operation", operation.tag)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(10_000))
+                //Bulk imports and exports of large catalogs run for minutes
+                .maximumExpectedValue(Duration.ofMinutes(10))
+                .register(registry);
+    }
+}
@@ -0,0 +1,55 @@
+package com.slasherstats.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Thread-safe running total of account points.
+ * <p>
+ * Every movie in the catalog is worth {@link #POINTS_PER_MOVIE} points. Write paths adjust the
+ * total as they go, so reads are a single atomic load instead of a count of the table.
+ * {@link #reconcile(LongSupplier)} checks the total against the real row count.
+ */
+public class PointsLedger {
+
+    /** Points earned for each movie in the catalog. */
+    public static final int POINTS_PER_MOVIE = 10;
+
+    private final AtomicLong points = new AtomicLong();
+
+    /**
+     * Returns the current number of points.
+     *
+     * @return the points balance
+     */
+    public long get() {
+        return points.get();
+    }
+
+    //Adjusts the balance for movies added (positive) or removed (negative)
+    void moviesChanged(long movies) {
+        points.addAndGet(movies * POINTS_PER_MOVIE);
+    }
+
+    //Overwrites the balance from a known movie count
+    long reset(long movieCount) {
+        long value = movieCount * POINTS_PER_MOVIE;
+        points.set(value);
+        return value;
+    }
+
+    /**
+     * Compares the balance with the points the real movie count is worth and corrects it.
+     * If a write changes the balance while the count runs, the correction is skipped so a
+     * concurrent write is never lost; the next reconciliation picks up any remaining drift.
+     *
+     * @param movieCount supplies the number of movies in the catalog, e.g. a {@code COUNT(*)}
+     * @return how many points the balance was corrected by, 0 if it was right or the check was skipped
+     */
+    long reconcile(LongSupplier movieCount) {
+        long before = points.get();
+        long expected = movieCount.getAsLong() * POINTS_PER_MOVIE;
+        if (before == expected) return 0;
+        return points.compareAndSet(before, expected) ? expected - before : 0;
+    }
+}
@@ -0,0 +1,35 @@
+package com.slasherstats.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the in-memory account points in line with the database.
+ * <p>
+ * The first run seeds the balance from the movie count at startup; later runs compare it with a
+ * {@code COUNT(*)} every {@code slasherstats.points.reconcile-ms} milliseconds and correct any drift.
+ */
+@Component
+public class PointsReconciler {
+
+    private final slasherStatsManager manager;
+
+    @Autowired
+    public PointsReconciler(slasherStatsManager manager) {
+        this.manager = manager;
+    }
+
+    /**
+     * Reconciles the account points with the database.
+     * Errors are logged and left for the next run so the schedule keeps going.
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${slasherstats.points.reconcile-ms:300000}")
+    public void reconcile() {
+        try {
+            manager.reconcilePoints();
+        } catch (Exception e) {
+            System.out.println("Could not reconcile account points: " + e.getMessage());
+        }
+    }
+}
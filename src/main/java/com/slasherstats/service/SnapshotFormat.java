@@ -0,0 +1,46 @@
+package com.slasherstats.service;
+
+/**
+ * Layout of a binary catalog snapshot, shared by {@link SnapshotWriter} and {@link SnapshotReader}.
+ * <pre>
+ * snapshot := magic "SSNP", version byte, movie*, END, varint movie count
+ * movie    := MOVIE or MOVIE_WATCHED, title, director, platform, tags,
+ *             zigzag releaseYear, zigzag runtimeMinutes, rating,
+ *             [zigzag epoch day watched, MOVIE_WATCHED only]
+ * rating   := varint (hundredths &lt;&lt; 1) when rating * 100 is a whole number that gives the rating back exactly
+ *           | varint 1, 8-byte double otherwise
+ * string   := varint 0 for null
+ *           | varint 1, varint byte length, UTF-8 bytes
+ *           | varint n &gt;= 2 for dictionary entry n - 2
+ * </pre>
+ * Directors, platforms and tags repeat across the catalog, so the first time one is seen it is
+ * written in full and added to a dictionary; later movies refer to it by number. Both sides build
+ * the dictionary in the same order and stop adding to it at {@link #MAX_DICTIONARY} entries, so it
+ * needs no room in the file and memory stays bounded. Titles are nearly all different and are always
+ * written in full. Ratings nearly always have one or two decimals and fit in two bytes. Doubles are
+ * big-endian; varints are unsigned LEB128.
+ */
+final class SnapshotFormat {
+
+    static final byte[] MAGIC = {'S', 'S', 'N', 'P'};
+    /** Bumped whenever the layout changes; readers turn away versions they do not know. */
+    static final byte VERSION = 1;
+
+    static final int END = 0;
+    static final int MOVIE = 1;
+    static final int MOVIE_WATCHED = 2;
+
+    static final int RAW_RATING = 1;
+
+    static final int NULL_STRING = 0;
+    static final int LITERAL_STRING = 1;
+    static final int FIRST_DICTIONARY_REF = 2;
+
+    /** Most strings either side keeps in its dictionary. */
+    static final int MAX_DICTIONARY = 65_536;
+    /** Size of the buffer between the snapshot and its channel. */
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    private SnapshotFormat() {
+    }
+}
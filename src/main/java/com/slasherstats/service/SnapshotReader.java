@@ -0,0 +1,145 @@
+package com.slasherstats.service;
+
+import com.slasherstats.model.HorrorMovieSQL;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads movies back from a binary catalog snapshot (see {@link SnapshotFormat}) through an NIO
+ * channel, one movie at a time. A snapshot that is cut short, has the wrong header or whose movie
+ * count does not match fails with an {@link IOException} rather than restoring part of a catalog
+ * silently.
+ */
+public class SnapshotReader {
+
+    private final ReadableByteChannel channel;
+    private ByteBuffer buffer = ByteBuffer.allocate(SnapshotFormat.BUFFER_SIZE);
+    private final List<String> dictionary = new ArrayList<>();
+    private long movies;
+    private long bytesRead;
+    private boolean ended;
+
+    /**
+     * Opens a snapshot by reading and checking its header.
+     *
+     * @param channel where the snapshot is read from; not closed by the reader
+     * @throws IOException if the channel does not start with a snapshot header of a known version
+     */
+    public SnapshotReader(ReadableByteChannel channel) throws IOException {
+        this.channel = channel;
+        buffer.limit(0);
+        require(SnapshotFormat.MAGIC.length + 1);
+        byte[] magic = new byte[SnapshotFormat.MAGIC.length];
+        buffer.get(magic);
+        if (!Arrays.equals(magic, SnapshotFormat.MAGIC)) throw new IOException("Not a catalog snapshot");
+        byte version = buffer.get();
+        if (version != SnapshotFormat.VERSION) throw new IOException("Unsupported snapshot version " + version);
+    }
+
+    /**
+     * Reads the next movie.
+     *
+     * @return the movie, or {@code null} once the snapshot has ended
+     * @throws IOException if reading fails or the snapshot is damaged
+     */
+    public HorrorMovieSQL next() throws IOException {
+        if (ended) return null;
+        require(1);
+        int tag = buffer.get();
+        if (tag == SnapshotFormat.END) {
+            long expected = readVarLong();
+            if (expected != movies) throw new IOException("Snapshot holds " + movies + " movies but says " + expected);
+            ended = true;
+            return null;
+        }
+        if (tag != SnapshotFormat.MOVIE && tag != SnapshotFormat.MOVIE_WATCHED) throw new IOException("Damaged snapshot after movie " + movies);
+        String title = readString(false);
+        String director = readString(true);
+        String platform = readString(true);
+        String tags = readString(true);
+        int releaseYear = (int) unzigzag(readVarLong());
+        int runtimeMinutes = (int) unzigzag(readVarLong());
+        double rating = readRating();
+        LocalDate watched = tag == SnapshotFormat.MOVIE_WATCHED ? LocalDate.ofEpochDay(unzigzag(readVarLong())) : null;
+        movies++;
+        return new HorrorMovieSQL(title, director, releaseYear, runtimeMinutes, platform, rating, tags, watched);
+    }
+
+    /**
+     * Returns the bytes taken from the channel so far, for reporting progress.
+     *
+     * @return the number of bytes read
+     */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    private String readString(boolean dictionaryField) throws IOException {
+        long code = readVarLong();
+        if (code == SnapshotFormat.NULL_STRING) return null;
+        if (code >= SnapshotFormat.FIRST_DICTIONARY_REF) {
+            long index = code - SnapshotFormat.FIRST_DICTIONARY_REF;
+            if (index >= dictionary.size()) throw new IOException("Damaged snapshot after movie " + movies);
+            return dictionary.get((int) index);
+        }
+        long length = readVarLong();
+        if (length > Integer.MAX_VALUE) throw new IOException("Damaged snapshot after movie " + movies);
+        require((int) length);
+        String value = new String(buffer.array(), buffer.position(), (int) length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + (int) length);
+        //Mirrors the writer, which remembers every new dictionary string while there is room
+        if (dictionaryField && dictionary.size() < SnapshotFormat.MAX_DICTIONARY) dictionary.add(value);
+        return value;
+    }
+
+    private double readRating() throws IOException {
+        long code = readVarLong();
+        if (code != SnapshotFormat.RAW_RATING) return (code >>> 1) / 100.0;
+        require(8);
+        return buffer.getDouble();
+    }
+
+    private long readVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            require(1);
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+        throw new IOException("Damaged snapshot after movie " + movies);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    //Reads from the channel until at least the given number of bytes are buffered
+    private void require(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) return;
+        if (bytes > buffer.capacity()) {
+            //Only a very long string gets here
+            ByteBuffer larger = ByteBuffer.allocate(bytes);
+            larger.put(buffer).flip();
+            buffer = larger;
+        }
+        buffer.compact();
+        while (buffer.position() < bytes) {
+            int read = channel.read(buffer);
+            if (read < 0) {
+                buffer.flip();
+                throw new EOFException("Snapshot ends after movie " + movies);
+            }
+            bytesRead += read;
+        }
+        buffer.flip();
+    }
+}
@@ -0,0 +1,150 @@
+package com.slasherstats.service;
+
+import com.slasherstats.model.HorrorMovieSQL;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes movies to a binary catalog snapshot (see {@link SnapshotFormat}) through an NIO channel.
+ * Movies are encoded into one reused buffer that is handed to the channel whenever it fills, so
+ * a snapshot of any size is written in constant memory. Ids and versions are not kept; a restored
+ * movie gets new ones.
+ */
+public class SnapshotWriter {
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(SnapshotFormat.BUFFER_SIZE);
+    private final Map<String, Integer> dictionary = new HashMap<>();
+    private long movies;
+    private boolean finished;
+
+    /**
+     * Starts a snapshot. The header goes out with the first full buffer.
+     *
+     * @param channel where the snapshot is written; not closed by the writer
+     */
+    public SnapshotWriter(WritableByteChannel channel) {
+        this.channel = channel;
+        buffer.put(SnapshotFormat.MAGIC).put(SnapshotFormat.VERSION);
+    }
+
+    /**
+     * Adds one movie to the snapshot.
+     *
+     * @param movie the movie to write
+     * @throws IOException if writing to the channel fails
+     */
+    public void write(HorrorMovieSQL movie) throws IOException {
+        if (finished) throw new IllegalStateException("Snapshot is already finished");
+        boolean watched = movie.getDateWatched() != null;
+        require(1);
+        buffer.put((byte) (watched ? SnapshotFormat.MOVIE_WATCHED : SnapshotFormat.MOVIE));
+        writeLiteral(movie.getTitle());
+        writeDictionary(movie.getDirector());
+        writeDictionary(movie.getStreamingPlatform());
+        writeDictionary(movie.getTags());
+        //Year, runtime, rating and watch date take at most 5 + 5 + 9 + 10 bytes
+        require(29);
+        writeVarLong(zigzag(movie.getReleaseYear()));
+        writeVarLong(zigzag(movie.getRuntimeMinutes()));
+        writeRating(movie.getRating());
+        if (watched) writeVarLong(zigzag(movie.getDateWatched().toEpochDay()));
+        movies++;
+    }
+
+    /**
+     * Ends the snapshot with the movie count the reader checks against, and hands everything
+     * still buffered to the channel.
+     *
+     * @throws IOException if writing to the channel fails
+     */
+    public void finish() throws IOException {
+        if (finished) return;
+        require(11);
+        buffer.put((byte) SnapshotFormat.END);
+        writeVarLong(movies);
+        flush();
+        finished = true;
+    }
+
+    /**
+     * Returns the number of movies written so far.
+     *
+     * @return the movie count
+     */
+    public long getMovies() {
+        return movies;
+    }
+
+    private void writeLiteral(String value) throws IOException {
+        require(5);
+        if (value == null) {
+            writeVarLong(SnapshotFormat.NULL_STRING);
+            return;
+        }
+        writeVarLong(SnapshotFormat.LITERAL_STRING);
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        require(5);
+        writeVarLong(bytes.length);
+        if (bytes.length <= buffer.remaining()) {
+            buffer.put(bytes);
+            return;
+        }
+        //Longer than what is left of the buffer: send the buffer, then the bytes as they are
+        flush();
+        ByteBuffer whole = ByteBuffer.wrap(bytes);
+        while (whole.hasRemaining()) channel.write(whole);
+    }
+
+    //Refers to a string seen before, or writes it in full and remembers it while there is room
+    private void writeDictionary(String value) throws IOException {
+        Integer index = value == null ? null : dictionary.get(value);
+        if (index != null) {
+            require(5);
+            writeVarLong(SnapshotFormat.FIRST_DICTIONARY_REF + (long) index);
+            return;
+        }
+        writeLiteral(value);
+        if (value != null && dictionary.size() < SnapshotFormat.MAX_DICTIONARY) dictionary.put(value, dictionary.size());
+    }
+
+    //Hundredths when they give the rating back exactly, so that 7.5 takes two bytes instead of eight
+    private void writeRating(double rating) {
+        double hundredths = Math.rint(rating * 100);
+        if (hundredths >= 0 && hundredths < 1L << 40 && hundredths / 100 == rating
+                && Double.doubleToRawLongBits(rating) != Double.doubleToRawLongBits(-0.0)) {
+            writeVarLong((long) hundredths << 1);
+        } else {
+            buffer.put((byte) SnapshotFormat.RAW_RATING);
+            buffer.putDouble(rating);
+        }
+    }
+
+    private void writeVarLong(long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    //Makes room for bytes that are about to be put into the buffer
+    private void require(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) flush();
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) channel.write(buffer);
+        buffer.clear();
+    }
+}
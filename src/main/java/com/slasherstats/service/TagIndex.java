@@ -0,0 +1,181 @@
+package com.slasherstats.service;
+
+import com.slasherstats.model.HorrorMovieSQL;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory inverted index from tag to the ids of the movies carrying it, kept as compressed
+ * (Roaring) bitmaps so that tag queries are set operations on a few kilobytes instead of
+ * {@code LIKE '%tag%'} scans over the table.
+ * <p>
+ * Tags are split from the comma separated {@code tags} column and matched ignoring case and
+ * surrounding spaces. The index follows every committed write and is rebuilt in one streaming
+ * pass over the table.
+ */
+public class TagIndex implements CatalogListener {
+
+    /** Most co-occurring tags reported with a search. */
+    static final int MAX_TAG_COUNTS = 20;
+
+    //Guarded by this; replaced wholesale when a rebuild finishes
+    private State state = new State();
+
+    /**
+     * The ids a tag query matched.
+     *
+     * @param count     number of movies matching the query
+     * @param ids       the requested slice of matching ids, ascending
+     * @param tagCounts the tags most common among the matches, with how many matches carry each
+     */
+    record Match(long count, List<Integer> ids, Map<String, Long> tagCounts) {
+    }
+
+    @Override
+    public synchronized void movieAdded(HorrorMovieSQL movie) {
+        state.add(movie);
+    }
+
+    @Override
+    public synchronized void movieRemoved(HorrorMovieSQL movie) {
+        state.remove(movie);
+    }
+
+    @Override
+    public synchronized void movieUpdated(HorrorMovieSQL before, HorrorMovieSQL after) {
+        state.remove(before);
+        state.add(after);
+    }
+
+    @Override
+    public synchronized void moviesAdded(List<HorrorMovieSQL> movies) {
+        for (HorrorMovieSQL movie : movies) state.add(movie);
+    }
+
+    @Override
+    public Rebuild startRebuild() {
+        State rebuilt = new State();
+        return new Rebuild() {
+            @Override
+            public void accept(HorrorMovieSQL movie) {
+                rebuilt.add(movie);
+            }
+
+            @Override
+            public void finish() {
+                //Ids of a freshly loaded table are mostly consecutive, which run containers store best
+                rebuilt.all.runOptimize();
+                rebuilt.bitmaps.values().forEach(RoaringBitmap::runOptimize);
+                synchronized (TagIndex.this) {
+                    state = rebuilt;
+                }
+            }
+        };
+    }
+
+    /**
+     * Finds the movies that carry every tag in {@code all}, at least one tag in {@code any} and none of
+     * the tags in {@code none}. Empty collections place no restriction, so a query without tags matches
+     * every movie.
+     *
+     * @param all     tags a movie must all have
+     * @param any     tags of which a movie must have at least one
+     * @param none    tags a movie must not have
+     * @param afterId only ids above this one are returned, for paging through the matches
+     * @param limit   the most ids to return
+     * @return the number of matches, one slice of their ids and the most common tags among them
+     */
+    synchronized Match search(Collection<String> all, Collection<String> any, Collection<String> none,
+                              int afterId, int limit) {
+        RoaringBitmap result = null;
+        for (String tag : all) {
+            RoaringBitmap movies = state.bitmaps.getOrDefault(HorrorMovieSQL.normalizeTag(tag), new RoaringBitmap());
+            if (result == null) result = movies.clone();
+            else result.and(movies);
+        }
+        if (!any.isEmpty()) {
+            RoaringBitmap union = new RoaringBitmap();
+            for (String tag : any) {
+                RoaringBitmap movies = state.bitmaps.get(HorrorMovieSQL.normalizeTag(tag));
+                if (movies != null) union.or(movies);
+            }
+            if (result == null) result = union;
+            else result.and(union);
+        }
+        if (result == null) result = state.all.clone();
+        for (String tag : none) {
+            RoaringBitmap movies = state.bitmaps.get(HorrorMovieSQL.normalizeTag(tag));
+            if (movies != null) result.andNot(movies);
+        }
+
+        List<Integer> ids = new ArrayList<>(Math.max(0, Math.min(limit, result.getCardinality())));
+        PeekableIntIterator it = result.getIntIterator();
+        if (afterId >= 0 && afterId < Integer.MAX_VALUE) it.advanceIfNeeded(afterId + 1);
+        while (ids.size() < limit && it.hasNext()) ids.add(it.next());
+        return new Match(result.getLongCardinality(), ids, tagCounts(result));
+    }
+
+    /**
+     * Returns the number of distinct tags in the index.
+     *
+     * @return the number of tags
+     */
+    synchronized int tags() {
+        return state.bitmaps.size();
+    }
+
+    //The tags carried by most of the matches, most common first
+    private Map<String, Long> tagCounts(RoaringBitmap result) {
+        List<Map.Entry<String, Long>> counts = new ArrayList<>();
+        if (!result.isEmpty()) {
+            for (Map.Entry<String, RoaringBitmap> entry : state.bitmaps.entrySet()) {
+                long count = RoaringBitmap.andCardinality(result, entry.getValue());
+                if (count > 0) counts.add(Map.entry(state.names.get(entry.getKey()), count));
+            }
+        }
+        counts.sort(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+        Map<String, Long> top = new LinkedHashMap<>();
+        for (Map.Entry<String, Long> entry : counts.subList(0, Math.min(MAX_TAG_COUNTS, counts.size()))) {
+            top.put(entry.getKey(), entry.getValue());
+        }
+        return top;
+    }
+
+    //One bitmap per tag plus one of every movie, for queries that only exclude tags
+    private static final class State {
+        final RoaringBitmap all = new RoaringBitmap();
+        final Map<String, RoaringBitmap> bitmaps = new HashMap<>();
+        //Tag key -> the spelling the tag was first seen with
+        final Map<String, String> names = new HashMap<>();
+
+        void add(HorrorMovieSQL movie) {
+            all.add(movie.getId());
+            for (String tag : HorrorMovieSQL.splitTags(movie.getTags())) {
+                String key = HorrorMovieSQL.normalizeTag(tag);
+                bitmaps.computeIfAbsent(key, k -> new RoaringBitmap()).add(movie.getId());
+                names.putIfAbsent(key, tag);
+            }
+        }
+
+        void remove(HorrorMovieSQL movie) {
+            all.remove(movie.getId());
+            for (String tag : HorrorMovieSQL.splitTags(movie.getTags())) {
+                String key = HorrorMovieSQL.normalizeTag(tag);
+                RoaringBitmap movies = bitmaps.get(key);
+                if (movies == null) continue;
+                movies.remove(movie.getId());
+                if (movies.isEmpty()) {
+                    bitmaps.remove(key);
+                    names.remove(key);
+                }
+            }
+        }
+    }
+}
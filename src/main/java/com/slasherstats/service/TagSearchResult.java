@@ -0,0 +1,17 @@
+package com.slasherstats.service;
+
+import com.slasherstats.model.HorrorMovieSQL;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One page of the movies matching a tag query.
+ *
+ * @param count     number of movies matching the query
+ * @param tagCounts the tags most common among the matches, with how many matches carry each
+ * @param movies    the matching movies on this page, by ascending id
+ * @param nextAfter id to pass as {@code after} for the following page, or {@code null} if this is the last page
+ */
+public record TagSearchResult(long count, Map<String, Long> tagCounts, List<HorrorMovieSQL> movies, Integer nextAfter) {
+}
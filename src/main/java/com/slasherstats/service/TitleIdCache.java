@@ -0,0 +1,56 @@
+package com.slasherstats.service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded, least-recently-used map from a normalized title to the id of the movie with that title.
+ * <p>
+ * Entries are only hints: callers load the movie by id and check its title key before trusting
+ * a hit, so an entry left behind by a write from outside the application costs one extra lookup
+ * instead of returning the wrong movie.
+ */
+class TitleIdCache {
+
+    private final Map<String, Integer> ids;
+    private volatile int maxEntries;
+
+    TitleIdCache(int maxEntries) {
+        //Access-ordered so the least recently used title is evicted first
+        this.ids = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+                return size() > TitleIdCache.this.maxEntries;
+            }
+        };
+        setMaxEntries(maxEntries);
+    }
+
+    synchronized Integer get(String titleKey) {
+        return ids.get(titleKey);
+    }
+
+    synchronized void put(String titleKey, int id) {
+        if (maxEntries > 0) ids.put(titleKey, id);
+    }
+
+    synchronized void remove(String titleKey) {
+        ids.remove(titleKey);
+    }
+
+    synchronized int size() {
+        return ids.size();
+    }
+
+    //A size of 0 disables the cache
+    synchronized void setMaxEntries(int maxEntries) {
+        if (maxEntries < 0) throw new IllegalArgumentException("Title cache size must not be negative");
+        this.maxEntries = maxEntries;
+        Iterator<String> eldest = ids.keySet().iterator();
+        while (ids.size() > maxEntries) {
+            eldest.next();
+            eldest.remove();
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package com.slasherstats.service;
+
+import com.slasherstats.model.HorrorMovieSQL;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * In-memory trigram index over the distinct movie titles, for typo-tolerant suggestions.
+ * <p>
+ * Every word of a title is padded as {@code "  word "} and cut into three-character grams, as
+ * PostgreSQL's pg_trgm does, and each gram maps to a bitmap of the titles containing it. A query
+ * scores a title by the share of the query's grams found in it, so "halowen" still finds
+ * "Halloween" and a partly typed title finds the whole one.
+ * <p>
+ * The query's gram lists are read from the rarest up. The titles a list adds are counted against
+ * the remaining lists with bitmap intersections, and reading stops as soon as no title left unread
+ * could rank among the best found, or once {@link #CANDIDATE_BUDGET} titles were scored.
+ * A query therefore rarely walks the huge lists of grams like {@code " th"}.
+ * <p>
+ * Titles are matched by their title key, so movies that differ only in case share one entry.
+ */
+public class TitleSuggestIndex implements CatalogListener {
+
+    /** Least share of the query's grams a title must contain to be suggested. */
+    static final double MIN_COVERAGE = 0.5;
+    /**
+     * Titles a query scores before it settles for the best found so far, like a search engine's
+     * maximum expansions. Lists are read rarest first, so the titles that share a rare gram with
+     * the query are already in; those met later only share its most common grams.
+     */
+    static final int CANDIDATE_BUDGET = 2_000;
+    //Below this many new titles, probing each one is cheaper than intersecting whole bitmaps
+    private static final int PROBE_LIMIT = 128;
+
+    //Guarded by this; replaced wholesale when a rebuild finishes
+    private State state = new State();
+
+    /**
+     * A suggested title.
+     *
+     * @param title      the title as first added
+     * @param similarity share of the typed text's trigrams found in the title, 0 to 1
+     */
+    public record Suggestion(String title, double similarity) {
+    }
+
+    @Override
+    public synchronized void movieAdded(HorrorMovieSQL movie) {
+        state.add(movie.getTitle());
+    }
+
+    @Override
+    public synchronized void movieRemoved(HorrorMovieSQL movie) {
+        state.remove(movie.getTitle());
+    }
+
+    @Override
+    public synchronized void movieUpdated(HorrorMovieSQL before, HorrorMovieSQL after) {
+        state.remove(before.getTitle());
+        state.add(after.getTitle());
+    }
+
+    @Override
+    public synchronized void moviesAdded(List<HorrorMovieSQL> movies) {
+        for (HorrorMovieSQL movie : movies) state.add(movie.getTitle());
+    }
+
+    @Override
+    public Rebuild startRebuild() {
+        State rebuilt = new State();
+        return new Rebuild() {
+            @Override
+            public void accept(HorrorMovieSQL movie) {
+                rebuilt.add(movie.getTitle());
+            }
+
+            @Override
+            public void finish() {
+                rebuilt.grams.values().forEach(gram -> gram.titles.runOptimize());
+                synchronized (TitleSuggestIndex.this) {
+                    state = rebuilt;
+                }
+            }
+        };
+    }
+
+    /**
+     * Returns the titles most similar to what was typed. Titles containing more of the typed text
+     * come first; among equally good ones, titles closer in length to it, then titles starting with it.
+     *
+     * @param query the typed text, possibly misspelt or incomplete
+     * @param limit the most suggestions to return
+     * @return up to {@code limit} suggestions, best first
+     */
+    synchronized List<Suggestion> suggest(String query, int limit) {
+        if (query == null || limit <= 0) return List.of();
+        String queryKey = HorrorMovieSQL.normalizeTitle(query);
+        Set<String> queryGrams = trigrams(queryKey);
+        List<Gram> known = new ArrayList<>(queryGrams.size());
+        for (String gram : queryGrams) {
+            Gram indexed = state.grams.get(gram);
+            if (indexed != null) known.add(indexed);
+        }
+        int grams = queryGrams.size();
+        int needed = (int) Math.ceil(MIN_COVERAGE * grams);
+        if (grams == 0 || known.size() < needed) return List.of();
+        known.sort(Comparator.comparingInt(gram -> gram.titles.getCardinality()));
+
+        //A title first met in list j is in none of the earlier lists, so at most known.size() - j of the
+        //grams can be in it; once that bound cannot beat the worst of the best found so far, or falls
+        //below the minimum coverage, no unread title can make the cut.
+        Scratch scratch = state.scratch();
+        int[] counts = scratch.counts;
+        //Worst of the best kept at the head so it can be dropped when a better one turns up
+        PriorityQueue<Candidate> best = new PriorityQueue<>(Candidate.ORDER.reversed());
+        int examined = 0;
+        for (int j = 0; j <= known.size() - needed; j++) {
+            double bound = (known.size() - j) / (double) grams;
+            if (examined >= CANDIDATE_BUDGET || best.size() == limit && best.peek().coverage() > bound) break;
+            int size = scratch.unseen(known.get(j).titles);
+            if (size == 0) continue;
+            examined += size;
+            int[] fresh = scratch.buffer;
+            for (int c = 0; c < size; c++) counts[fresh[c]] = 1;
+            if (size < PROBE_LIMIT) {
+                for (int k = j + 1; k < known.size(); k++) {
+                    RoaringBitmap titles = known.get(k).titles;
+                    for (int c = 0; c < size; c++) {
+                        if (titles.contains(fresh[c])) counts[fresh[c]]++;
+                    }
+                }
+            } else {
+                //Many new titles are counted a list at a time with container-level intersections
+                RoaringBitmap freshTitles = new RoaringBitmap();
+                freshTitles.addN(fresh, 0, size);
+                for (int k = j + 1; k < known.size(); k++) {
+                    RoaringBitmap.and(freshTitles, known.get(k).titles).forEach((int slot) -> counts[slot]++);
+                }
+            }
+            for (int c = 0; c < size; c++) {
+                int common = counts[fresh[c]];
+                //Leaves the shared counters zeroed for the next query
+                counts[fresh[c]] = 0;
+                if (common < needed) continue;
+                double coverage = common / (double) grams;
+                //Most titles cannot beat the worst kept one, so they are turned away before building a candidate
+                if (best.size() == limit && coverage < best.peek().coverage()) continue;
+                Entry entry = state.entries.get(fresh[c]);
+                double dice = 2.0 * common / (grams + entry.grams);
+                Candidate candidate = new Candidate(entry, coverage, dice, entry.key.startsWith(queryKey));
+                if (best.size() < limit) best.add(candidate);
+                else if (Candidate.ORDER.compare(candidate, best.peek()) < 0) {
+                    best.poll();
+                    best.add(candidate);
+                }
+            }
+        }
+        List<Candidate> ranked = new ArrayList<>(best);
+        ranked.sort(Candidate.ORDER);
+        List<Suggestion> suggestions = new ArrayList<>(ranked.size());
+        for (Candidate candidate : ranked) suggestions.add(new Suggestion(candidate.entry.title, candidate.coverage));
+        return suggestions;
+    }
+
+    /**
+     * Returns the number of distinct titles in the index.
+     *
+     * @return the number of titles
+     */
+    synchronized int titles() {
+        return state.slots.size();
+    }
+
+    //The distinct padded trigrams of every word in a title key
+    static Set<String> trigrams(String key) {
+        Set<String> grams = new LinkedHashSet<>();
+        if (key == null) return grams;
+        StringBuilder word = new StringBuilder("  ");
+        for (int i = 0; i <= key.length(); i++) {
+            char c = i < key.length() ? key.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                word.append(c);
+            } else if (word.length() > 2) {
+                word.append(' ');
+                for (int j = 0; j + 3 <= word.length(); j++) grams.add(word.substring(j, j + 3));
+                word.setLength(2);
+            }
+        }
+        return grams;
+    }
+
+    //A title that qualified for a query, with what it is ranked by
+    private record Candidate(Entry entry, double coverage, double dice, boolean prefix) {
+        //Best first; written out because it runs for every title that reaches the heap
+        static final Comparator<Candidate> ORDER = (a, b) -> {
+            int c = Double.compare(b.coverage, a.coverage);
+            if (c == 0) c = Double.compare(b.dice, a.dice);
+            if (c == 0) c = Boolean.compare(b.prefix, a.prefix);
+            return c != 0 ? c : a.entry.key.compareTo(b.entry.key);
+        };
+    }
+
+    //The titles containing one trigram
+    private static final class Gram {
+        final RoaringBitmap titles = new RoaringBitmap();
+    }
+
+    //One distinct title key, its number of grams and how many movies have it
+    private static final class Entry {
+        final String key;
+        final String title;
+        final int grams;
+        int movies = 1;
+
+        Entry(String key, String title, int grams) {
+            this.key = key;
+            this.title = title;
+            this.grams = grams;
+        }
+    }
+
+    //Per-slot arrays shared by queries, which hold the index lock. Counters are zeroed after each query;
+    //a slot was met by the current query if its stamp matches, so stamps never need clearing.
+    private static final class Scratch {
+        final int[] counts;
+        final int[] stamps;
+        int stamp;
+        int[] buffer = new int[256];
+
+        Scratch(int slots) {
+            counts = new int[slots];
+            stamps = new int[slots];
+        }
+
+        void nextQuery() {
+            if (++stamp == 0) {
+                Arrays.fill(stamps, 0);
+                stamp = 1;
+            }
+        }
+
+        //Puts the titles of a list this query has not met in an earlier list into the buffer, ascending
+        int unseen(RoaringBitmap titles) {
+            int size = 0;
+            PeekableIntIterator it = titles.getIntIterator();
+            while (it.hasNext()) {
+                int slot = it.next();
+                if (stamps[slot] == stamp) continue;
+                stamps[slot] = stamp;
+                if (size == buffer.length) buffer = Arrays.copyOf(buffer, size * 2);
+                buffer[size++] = slot;
+            }
+            return size;
+        }
+    }
+
+    //Titles live in numbered slots so that the gram bitmaps hold small dense ints; freed slots are reused
+    private static final class State {
+        final Map<String, Gram> grams = new HashMap<>();
+        final Map<String, Integer> slots = new HashMap<>();
+        final List<Entry> entries = new ArrayList<>();
+        final ArrayDeque<Integer> freeSlots = new ArrayDeque<>();
+        private Scratch scratch = new Scratch(0);
+
+        void add(String title) {
+            String key = HorrorMovieSQL.normalizeTitle(title);
+            if (key == null || key.isEmpty()) return;
+            Integer slot = slots.get(key);
+            if (slot != null) {
+                entries.get(slot).movies++;
+                return;
+            }
+            slot = freeSlots.isEmpty() ? entries.size() : freeSlots.pop();
+            Set<String> titleGrams = trigrams(key);
+            for (String gram : titleGrams) grams.computeIfAbsent(gram, g -> new Gram()).titles.add(slot);
+            Entry entry = new Entry(key, title.trim(), titleGrams.size());
+            if (slot == entries.size()) entries.add(entry);
+            else entries.set(slot, entry);
+            slots.put(key, slot);
+        }
+
+        void remove(String title) {
+            String key = HorrorMovieSQL.normalizeTitle(title);
+            Integer slot = key == null ? null : slots.get(key);
+            if (slot == null || --entries.get(slot).movies > 0) return;
+            slots.remove(key);
+            entries.set(slot, null);
+            freeSlots.push(slot);
+            for (String gram : trigrams(key)) {
+                Gram indexed = grams.get(gram);
+                if (indexed == null) continue;
+                indexed.titles.remove(slot);
+                if (indexed.titles.isEmpty()) grams.remove(gram);
+            }
+        }
+
+        //Working arrays for one query, sized to the slots in use
+        Scratch scratch() {
+            if (scratch.counts.length < entries.size()) {
+                scratch = new Scratch(Math.max(entries.size(), scratch.counts.length * 2));
+            }
+            scratch.nextQuery();
+            return scratch;
+        }
+    }
+}
@@ -6,19 +6,49 @@
 package com.slasherstats.service;
 
 import com.slasherstats.model.HorrorMovieSQL;
+import com.slasherstats.repository.BulkWrite;
 import com.slasherstats.repository.HorrorMovieRepository;
+import com.slasherstats.repository.MovieField;
+import com.slasherstats.repository.MovieFilter;
+import com.slasherstats.repository.MovieSort;
+import com.slasherstats.service.OperationMetrics.Operation;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.InputStreamReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Scanner;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
 
 /**
  * Constructor for injecting a HorrorMovieRepository instance.
@@ -28,31 +58,280 @@ import java.util.Scanner;
 @Service
 public class slasherStatsManager {
 
+    /** Default number of rows written per transaction during bulk imports. */
+    public static final int DEFAULT_BULK_CHUNK_SIZE = 500;
+    /** Number of movies on a listing page unless another size is asked for. */
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    /** Largest listing page that may be asked for. */
+    public static final int MAX_PAGE_SIZE = 500;
+    /** Most title suggestions returned at once. */
+    public static final int MAX_SUGGESTIONS = 50;
+    /** Default number of titles whose movie id is remembered for single-movie lookups. */
+    public static final int DEFAULT_TITLE_CACHE_SIZE = 10_000;
+    /**
+     * Default number of movies a set-based delete or update reports to the catalog listeners one by one.
+     * Past it the listeners are rebuilt from the table instead.
+     */
+    public static final int DEFAULT_BULK_EVENT_LIMIT = 10_000;
+    /** Fields a set-based update may set; the rest describe one movie or one watch. */
+    public static final Set<MovieField> BULK_UPDATE_FIELDS = Set.of(MovieField.PLATFORM, MovieField.TAGS, MovieField.RATING);
+
     private final HorrorMovieRepository repository;
-    private int accountPoints;
+    private final PointsLedger points = new PointsLedger();
+    private final TitleIdCache titleIds = new TitleIdCache(DEFAULT_TITLE_CACHE_SIZE);
+    private final CatalogCache catalogCache = new CatalogCache();
+    private final TagIndex tagIndex = new TagIndex();
+    private final TitleSuggestIndex titleSuggestions = new TitleSuggestIndex();
+    private final CatalogColumns columns = new CatalogColumns();
+    //Told about every committed write; the catalog cache always comes first
+    private final List<CatalogListener> listeners = new CopyOnWriteArrayList<>(List.of(catalogCache, tagIndex, titleSuggestions, columns));
+    //Writes share the read side; a rebuild takes the write side so it sees the table without writes in flight
+    private final ReentrantReadWriteLock catalogLock = new ReentrantReadWriteLock();
+    //Bumped after every committed write; the random prefix keeps tags from before a restart from matching
+    private final AtomicLong catalogVersion = new AtomicLong();
+    private final String catalogEpoch = Long.toHexString(ThreadLocalRandom.current().nextLong());
+    private int bulkChunkSize = DEFAULT_BULK_CHUNK_SIZE;
+    private int bulkParseWorkers = Runtime.getRuntime().availableProcessors();
+    //0 until a count is configured; the default is then shared out between imports that run at once
+    private int configuredParseWorkers;
+    private int maxConcurrentImports = 1;
+    private int bulkEventLimit = DEFAULT_BULK_EVENT_LIMIT;
+    private volatile BulkImportReport lastImportReport;
+    private OperationMetrics metrics = OperationMetrics.none();
 
     @Autowired
     public slasherStatsManager(HorrorMovieRepository repository) {
         this.repository = repository;
-        this.accountPoints = 0;
+    }
+
+    /**
+     * Registers listeners that are told about every change to the catalog.
+     *
+     * @param catalogListeners the listeners to add
+     */
+    @Autowired(required = false)
+    public void setCatalogListeners(List<CatalogListener> catalogListeners) {
+        for (CatalogListener listener : catalogListeners) {
+            if (!listeners.contains(listener)) listeners.add(listener);
+        }
+    }
+
+    /**
+     * Registers the latency timers and bulk row counters with a meter registry.
+     * Without one the manager records nothing.
+     *
+     * @param meterRegistry where the manager's meters are published
+     */
+    @Autowired(required = false)
+    public void setMeterRegistry(MeterRegistry meterRegistry) {
+        this.metrics = new OperationMetrics(meterRegistry);
+    }
+
+    /**
+     * Returns the catalog version, which goes up after every committed change to the movies or the
+     * account points and never goes down. Read it before loading what it describes: a change
+     * committed in between then makes the version newer than the data, never older.
+     *
+     * @return the catalog version
+     */
+    public long getCatalogVersion() {
+        return catalogVersion.get();
+    }
+
+    /**
+     * Returns a strong entity tag for anything rendered from the current catalog, such as the movie
+     * list or an export, so an unchanged catalog can be answered with 304 Not Modified.
+     *
+     * @return the quoted entity tag
+     */
+    public String getCatalogETag() {
+        return "\"" + catalogEpoch + "-" + catalogVersion.get() + "\"";
     }
 
     /**
      * Returns the current account points, which increase or decrease based on if movies are added or taken from the database.
+     * The balance is kept up to date by every write, so this does not touch the database.
      *
      * @return the number of account points
      */
     public int getAccountPoints() {
-        return accountPoints;
+        return (int) points.get();
+    }
+
+    /**
+     * Retrieves one page of horror movies using keyset pagination, so the cost of a page does
+     * not grow with the size of the catalog.
+     *
+     * @param sort       the sort key, ties are broken by id
+     * @param descending true to list from the highest key down
+     * @param cursor     {@link MoviePage#nextCursor()} of the previous page, or {@code null} for the first page.
+     *                   A cursor made for a different sort or direction starts over at the first page.
+     * @param pageSize   movies per page, clamped to 1..{@link #MAX_PAGE_SIZE}
+     * @return the requested page
+     */
+    public MoviePage viewMovies(MovieSort sort, boolean descending, String cursor, int pageSize) {
+        long start = System.nanoTime();
+        MoviePage page = loadPage(sort, descending, cursor, pageSize);
+        metrics.record(Operation.VIEW, start, true);
+        return page;
+    }
+
+    //Serves a listing page from the catalog cache, or reads it and caches it
+    private MoviePage loadPage(MovieSort sort, boolean descending, String cursor, int pageSize) {
+        int size = Math.max(1, Math.min(pageSize, MAX_PAGE_SIZE));
+        MoviePage.Position after = MoviePage.decodeCursor(cursor, sort, descending);
+        CatalogCache.PageKey key = new CatalogCache.PageKey(sort, descending, after, size);
+        MoviePage cached = catalogCache.getPage(key);
+        if (cached != null) return cached;
+
+        long generation = catalogCache.generation();
+        //One extra row tells whether there is a next page without a COUNT
+        List<HorrorMovieSQL> movies = new ArrayList<>(repository.findPage(sort, descending,
+                after == null ? null : after.key(), after == null ? null : after.id(), size + 1));
+        String next = null;
+        if (movies.size() > size) {
+            movies.remove(size);
+            next = MoviePage.encodeCursor(sort, descending, movies.get(size - 1));
+        }
+        MoviePage page = new MoviePage(Collections.unmodifiableList(movies), sort, descending, size, next);
+        catalogCache.putPage(key, page, generation);
+        return page;
+    }
+
+    /**
+     * Retrieves the first page of horror movies in title order.
+     *
+     * @return the first page of the default listing
+     */
+    public MoviePage viewMovies() {
+        return viewMovies(MovieSort.TITLE, false, null, DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * Finds movies by tag through the in-memory tag index, without scanning the table. Tags are
+     * matched ignoring case; an empty list places no restriction.
+     *
+     * @param all      comma separated tags a movie must all have
+     * @param any      comma separated tags of which a movie must have at least one
+     * @param none     comma separated tags a movie must not have
+     * @param afterId  {@link TagSearchResult#nextAfter()} of the previous page, or 0 for the first page
+     * @param pageSize movies per page, clamped to 1..{@link #MAX_PAGE_SIZE}
+     * @return the number of matches, the most common tags among them and one page of the movies
+     */
+    public TagSearchResult searchByTags(String all, String any, String none, int afterId, int pageSize) {
+        long start = System.nanoTime();
+        int size = Math.max(1, Math.min(pageSize, MAX_PAGE_SIZE));
+        TagIndex.Match match = tagIndex.search(HorrorMovieSQL.splitTags(all), HorrorMovieSQL.splitTags(any),
+                HorrorMovieSQL.splitTags(none), afterId, size + 1);
+        List<Integer> ids = match.ids().subList(0, Math.min(size, match.ids().size()));
+        //One query for the whole page; a movie deleted since the index was read is simply left out
+        List<HorrorMovieSQL> movies = ids.isEmpty() ? new ArrayList<>() : new ArrayList<>(repository.findAllById(ids));
+        movies.sort(Comparator.comparingInt(HorrorMovieSQL::getId));
+        Integer next = match.ids().size() > size ? ids.get(size - 1) : null;
+        metrics.record(Operation.TAG_SEARCH, start, true);
+        return new TagSearchResult(match.count(), match.tagCounts(), movies, next);
+    }
+
+    /**
+     * Suggests titles close to what was typed, tolerating typos and unfinished words.
+     * Answered from an in-memory trigram index without touching the database.
+     *
+     * @param query the typed text
+     * @param limit the most suggestions to return, clamped to 0..{@link #MAX_SUGGESTIONS}
+     * @return the closest titles, best first
+     */
+    public List<TitleSuggestIndex.Suggestion> suggestTitles(String query, int limit) {
+        long start = System.nanoTime();
+        List<TitleSuggestIndex.Suggestion> suggestions = titleSuggestions.suggest(query, Math.max(0, Math.min(limit, MAX_SUGGESTIONS)));
+        metrics.record(Operation.SUGGEST, start, !suggestions.isEmpty());
+        return suggestions;
+    }
+
+    /**
+     * Counts and aggregates the movies matching a filter from the in-memory columnar copy of the
+     * catalog, without loading any entities.
+     *
+     * @param filter which movies to include, {@link MovieFilter#ALL} for every movie
+     * @return the count, rating and runtime aggregates and platform breakdown of the matches
+     */
+    public CatalogColumns.Summary scanCatalog(MovieFilter filter) {
+        long start = System.nanoTime();
+        CatalogColumns.Summary summary = columns.scan(filter);
+        metrics.record(Operation.SCAN, start, true);
+        return summary;
+    }
+
+    /**
+     * Retrieves the movies watched between two dates, earliest first, through the watch date index.
+     *
+     * @param from  earliest watch date, inclusive
+     * @param to    latest watch date, inclusive
+     * @param limit the most movies to return, clamped to 1..{@link #MAX_PAGE_SIZE}
+     * @return the matching movies
+     */
+    public List<HorrorMovieSQL> findWatchedBetween(LocalDate from, LocalDate to, int limit) {
+        return findRange(max -> repository.findWatchedBetween(from, to, max), limit);
+    }
+
+    /**
+     * Retrieves the movies released between two years, earliest first, through the release year index.
+     *
+     * @param fromYear earliest release year, inclusive
+     * @param toYear   latest release year, inclusive
+     * @param limit    the most movies to return, clamped to 1..{@link #MAX_PAGE_SIZE}
+     * @return the matching movies
+     */
+    public List<HorrorMovieSQL> findReleasedBetween(int fromYear, int toYear, int limit) {
+        return findRange(max -> repository.findReleasedBetween(fromYear, toYear, max), limit);
+    }
+
+    /**
+     * Retrieves the movies on a streaming platform rated at least a score, highest rated first,
+     * through the platform and rating index.
+     *
+     * @param platform  the streaming platform; surrounding spaces are ignored
+     * @param minRating lowest rating, inclusive
+     * @param limit     the most movies to return, clamped to 1..{@link #MAX_PAGE_SIZE}
+     * @return the matching movies
+     */
+    public List<HorrorMovieSQL> findOnPlatformRatedAtLeast(String platform, double minRating, int limit) {
+        return findRange(max -> repository.findOnPlatformRatedAtLeast(platform.trim(), minRating, max), limit);
+    }
+
+    /**
+     * Retrieves the movies on a streaming platform watched between two dates, earliest first,
+     * through the platform and watch date index.
+     *
+     * @param platform the streaming platform; surrounding spaces are ignored
+     * @param from     earliest watch date, inclusive
+     * @param to       latest watch date, inclusive
+     * @param limit    the most movies to return, clamped to 1..{@link #MAX_PAGE_SIZE}
+     * @return the matching movies
+     */
+    public List<HorrorMovieSQL> findOnPlatformWatchedBetween(String platform, LocalDate from, LocalDate to, int limit) {
+        return findRange(max -> repository.findOnPlatformWatchedBetween(platform.trim(), from, to, max), limit);
+    }
+
+    //Runs one of the indexed range queries with a clamped limit and times it
+    private List<HorrorMovieSQL> findRange(IntFunction<List<HorrorMovieSQL>> query, int limit) {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            List<HorrorMovieSQL> movies = query.apply(Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+            success = true;
+            return movies;
+        } finally {
+            metrics.record(Operation.RANGE, start, success);
+        }
     }
 
     /**
-     * Retrieves all horror movies from the repository.
+     * Returns the columnar copy of the catalog, e.g. to read its size.
      *
-     * @return a list of all horror movies
+     * @return the catalog columns
      */
-    public List<HorrorMovieSQL> viewMovies() {
-        return repository.findAll();
+    public CatalogColumns getCatalogColumns() {
+        return columns;
     }
 
     /**
@@ -62,158 +341,655 @@ public class slasherStatsManager {
      * @return true if the movie was added successfully, false if not
      */
     public boolean addMovie(HorrorMovieSQL movie) {
+        long start = System.nanoTime();
+        boolean added = insertMovie(movie);
+        metrics.record(Operation.ADD, start, added);
+        return added;
+    }
+
+    private boolean insertMovie(HorrorMovieSQL movie) {
         if (movie == null) return false;
         // Validate date
         if (movie.getDateWatched() == null) return false;
         // Validate rating
         if (movie.getRating() < 0.0 || movie.getRating() > 10.0) return false;
         //Add movie to repository
-        repository.save(movie);
-        //Add points to account points
-        accountPoints += 10;
+        catalogLock.readLock().lock();
+        try {
+            repository.save(movie);
+            //Add points to account points
+            points.moviesChanged(1);
+            notifyListeners(listener -> listener.movieAdded(movie));
+        } finally {
+            catalogLock.readLock().unlock();
+        }
         return true;
     }
 
     /**
      * Adds multiple horror movies from a TXT formatted MultipartFile.
+     * Valid rows are written in chunks of {@link #getBulkChunkSize()} rows, one commit per chunk.
+     * Lines that fail to parse or validate are listed in {@link #getLastImportReport()}.
      *
      * @param file the uploaded TXT file
      * @return list of successfully added movies
-     *  * @throws java.io.IOException if reading from the MultipartFile stream fails
-     *  * @throws java.lang.NumberFormatException if numeric parsing fails for rating
      */
     public List<HorrorMovieSQL> addBulkMovies(MultipartFile file) {
         //List to hold all added movies
         List<HorrorMovieSQL> added = new ArrayList<>();
-        //Define the expected date format
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MM-yyyy");
-
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(file.getInputStream()))) {
-            String line;
-            //Reads the file line by line
-            while ((line = reader.readLine()) != null) {
-                //Splits the lines into its fields using ,
-                String[] fields = line.split(",");
-                //Skip any lines that do not meet the field count requirement
-                if (fields.length != 8) continue;
-
-                try {
-                    //Separates all fields
-                    String title = fields[0].trim();
-                    String director = fields[1].trim();
-                    int releaseYear = Integer.parseInt(fields[2].trim());
-                    int runtime = Integer.parseInt(fields[3].trim());
-                    String platform = fields[4].trim();
-                    double rating = Double.parseDouble(fields[5].trim());
-                    String tags = fields[6].trim();
-                    LocalDate dateWatched = LocalDate.parse(fields[7].trim(), formatter);
-                    //Rating validation check
-                    if (rating >= 0.0 && rating <= 10.0) {
-                        //If validation passes, create horror movie object
-                        HorrorMovieSQL movie = new HorrorMovieSQL(
-                                title, director, releaseYear, runtime, platform, rating, tags, dateWatched
-                        );
-                        //save the movie and add points to account
-                        repository.save(movie);
-                        accountPoints += 10;
-                        added.add(movie);
-                    }
-                //If validation fails, ignore the line
-                } catch (Exception ignored) {
-                }
-            }
+        long start = System.nanoTime();
+        BulkImportReport report = new BulkImportReport(bulkChunkSize);
+        report.setTotalBytes(file.getSize());
+        boolean read = false;
+
+        try (ReadableByteChannel channel = Channels.newChannel(file.getInputStream())) {
+            importChannel(channel, report, added);
+            read = true;
         //Handles the file reading errors
         } catch (Exception e) {
             System.out.println("Error reading MultipartFile: " + e.getMessage());
         }
+        finishImport(report, start, read, Operation.BULK_IMPORT);
         //Return list of movies
         return added;
     }
 
     /**
      * Adds multiple horror movies from a file path.
+     * Valid rows are written in chunks of {@link #getBulkChunkSize()} rows, one commit per chunk.
+     * Lines that fail to parse or validate are listed in {@link #getLastImportReport()}.
      *
      * @param filename the path to the CSV file
      * @return list of successfully added movies
-     * @throws java.io.FileNotFoundException if the file does not exist at the given path
-     * @throws java.lang.NumberFormatException if parsing integers or doubles fails
      */
     public List<HorrorMovieSQL> addBulkMovies(String filename) {
         List<HorrorMovieSQL> added = new ArrayList<>();
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MM-yyyy");
-
-        try (Scanner fileScanner = new Scanner(new File(filename))) {
-            while (fileScanner.hasNextLine()) {
-                String line = fileScanner.nextLine();
-                String[] fields = line.split(",");
-                //Skip any lines that do not meet the field count requirement
-                if (fields.length != 8) continue;
-
-                try {
-                    //Separates all fields
-                    String title = fields[0].trim();
-                    String director = fields[1].trim();
-                    int releaseYear = Integer.parseInt(fields[2].trim());
-                    int runtime = Integer.parseInt(fields[3].trim());
-                    String platform = fields[4].trim();
-                    double rating = Double.parseDouble(fields[5].trim());
-                    String tags = fields[6].trim();
-                    LocalDate dateWatched = LocalDate.parse(fields[7].trim(), formatter);
-                    //Rating validation check
-                    if (rating >= 0.0 && rating <= 10.0) {
-                        //If validation passes, create horror movie object
-                        HorrorMovieSQL movie = new HorrorMovieSQL(
-                                title, director, releaseYear, runtime, platform, rating, tags, dateWatched
-                        );
-                        //save the movie and add points to account
-                        repository.save(movie);
-                        accountPoints += 10;
-                        added.add(movie);
-                    }
-                } catch (Exception ignored) {
-                }
-            }
+        long start = System.nanoTime();
+        BulkImportReport report = new BulkImportReport(bulkChunkSize);
+        boolean read = false;
+
+        try {
+            importFile(Path.of(filename), report, added);
+            read = true;
         } catch (Exception e) {
             System.out.println("Error reading file: " + e.getMessage());
         }
+        finishImport(report, start, read, Operation.BULK_IMPORT);
         //Return list of movies
         return added;
     }
 
+    /**
+     * Imports a bulk movie file without keeping the added movies in memory, so it can be used
+     * for files of any size. The report can be read from another thread while the import runs.
+     *
+     * @param file   the bulk file to import
+     * @param report the report that receives progress and the final counts
+     * @throws IOException if the file cannot be read
+     */
+    public void importBulkMovies(Path file, BulkImportReport report) throws IOException {
+        long start = System.nanoTime();
+        report.markStarted();
+        boolean read = false;
+        try {
+            importFile(file, report, null);
+            read = true;
+        } finally {
+            finishImport(report, start, read, Operation.BULK_IMPORT);
+        }
+    }
+
+    /**
+     * Writes every movie in the database to {@code out}, streamed from a database cursor so that
+     * memory use does not depend on the size of the catalog. CSV exports can be uploaded again
+     * with {@link #addBulkMovies(MultipartFile)}.
+     *
+     * @param format how each movie is written
+     * @param out    where the export is written; flushed but not closed
+     * @return the number of movies written
+     * @throws IOException if writing to {@code out} fails, e.g. because the client went away
+     */
+    public long exportMovies(CatalogExport.Format format, OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        boolean exported = false;
+        try {
+            long movies = CatalogExport.write(repository, format, out);
+            exported = true;
+            return movies;
+        } finally {
+            metrics.record(Operation.EXPORT, start, exported);
+        }
+    }
+
+    /**
+     * Writes every movie in the database to a binary snapshot, streamed from a database cursor.
+     * A snapshot is several times smaller than a CSV export and is restored with
+     * {@link #restoreSnapshot(ReadableByteChannel, BulkImportReport)} without any text parsing.
+     *
+     * @param channel where the snapshot is written; not closed
+     * @return the number of movies written
+     * @throws IOException if writing to the channel fails
+     */
+    public long writeSnapshot(WritableByteChannel channel) throws IOException {
+        long start = System.nanoTime();
+        boolean written = false;
+        try {
+            SnapshotWriter writer = new SnapshotWriter(channel);
+            try {
+                repository.streamMovies(movie -> {
+                    try {
+                        writer.write(movie);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            writer.finish();
+            written = true;
+            return writer.getMovies();
+        } finally {
+            metrics.record(Operation.SNAPSHOT, start, written);
+        }
+    }
+
+    /**
+     * Adds every movie in a snapshot to the database. Movies are written in chunks of
+     * {@link #getBulkChunkSize()} through the same batched inserts as bulk imports, and get new
+     * ids; movies already in the table are kept. A damaged snapshot stops the restore with the
+     * chunks before the damage already written.
+     *
+     * @param channel where the snapshot is read from; not closed
+     * @param report  the report that receives progress and the final counts, where a rejected
+     *                "line" is the movie's position in the snapshot
+     * @throws IOException if the snapshot cannot be read or is damaged
+     */
+    public void restoreSnapshot(ReadableByteChannel channel, BulkImportReport report) throws IOException {
+        long start = System.nanoTime();
+        report.markStarted();
+        boolean read = false;
+        try {
+            SnapshotReader reader = new SnapshotReader(channel);
+            List<HorrorMovieSQL> chunk = new ArrayList<>(bulkChunkSize);
+            long[] positions = new long[bulkChunkSize];
+            long bytesReported = 0;
+            for (HorrorMovieSQL movie = reader.next(); movie != null; movie = reader.next()) {
+                report.rowRead();
+                positions[chunk.size()] = report.getRowsRead();
+                chunk.add(movie);
+                if (chunk.size() == bulkChunkSize) {
+                    report.bytesProcessed(reader.getBytesRead() - bytesReported);
+                    bytesReported = reader.getBytesRead();
+                    writeChunk(chunk, positions, report, null);
+                    //Listeners may hold on to the written chunk, so the next one gets a new list
+                    chunk = new ArrayList<>(bulkChunkSize);
+                }
+            }
+            report.bytesProcessed(reader.getBytesRead() - bytesReported);
+            writeChunk(chunk, positions, report, null);
+            read = true;
+        } finally {
+            finishImport(report, start, read, Operation.RESTORE);
+        }
+    }
+
+    /**
+     * Returns the report of the most recent bulk import, including rows/sec and per-chunk latency.
+     *
+     * @return the last import report, or {@code null} if no bulk import has run yet
+     */
+    public BulkImportReport getLastImportReport() {
+        return lastImportReport;
+    }
+
+    /**
+     * Returns the number of rows written per chunk during bulk imports.
+     *
+     * @return the bulk chunk size
+     */
+    public int getBulkChunkSize() {
+        return bulkChunkSize;
+    }
+
+    /**
+     * Sets the number of rows written per chunk during bulk imports.
+     *
+     * @param bulkChunkSize rows per chunk, must be at least 1
+     */
+    @Value("${slasherstats.bulk.chunk-size:" + DEFAULT_BULK_CHUNK_SIZE + "}")
+    public void setBulkChunkSize(int bulkChunkSize) {
+        if (bulkChunkSize < 1) throw new IllegalArgumentException("Bulk chunk size must be at least 1");
+        this.bulkChunkSize = bulkChunkSize;
+    }
+
+    /**
+     * Returns the number of parse/validate threads used by bulk imports.
+     *
+     * @return the number of parser threads
+     */
+    public int getBulkParseWorkers() {
+        return bulkParseWorkers;
+    }
+
+    /**
+     * Sets the number of parse/validate threads used by each bulk import.
+     * A value of 0 or less shares the available processors between the imports that may run at once,
+     * so that concurrent uploads do not take every core from interactive requests; each import still
+     * gets at least one thread.
+     *
+     * @param bulkParseWorkers number of parser threads per import
+     */
+    @Value("${slasherstats.bulk.parse-workers:0}")
+    public void setBulkParseWorkers(int bulkParseWorkers) {
+        this.configuredParseWorkers = Math.max(0, bulkParseWorkers);
+        updateBulkParseWorkers();
+    }
+
+    /**
+     * Sets how many bulk imports may run at the same time, which the default number of parse
+     * threads per import is divided by.
+     *
+     * @param maxConcurrentImports number of concurrent imports, at least 1
+     * @throws IllegalArgumentException if the number is less than 1
+     */
+    @Value("${slasherstats.import.max-concurrent:2}")
+    public void setMaxConcurrentImports(int maxConcurrentImports) {
+        if (maxConcurrentImports < 1) throw new IllegalArgumentException("Import concurrency must be at least 1");
+        this.maxConcurrentImports = maxConcurrentImports;
+        updateBulkParseWorkers();
+    }
+
+    private void updateBulkParseWorkers() {
+        bulkParseWorkers = configuredParseWorkers > 0 ? configuredParseWorkers
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / maxConcurrentImports);
+    }
+
+    //Reads the file straight through an NIO channel instead of a Scanner
+    private void importFile(Path file, BulkImportReport report, List<HorrorMovieSQL> added) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            report.setTotalBytes(channel.size());
+            importChannel(channel, report, added);
+        }
+    }
+
+    //Runs a bulk file through the reader -> parsers -> writer pipeline, writing valid movies chunk by chunk
+    private void importChannel(ReadableByteChannel channel, BulkImportReport report, List<HorrorMovieSQL> added) throws IOException {
+        new BulkImportPipeline(bulkParseWorkers, bulkChunkSize, (chunk, lines) -> writeChunk(chunk, lines, report, added))
+                .run(channel, report);
+    }
+
+    //Writes one chunk in a single transaction and adds points for every row that went in.
+    //Written movies are collected into added unless it is null.
+    private void writeChunk(List<HorrorMovieSQL> chunk, long[] lineNumbers, BulkImportReport report, List<HorrorMovieSQL> added) {
+        if (chunk.isEmpty()) return;
+        long start = System.nanoTime();
+        List<HorrorMovieSQL> written;
+        catalogLock.readLock().lock();
+        try {
+            List<HorrorMovieSQL> failed;
+            try {
+                failed = repository.insertChunk(chunk);
+            } catch (Exception e) {
+                //The whole chunk could not be written, e.g. the connection was lost
+                System.out.println("Error writing movie chunk: " + e.getMessage());
+                failed = chunk;
+            }
+            written = withoutFailed(chunk, failed, lineNumbers, report);
+            List<HorrorMovieSQL> committed = written;
+            //Add points to account for every movie written
+            points.moviesChanged(written.size());
+            notifyListeners(listener -> listener.moviesAdded(committed));
+        } finally {
+            catalogLock.readLock().unlock();
+        }
+        report.chunkWritten(written.size(), System.nanoTime() - start);
+        if (added != null) added.addAll(written);
+    }
+
+    //Returns the rows of a chunk that were written and reports the failed ones, matched by identity
+    private static List<HorrorMovieSQL> withoutFailed(List<HorrorMovieSQL> chunk, List<HorrorMovieSQL> failed,
+                                                      long[] lineNumbers, BulkImportReport report) {
+        if (failed.isEmpty()) return chunk;
+        Set<HorrorMovieSQL> failedRows = Collections.newSetFromMap(new IdentityHashMap<>());
+        failedRows.addAll(failed);
+        List<HorrorMovieSQL> written = new ArrayList<>(chunk.size() - failedRows.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            if (failedRows.contains(chunk.get(i))) {
+                report.rowRejected(lineNumbers[i], BulkRejectReason.WRITE_FAILED);
+            } else {
+                written.add(chunk.get(i));
+            }
+        }
+        return written;
+    }
+
+    //Publishes the report and records the import; read is false if the file could not be read to the end
+    private void finishImport(BulkImportReport report, long startNanos, boolean read, Operation operation) {
+        report.finish();
+        metrics.record(operation, startNanos, read);
+        metrics.recordImport(report);
+        lastImportReport = report;
+        System.out.println(report);
+    }
+
     /**
      * Updates an existing movie's fields based on title matching and saves the changes.
+     * Only the fields that differ from the stored movie are written. If the movie carries a
+     * version, the update is turned away when the stored movie has moved past it.
      *
      * @param updatedMovie a HorrorMovieSQL object with updated field values
      * @return true if the movie was found and updated successfully, false otherwise
      */
     public boolean updateMovie(HorrorMovieSQL updatedMovie) {
-        HorrorMovieSQL existingMovie = repository.findByTitleIgnoreCase(updatedMovie.getTitle());
-        if (existingMovie == null) {
+        return editMovie(updatedMovie).outcome() == MovieUpdate.Outcome.UPDATED;
+    }
+
+    /**
+     * Updates an existing movie like {@link #updateMovie(HorrorMovieSQL)}, and tells why an update
+     * was turned away.
+     *
+     * @param updatedMovie the movie with its new field values, and the version they are based on if known
+     * @return the outcome and the movie as it is now
+     */
+    public MovieUpdate editMovie(HorrorMovieSQL updatedMovie) {
+        Map<MovieField, Object> values = new EnumMap<>(MovieField.class);
+        //Every field is handed over; those equal to the stored movie are left out of the write
+        for (MovieField field : MovieField.values()) values.put(field, field.valueOf(updatedMovie));
+        return changeMovie(updatedMovie.getTitle(), updatedMovie.getVersion(), values);
+    }
+
+    /**
+     * Changes some fields of a movie, writing only those columns. With an expected version the
+     * change is optimistic: if the movie was changed since that version nothing is written and the
+     * outcome is {@link MovieUpdate.Outcome#CONFLICT}, so the caller can reload and try again.
+     *
+     * @param title           the title of the movie to change
+     * @param expectedVersion the version the changes are based on, or {@code null} for the stored one
+     * @param changes         the new values as text, see {@link MovieField#parseValue(String)}
+     * @return the outcome and the movie as it is now
+     */
+    public MovieUpdate patchMovie(String title, Long expectedVersion, Map<MovieField, String> changes) {
+        Map<MovieField, Object> values = new EnumMap<>(MovieField.class);
+        try {
+            changes.forEach((field, text) -> values.put(field, parseFieldValue(field, text)));
+        } catch (IllegalArgumentException e) {
+            return MovieUpdate.rejected(MovieUpdate.Outcome.INVALID, null, e.getMessage());
+        }
+        return changeMovie(title, expectedVersion, values);
+    }
+
+    private MovieUpdate changeMovie(String title, Long expectedVersion, Map<MovieField, Object> values) {
+        long start = System.nanoTime();
+        MovieUpdate result = null;
+        catalogLock.readLock().lock();
+        try {
+            result = changeMovieLocked(title, expectedVersion, values);
+            return result;
+        } finally {
+            catalogLock.readLock().unlock();
+            metrics.record(Operation.UPDATE, start, result != null && result.outcome() == MovieUpdate.Outcome.UPDATED);
+        }
+    }
+
+    private MovieUpdate changeMovieLocked(String title, Long expectedVersion, Map<MovieField, Object> values) {
+        HorrorMovieSQL existing = lookupByTitle(title);
+        if (existing != null && expectedVersion != null && !expectedVersion.equals(existing.getVersion())) {
+            //The cached copy may be behind the table; only the stored row can tell whether the version is stale
+            existing = repository.findById(existing.getId()).orElse(null);
+        }
+        if (existing == null) {
             System.out.println("Movie not found.");
-            return false;
+            return MovieUpdate.rejected(MovieUpdate.Outcome.NOT_FOUND, null, "Movie with title '" + title + "' not found.");
+        }
+        if (expectedVersion != null && !expectedVersion.equals(existing.getVersion())) {
+            return MovieUpdate.rejected(MovieUpdate.Outcome.CONFLICT, existing, "The movie was changed by someone else.");
         }
 
-        existingMovie.setDirector(updatedMovie.getDirector());
-        existingMovie.setReleaseYear(updatedMovie.getReleaseYear());
-        existingMovie.setRuntimeMinutes(updatedMovie.getRuntimeMinutes());
-        existingMovie.setStreamingPlatform(updatedMovie.getStreamingPlatform());
-        existingMovie.setRating(updatedMovie.getRating());
-        existingMovie.setTags(updatedMovie.getTags());
-        existingMovie.setDateWatched(updatedMovie.getDateWatched());
+        HorrorMovieSQL before = existing;
+        HorrorMovieSQL changed = new HorrorMovieSQL(existing);
+        boolean dirty = false;
+        try {
+            for (Map.Entry<MovieField, Object> value : values.entrySet()) {
+                MovieField field = value.getKey();
+                if (Objects.equals(field.valueOf(before), value.getValue())) continue;
+                checkFieldValue(field, value.getValue());
+                field.apply(changed, value.getValue());
+                dirty = true;
+            }
+        } catch (IllegalArgumentException e) {
+            return MovieUpdate.rejected(MovieUpdate.Outcome.INVALID, before, e.getMessage());
+        }
+        if (!dirty) return MovieUpdate.updated(before);
 
-        repository.save(existingMovie);
+        //Hibernate writes just the changed columns, guarded by "WHERE id = ? AND version = ?"
+        HorrorMovieSQL saved;
+        try {
+            //The copy save hands back carries the version the database now holds
+            saved = repository.save(changed);
+        } catch (OptimisticLockingFailureException e) {
+            //Another write got in first; forget the cached copy so a reload sees the stored movie
+            catalogCache.movieChanged(before, null);
+            return MovieUpdate.rejected(MovieUpdate.Outcome.CONFLICT, null, "The movie was changed by someone else.");
+        }
+        notifyListeners(listener -> listener.movieUpdated(before, saved));
         System.out.println("Movie updated successfully.");
-        return true;
+        return MovieUpdate.updated(saved);
     }
 
     public boolean deleteMovie(String title) {
-        HorrorMovieSQL movie = repository.findByTitleIgnoreCase(title);
-        if (movie == null) return false;
-        repository.delete(movie);
-        accountPoints -= 10;
+        long start = System.nanoTime();
+        boolean deleted = false;
+        catalogLock.readLock().lock();
+        try {
+            HorrorMovieSQL movie = lookupByTitle(title);
+            if (movie == null) return false;
+            repository.delete(movie);
+            titleIds.remove(movie.getTitleKey());
+            points.moviesChanged(-1);
+            notifyListeners(listener -> listener.movieRemoved(movie));
+            deleted = true;
+        } finally {
+            catalogLock.readLock().unlock();
+            metrics.record(Operation.DELETE, start, deleted);
+        }
         return true;
     }
 
+    /**
+     * Deletes every movie with one of the given titles, matched ignoring case and surrounding spaces,
+     * with set-based statements rather than a lookup and a delete per title. Every movie sharing a
+     * listed title goes. Up to the {@linkplain #setBulkEventLimit bulk event limit} the deleted movies
+     * are read in the same transaction and the listeners are told about each one, as for a single
+     * delete; past it the listeners are rebuilt from the table.
+     *
+     * @param titles the titles to delete; blank entries are skipped
+     * @return the number of movies deleted
+     */
+    public int deleteMovies(Collection<String> titles) {
+        long start = System.nanoTime();
+        boolean deleted = false;
+        Set<String> keys = new LinkedHashSet<>();
+        for (String title : titles) {
+            if (title != null && !title.isBlank()) keys.add(HorrorMovieSQL.normalizeTitle(title));
+        }
+        BulkWrite removed;
+        catalogLock.readLock().lock();
+        try {
+            removed = keys.isEmpty() ? BulkWrite.NONE : repository.deleteByTitleKeys(keys, bulkEventLimit);
+            keys.forEach(titleIds::remove);
+            if (removed.rowsKnown() && !removed.rows().isEmpty()) {
+                points.moviesChanged(-removed.rows().size());
+                notifyListeners(listener -> removed.rows().forEach(listener::movieRemoved));
+            }
+            deleted = true;
+        } finally {
+            catalogLock.readLock().unlock();
+            metrics.record(Operation.BULK_DELETE, start, deleted);
+        }
+        if (!removed.rowsKnown()) rebuildCatalogListeners();
+        return removed.count();
+    }
+
+    /**
+     * Sets the streaming platform, tags or rating of every movie matching a filter with set-based
+     * statements rather than a lookup and an update per movie. Up to the
+     * {@linkplain #setBulkEventLimit bulk event limit} the changed movies are read in the same
+     * transaction and the listeners are told about each one, as for a single edit; past it the
+     * listeners are rebuilt from the table.
+     *
+     * @param filter which movies to change, {@link MovieFilter#ALL} for every movie
+     * @param field  the field to set, one of {@link #BULK_UPDATE_FIELDS}
+     * @param value  the new value as text; a rating must be 0.0 - 10.0 and a platform must not be blank
+     * @return the number of movies changed
+     * @throws IllegalArgumentException if the field cannot be set in bulk or the value is not valid for it
+     */
+    public int updateMovies(MovieFilter filter, MovieField field, String value) {
+        long start = System.nanoTime();
+        boolean updated = false;
+        if (!BULK_UPDATE_FIELDS.contains(field)) {
+            throw new IllegalArgumentException("Field '" + field.getProperty() + "' cannot be updated in bulk");
+        }
+        Object parsed = parseFieldValue(field, value);
+        BulkWrite changed;
+        catalogLock.readLock().lock();
+        try {
+            changed = repository.updateMatching(filter, field, parsed, bulkEventLimit);
+            if (changed.rowsKnown() && !changed.rows().isEmpty()) {
+                List<HorrorMovieSQL> before = changed.rows();
+                List<HorrorMovieSQL> after = new ArrayList<>(before.size());
+                for (HorrorMovieSQL movie : before) {
+                    HorrorMovieSQL copy = new HorrorMovieSQL(movie);
+                    field.apply(copy, parsed);
+                    after.add(copy);
+                }
+                notifyListeners(listener -> {
+                    for (int i = 0; i < before.size(); i++) listener.movieUpdated(before.get(i), after.get(i));
+                });
+            }
+            updated = true;
+        } finally {
+            catalogLock.readLock().unlock();
+            metrics.record(Operation.BULK_UPDATE, start, updated);
+        }
+        if (!changed.rowsKnown()) rebuildCatalogListeners();
+        return changed.count();
+    }
+
+    /**
+     * Returns how many movies a set-based delete or update reports to the catalog listeners one by one.
+     *
+     * @return the bulk event limit
+     */
+    public int getBulkEventLimit() {
+        return bulkEventLimit;
+    }
+
+    /**
+     * Sets how many movies a set-based delete or update reports to the catalog listeners one by one.
+     * Up to this many the changed rows are read before the write, in the same transaction, and each is
+     * applied to the listeners. A write touching more rebuilds the listeners from the table instead,
+     * which holds off every other write for one pass over the table. 0 always rebuilds.
+     *
+     * @param bulkEventLimit the most movies reported one by one, at least 0
+     */
+    @Value("${slasherstats.bulk.event-limit:" + DEFAULT_BULK_EVENT_LIMIT + "}")
+    public void setBulkEventLimit(int bulkEventLimit) {
+        if (bulkEventLimit < 0) throw new IllegalArgumentException("Bulk event limit must not be negative");
+        this.bulkEventLimit = bulkEventLimit;
+    }
+
+    //Parses and checks a new field value
+    private static Object parseFieldValue(MovieField field, String value) {
+        Object parsed;
+        try {
+            parsed = field.parseValue(value);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid " + field.getProperty() + ": " + value);
+        }
+        checkFieldValue(field, parsed);
+        return parsed;
+    }
+
+    //Holds a new field value to the same rules as the movie form
+    private static void checkFieldValue(MovieField field, Object value) {
+        boolean valid = switch (field) {
+            case DIRECTOR, PLATFORM -> value instanceof String text && !text.isBlank();
+            case RELEASE_YEAR -> value instanceof Integer year && year >= 1888;
+            case RUNTIME_MINUTES -> value instanceof Integer minutes && minutes >= 1;
+            case RATING -> value instanceof Double rating && rating >= 0.0 && rating <= 10.0;
+            case DATE_WATCHED -> value != null;
+            case TAGS -> true;
+        };
+        if (!valid) {
+            throw new IllegalArgumentException(switch (field) {
+                case DIRECTOR -> "Director is required";
+                case PLATFORM -> "Platform is required";
+                case RELEASE_YEAR -> "Year must be after 1888";
+                case RUNTIME_MINUTES -> "Runtime must be greater than 0";
+                case RATING -> "Rating must be between 0.0 and 10.0";
+                default -> "Date watched is required";
+            });
+        }
+    }
+
+    /**
+     * Rebuilds every catalog listener, such as the statistics, from the movie table in a single
+     * streaming pass, and resets the account points from the number of movies seen.
+     * Writes wait until the pass is done so that no change is missed or counted twice.
+     *
+     * @return the number of movies read
+     */
+    public long rebuildCatalogListeners() {
+        long start = System.nanoTime();
+        boolean rebuilt = false;
+        catalogLock.writeLock().lock();
+        try {
+            List<CatalogListener.Rebuild> rebuilds = new ArrayList<>();
+            for (CatalogListener listener : listeners) rebuilds.add(listener.startRebuild());
+            long movies = repository.forEachMovie(movie -> {
+                for (CatalogListener.Rebuild rebuild : rebuilds) rebuild.accept(movie);
+            });
+            rebuilds.forEach(CatalogListener.Rebuild::finish);
+            points.reset(movies);
+            //Picks up anything written to the table from outside the application
+            catalogVersion.incrementAndGet();
+            rebuilt = true;
+            return movies;
+        } finally {
+            catalogLock.writeLock().unlock();
+            metrics.record(Operation.REBUILD, start, rebuilt);
+        }
+    }
+
+    /**
+     * Loads the catalog listeners from the table once the application has started.
+     */
+    @EventListener(ApplicationStartedEvent.class)
+    public void rebuildCatalogListenersOnStartup() {
+        long start = System.nanoTime();
+        try {
+            long movies = rebuildCatalogListeners();
+            System.out.printf("Catalog statistics and indexes loaded from %d movies in %d ms%n", movies, (System.nanoTime() - start) / 1_000_000);
+        } catch (Exception e) {
+            System.out.println("Could not load catalog statistics and indexes: " + e.getMessage());
+        }
+    }
+
+    //Tells every listener about a committed change; a failing listener does not undo the write.
+    //Called after the points are updated, and the version goes up last, so a page rendered under the new
+    //version cannot have been read before the points and listeners caught up
+    private void notifyListeners(Consumer<CatalogListener> event) {
+        for (CatalogListener listener : listeners) {
+            try {
+                event.accept(listener);
+            } catch (RuntimeException e) {
+                System.out.println("Catalog listener " + listener.getClass().getSimpleName() + " failed: " + e.getMessage());
+            }
+        }
+        catalogVersion.incrementAndGet();
+    }
+
     /**
      * Deletes a movie from the repository using its title.
      *
@@ -221,12 +997,132 @@ public class slasherStatsManager {
      * @return true if deletion was successful, false otherwise
      */
     public HorrorMovieSQL findMovie(String title) {
-        return repository.findByTitleIgnoreCase(title);
+        long start = System.nanoTime();
+        HorrorMovieSQL movie = lookupByTitle(title);
+        metrics.record(Operation.FIND, start, movie != null);
+        return movie;
     }
 
+    /**
+     * Sets how many titles have their movie id remembered for single-movie lookups.
+     *
+     * @param titleCacheSize number of titles to remember, 0 to turn the cache off
+     */
+    @Value("${slasherstats.title-cache.size:" + DEFAULT_TITLE_CACHE_SIZE + "}")
+    public void setTitleCacheSize(int titleCacheSize) {
+        titleIds.setMaxEntries(titleCacheSize);
+    }
+
+    /**
+     * Returns the read-through cache for listing pages and title lookups, e.g. to read its counters.
+     *
+     * @return the catalog cache
+     */
+    public CatalogCache getCatalogCache() {
+        return catalogCache;
+    }
+
+    /**
+     * Sets how many listing pages the catalog cache keeps.
+     *
+     * @param pages number of pages, 0 to stop caching pages
+     */
+    @Value("${slasherstats.catalog-cache.pages:" + CatalogCache.DEFAULT_MAX_PAGES + "}")
+    public void setCatalogCachePages(int pages) {
+        catalogCache.setMaxPages(pages);
+    }
+
+    /**
+     * Sets how many title lookups the catalog cache keeps.
+     *
+     * @param lookups number of lookups, 0 to stop caching lookups
+     */
+    @Value("${slasherstats.catalog-cache.lookups:" + CatalogCache.DEFAULT_MAX_LOOKUPS + "}")
+    public void setCatalogCacheLookups(int lookups) {
+        catalogCache.setMaxLookups(lookups);
+    }
+
+    /**
+     * Sets how long the catalog cache serves an entry before loading it again. This bounds how long
+     * writes made outside the application can go unseen.
+     *
+     * @param ttlMillis time to live in milliseconds
+     */
+    @Value("${slasherstats.catalog-cache.ttl-ms:60000}")
+    public void setCatalogCacheTtlMillis(long ttlMillis) {
+        catalogCache.setTtl(Duration.ofMillis(ttlMillis));
+    }
+
+    //Finds a movie by title, served from the catalog cache while it holds the title. Otherwise goes straight
+    //to the primary key when the title has been looked up before; a cached id is only trusted if the movie
+    //it points to still has that title.
+    private HorrorMovieSQL lookupByTitle(String title) {
+        if (title == null) return null;
+        String key = HorrorMovieSQL.normalizeTitle(title);
+        HorrorMovieSQL cached = catalogCache.getLookup(key);
+        if (cached != null) return cached;
+
+        long generation = catalogCache.generation();
+        HorrorMovieSQL movie = null;
+        Integer id = titleIds.get(key);
+        if (id != null) {
+            movie = repository.findById(id).orElse(null);
+            if (movie == null || !key.equals(movie.getTitleKey())) {
+                titleIds.remove(key);
+                movie = null;
+            }
+        }
+        if (movie == null) {
+            movie = repository.findByTitleIgnoreCase(title);
+            if (movie != null) titleIds.put(key, movie.getId());
+        }
+        if (movie != null) catalogCache.putLookup(key, movie, generation);
+        return movie;
+    }
+
+    /**
+     * Resets the account points from the number of movies in the database, using a
+     * {@code COUNT(*)} rather than loading every movie. Goes through the same locked
+     * reconciliation as {@link #reconcilePoints()}, so a write committed while the count
+     * runs is never overwritten.
+     *
+     * @return the account points once recalculated
+     */
     public int recalculatePoints() {
-        this.accountPoints = repository.findAll().size() * 10;
-        return this.accountPoints;
+        long start = System.nanoTime();
+        reconcilePointsLocked();
+        metrics.record(Operation.RECALCULATE_POINTS, start, true);
+        return getAccountPoints();
+    }
+
+    /**
+     * Checks the account points against the number of movies in the database and corrects any drift,
+     * e.g. from rows written or removed outside the application.
+     *
+     * @return how many points the balance was corrected by, 0 if it was already right
+     */
+    public long reconcilePoints() {
+        long start = System.nanoTime();
+        long drift = reconcilePointsLocked();
+        metrics.record(Operation.RECONCILE_POINTS, start, true);
+        return drift;
+    }
+
+    //Writes commit and adjust the points under the read side, so holding the write side while counting
+    //means no write sits between its commit and its adjustment
+    private long reconcilePointsLocked() {
+        long drift;
+        catalogLock.writeLock().lock();
+        try {
+            drift = points.reconcile(repository::count);
+        } finally {
+            catalogLock.writeLock().unlock();
+        }
+        if (drift != 0) {
+            catalogVersion.incrementAndGet();
+            System.out.println("Account points were off by " + (-drift) + ", corrected to " + points.get());
+        }
+        return drift;
     }
 
 }
@@ -2,21 +2,30 @@
 package com.slasherstats;
 
 import com.slasherstats.model.HorrorMovieSQL;
+import com.slasherstats.repository.MovieField;
+import com.slasherstats.repository.MovieFilter;
+import com.slasherstats.repository.MovieSort;
+import com.slasherstats.service.BulkImportReport;
+import com.slasherstats.service.MoviePage;
 import com.slasherstats.service.slasherStatsManager;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Scanner;
 
 
 //This class is marked as a spring bean so it can be discovered by spring.
 //This class will run a method when the app starts.
+//It can be turned off with slasherstats.cli.enabled=false when nobody is at the console, e.g. the embedded profile.
 @Component
+@ConditionalOnProperty(prefix = "slasherstats.cli", name = "enabled", havingValue = "true", matchIfMissing = true)
 public class slasherStatsApp implements CommandLineRunner {
     //Used to access the CRUD operations and reading input from the user console.
     private final slasherStatsManager appManager;
@@ -54,14 +63,30 @@ public class slasherStatsApp implements CommandLineRunner {
                     String filename = scanner.nextLine();
                     List<HorrorMovieSQL> bulkAdded = appManager.addBulkMovies(filename);
                     System.out.println("Added " + bulkAdded.size() + " movies.");
+                    //Lists the first rejected lines so the file can be fixed
+                    BulkImportReport report = appManager.getLastImportReport();
+                    report.getRejectedLines().stream().limit(10).forEach(rejected ->
+                            System.out.println("Skipped line " + rejected.lineNumber() + ": " + rejected.reason()));
+                    if (report.getRowsRejected() > 10) {
+                        System.out.println("... and " + (report.getRowsRejected() - 10) + " more skipped lines.");
+                    }
                     break;
-                //View all movies
+                //View all movies, one page at a time
                 case "3":
-                    List<HorrorMovieSQL> allMovies = appManager.viewMovies();
-                    if (allMovies.isEmpty()) {
+                    System.out.print("Sort by (title, rating, releaseYear, dateWatched) [title]: ");
+                    MovieSort sort = MovieSort.fromProperty(scanner.nextLine().trim());
+                    MoviePage page = appManager.viewMovies(sort, false, null, slasherStatsManager.DEFAULT_PAGE_SIZE);
+                    if (page.movies().isEmpty()) {
                         System.out.println("No movies in the database.");
-                    } else {
-                        allMovies.forEach(System.out::println);
+                        break;
+                    }
+                    page.movies().forEach(System.out::println);
+                    //Loads the next page only when asked for
+                    while (page.hasNext()) {
+                        System.out.print("Press Enter for the next page or q to return to the menu: ");
+                        if (scanner.nextLine().trim().equalsIgnoreCase("q")) break;
+                        page = appManager.viewMovies(sort, false, page.nextCursor(), slasherStatsManager.DEFAULT_PAGE_SIZE);
+                        page.movies().forEach(System.out::println);
                     }
                     break;
                 //Update a movie. Any field is able to be updated.
@@ -124,8 +149,25 @@ public class slasherStatsApp implements CommandLineRunner {
                 case "6":
                     System.out.println("Account points: " + appManager.getAccountPoints());
                     break;
-                //Sets running to false and closes the application.
+                //Deletes a list of titles in one go
                 case "7":
+                    System.out.println("Enter the titles to delete, one per line, and an empty line to finish:");
+                    List<String> titles = new ArrayList<>();
+                    for (String line = scanner.nextLine(); !line.isBlank(); line = scanner.nextLine()) {
+                        titles.add(line);
+                    }
+                    try {
+                        System.out.println("Deleted " + appManager.deleteMovies(titles) + " movies.");
+                    } catch (Exception e) {
+                        System.out.println("Delete failed: " + e.getMessage());
+                    }
+                    break;
+                //Sets one field on every movie matching a filter
+                case "8":
+                    bulkUpdate();
+                    break;
+                //Sets running to false and closes the application.
+                case "9":
                     running = false;
                     System.out.println("System is powering down...");
                     break;
@@ -144,10 +186,54 @@ public class slasherStatsApp implements CommandLineRunner {
         System.out.println("4. Update Movie Entry");
         System.out.println("5. Delete Movie Entry");
         System.out.println("6. View Account Points");
-        System.out.println("7. Exit");
+        System.out.println("7. Delete Several Movies");
+        System.out.println("8. Bulk Update Movies");
+        System.out.println("9. Exit");
         System.out.print("Enter your choice: ");
     }
 
+    //Asks for a field, its new value and which movies to change, then changes them all with one update
+    private void bulkUpdate() {
+        System.out.print("Field to set (platform, tags, rating): ");
+        MovieField field = MovieField.fromProperty(scanner.nextLine().trim());
+        if (field == null) {
+            System.out.println("Invalid field.");
+            return;
+        }
+        System.out.print("Enter the new value: ");
+        String value = scanner.nextLine();
+        System.out.println("Choose the movies to change. Press Enter to skip a condition.");
+        try {
+            MovieFilter filter = new MovieFilter(
+                    optionalDouble("Lowest rating: "), optionalDouble("Highest rating: "),
+                    optionalInt("Earliest release year: "), optionalInt("Latest release year: "),
+                    null, null,
+                    optionalText("Current streaming platform: "), optionalText("Director: "),
+                    null, null);
+            System.out.println("Updated " + appManager.updateMovies(filter, field, value) + " movies.");
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid number.");
+        } catch (Exception e) {
+            System.out.println("Update failed: " + e.getMessage());
+        }
+    }
+
+    private String optionalText(String prompt) {
+        System.out.print(prompt);
+        String input = scanner.nextLine().trim();
+        return input.isEmpty() ? null : input;
+    }
+
+    private Double optionalDouble(String prompt) {
+        String input = optionalText(prompt);
+        return input == null ? null : Double.valueOf(input);
+    }
+
+    private Integer optionalInt(String prompt) {
+        String input = optionalText(prompt);
+        return input == null ? null : Integer.valueOf(input);
+    }
+
     //Fields that are shown for user to input when adding a single movie.
     private HorrorMovieSQL movieFields() {
         try {
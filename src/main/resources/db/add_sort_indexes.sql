@@ -0,0 +1,9 @@
+-- Adds the indexes the paged movie listing sorts by to an existing slasherstats_db.
+-- Each leads with the sort column and ends with the id tiebreaker, so a page is one index range.
+-- New databases created from slasherStats.sql already have them.
+USE slasherstats_db;
+
+CREATE INDEX idx_horror_movies_title ON horror_movies (title, id);
+CREATE INDEX idx_horror_movies_rating ON horror_movies (rating, id);
+CREATE INDEX idx_horror_movies_release_year ON horror_movies (release_year, id);
+CREATE INDEX idx_horror_movies_date_watched ON horror_movies (date_watched, id);
@@ -0,0 +1,11 @@
+-- Adds the normalized, indexed title key to an existing slasherstats_db.
+-- New databases created from slasherStats.sql already have it.
+USE slasherstats_db;
+
+ALTER TABLE horror_movies ADD COLUMN title_key VARCHAR(255) NULL AFTER title;
+
+UPDATE horror_movies SET title_key = LOWER(TRIM(title));
+
+ALTER TABLE horror_movies MODIFY title_key VARCHAR(255) NOT NULL;
+
+CREATE INDEX idx_horror_movies_title_key ON horror_movies (title_key);
@@ -0,0 +1,5 @@
+-- Adds the optimistic lock version to an existing slasherstats_db.
+-- New databases created from slasherStats.sql already have it.
+USE slasherstats_db;
+
+ALTER TABLE horror_movies ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,27 @@
+-- Turns date_watched of an existing slasherstats_db from text into a DATE column and adds the
+-- platform range indexes. New databases created from slasherStats.sql already have both.
+-- Run add_sort_indexes.sql first: the watch date and release year ranges use its
+-- (date_watched, id) and (release_year, id) indexes, and range_indexes below should count 2.
+-- Dates are read as yyyy-MM-dd, the format the application writes, or as MM-dd-yyyy;
+-- anything else becomes NULL, so check the unreadable_dates count before running the rest.
+USE slasherstats_db;
+
+SELECT COUNT(DISTINCT index_name) AS range_indexes FROM information_schema.statistics
+WHERE table_schema = 'slasherstats_db' AND table_name = 'horror_movies'
+  AND index_name IN ('idx_horror_movies_date_watched', 'idx_horror_movies_release_year');
+
+SELECT COUNT(*) AS unreadable_dates FROM horror_movies
+WHERE date_watched NOT REGEXP '^[0-9]{4}-[0-9]{2}-[0-9]{2}$'
+  AND date_watched NOT REGEXP '^[0-9]{2}-[0-9]{2}-[0-9]{4}$';
+
+UPDATE horror_movies SET date_watched = CASE
+    WHEN date_watched REGEXP '^[0-9]{4}-[0-9]{2}-[0-9]{2}$' THEN date_watched
+    WHEN date_watched REGEXP '^[0-9]{2}-[0-9]{2}-[0-9]{4}$'
+        THEN CONCAT(SUBSTRING(date_watched, 7, 4), '-', SUBSTRING(date_watched, 1, 5))
+END;
+
+-- Any index on the column is kept and rebuilt over the new type
+ALTER TABLE horror_movies MODIFY date_watched DATE NULL;
+
+CREATE INDEX idx_horror_movies_platform_rating ON horror_movies (streaming_platform, rating, id);
+CREATE INDEX idx_horror_movies_platform_date_watched ON horror_movies (streaming_platform, date_watched, id);
@@ -0,0 +1,7 @@
+-- Trims the directors and streaming platforms already stored in an existing slasherstats_db.
+-- The application now stores them trimmed and filters compare the columns directly.
+USE slasherstats_db;
+
+UPDATE horror_movies
+SET director = TRIM(director), streaming_platform = TRIM(streaming_platform)
+WHERE director <> TRIM(director) OR streaming_platform <> TRIM(streaming_platform);
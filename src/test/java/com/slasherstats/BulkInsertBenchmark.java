@@ -0,0 +1,103 @@
+package com.slasherstats;
+
+import com.slasherstats.model.HorrorMovieSQL;
+import com.slasherstats.repository.HorrorMovieBulkRepositoryImpl;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the old one-transaction-per-row bulk write against chunked JDBC batches.
+ * Runs against a file-backed H2 database so every commit is a real commit.
+ * Only runs with {@code mvn test -Pperf}. Row counts can be set with {@code -Dbench.rows} and
+ * {@code -Dbench.perRowRows}; the per-row path gets a smaller sample because it syncs on every row.
+ */
+@Tag("perf")
+public class BulkInsertBenchmark {
+
+    private static final int ROWS = Integer.getInteger("bench.rows", 20_000);
+    private static final int PER_ROW_ROWS = Integer.getInteger("bench.perRowRows", 200);
+
+    @TempDir
+    Path dbDir;
+
+    private JdbcDataSource dataSource;
+    private HorrorMovieBulkRepositoryImpl bulkRepository;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:file:" + dbDir.resolve("bench") + ";MODE=MySQL");
+        try (Connection c = dataSource.getConnection(); Statement s = c.createStatement()) {
+            s.execute("CREATE TABLE horror_movies (id INT AUTO_INCREMENT PRIMARY KEY, title VARCHAR(255) NOT NULL, title_key VARCHAR(255) NOT NULL, "
+                    + "director VARCHAR(255), release_year INT, runtime_minutes INT, streaming_platform VARCHAR(255), "
+                    + "rating DOUBLE, tags VARCHAR(255), date_watched DATE, version BIGINT NOT NULL DEFAULT 0)");
+        }
+        bulkRepository = new HorrorMovieBulkRepositoryImpl(dataSource);
+    }
+
+    //Per-row path (chunk size 1, one commit per row) against 500-row chunks
+    @Test
+    public void chunkedInsertBeatsPerRowInsert() throws Exception {
+        double perRow = insertAll(PER_ROW_ROWS, 1);
+        double chunked = insertAll(ROWS, 500);
+        System.out.printf("Per-row: %.0f rows/s, chunked(500): %.0f rows/s, speedup x%.1f%n",
+                perRow, chunked, chunked / perRow);
+        assertEquals(PER_ROW_ROWS + ROWS, countRows());
+        assertTrue(chunked > perRow, "Chunked insert should be faster than one transaction per row");
+    }
+
+    //A bad row inside a chunk must not keep the other rows of that chunk out
+    @Test
+    public void failedRowDoesNotSinkItsChunk() throws Exception {
+        List<HorrorMovieSQL> chunk = movies(10);
+        chunk.get(4).setTitle(null);
+
+        List<HorrorMovieSQL> failed = bulkRepository.insertChunk(chunk);
+
+        assertEquals(1, failed.size());
+        assertSame(chunk.get(4), failed.get(0));
+        assertEquals(9, countRows());
+        assertTrue(chunk.get(9).getId() > 0, "Generated ids should be copied back onto written rows");
+    }
+
+    private double insertAll(int count, int chunkSize) {
+        List<HorrorMovieSQL> rows = movies(count);
+        long start = System.nanoTime();
+        for (int i = 0; i < rows.size(); i += chunkSize) {
+            List<HorrorMovieSQL> failed = bulkRepository.insertChunk(rows.subList(i, Math.min(i + chunkSize, rows.size())));
+            assertTrue(failed.isEmpty());
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        return rows.size() / seconds;
+    }
+
+    private List<HorrorMovieSQL> movies(int count) {
+        List<HorrorMovieSQL> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rows.add(new HorrorMovieSQL("Movie " + i, "Director " + (i % 50), 1970 + i % 50, 80 + i % 60,
+                    "Shudder", (i % 100) / 10.0, "slasher", LocalDate.of(2024, 1, 1).plusDays(i % 365)));
+        }
+        return rows;
+    }
+
+    private long countRows() throws Exception {
+        try (Connection c = dataSource.getConnection(); Statement s = c.createStatement();
+             ResultSet rs = s.executeQuery("SELECT COUNT(*) FROM horror_movies")) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.slasherstats;
+
+import com.slasherstats.model.HorrorMovieSQL;
+import com.slasherstats.repository.MovieFilter;
+import com.slasherstats.service.CatalogColumns;
+import com.slasherstats.service.CatalogListener;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the columnar catalog against a list of entities at a million movies: retained heap,
+ * measured after a full collection, and the time to filter and aggregate the whole catalog.
+ * Only runs with {@code mvn test -Pperf}; the row count can be set with {@code -Dbench.rows}.
+ */
+@Tag("perf")
+public class CatalogColumnsBenchmark {
+
+    private static final int ROWS = Integer.getInteger("bench.rows", 1_000_000);
+    private static final String[] PLATFORMS = {"Shudder", "Netflix", "Hulu", "Max", "Prime Video", "Peacock", "Tubi"};
+    private static final LocalDate FIRST_WATCH = LocalDate.of(2015, 1, 1);
+
+    //Unit test for the columns taking a fraction of the entities' heap and scanning faster
+    @Test
+    public void benchmarkColumnsAgainstEntities() {
+        long baseline = usedHeap();
+        CatalogColumns columns = new CatalogColumns();
+        CatalogListener.Rebuild rebuild = columns.startRebuild();
+        for (int i = 1; i <= ROWS; i++) rebuild.accept(movie(i));
+        rebuild.finish();
+        long columnBytes = usedHeap() - baseline;
+
+        baseline = usedHeap();
+        List<HorrorMovieSQL> entities = new ArrayList<>(ROWS);
+        for (int i = 1; i <= ROWS; i++) entities.add(movie(i));
+        long entityBytes = usedHeap() - baseline;
+        System.out.printf("Heap for %d movies: entities %d MB, columns %d MB (estimated %d MB), %.1fx smaller%n",
+                ROWS, entityBytes >> 20, columnBytes >> 20, columns.footprintBytes() >> 20, entityBytes / (double) columnBytes);
+
+        MovieFilter filter = new MovieFilter(6.0, null, 1980, 1999, null, 120, "shudder", null, null, null);
+        long[] columnNanos = new long[21];
+        long[] entityNanos = new long[21];
+        CatalogColumns.Summary summary = null;
+        long entityCount = 0;
+        for (int run = 0; run < columnNanos.length; run++) {
+            long start = System.nanoTime();
+            summary = columns.scan(filter);
+            columnNanos[run] = System.nanoTime() - start;
+            start = System.nanoTime();
+            entityCount = entities.stream().filter(m -> m.getRating() >= 6.0 && m.getReleaseYear() >= 1980
+                    && m.getReleaseYear() <= 1999 && m.getRuntimeMinutes() <= 120
+                    && m.getStreamingPlatform().trim().equalsIgnoreCase("shudder")).count();
+            entityNanos[run] = System.nanoTime() - start;
+        }
+        Arrays.sort(columnNanos);
+        Arrays.sort(entityNanos);
+        System.out.printf("Filtered aggregate over %d movies: entities %.2f ms, columns %.2f ms (median of %d)%n",
+                ROWS, entityNanos[10] / 1e6, columnNanos[10] / 1e6, columnNanos.length);
+
+        assertEquals(entityCount, summary.movies());
+        assertTrue(columnBytes * 4 < entityBytes, "Columns should take well under a quarter of the entities' heap");
+        assertTrue(columnNanos[10] < entityNanos[10], "Scanning the columns should beat streaming the entities");
+    }
+
+    private static HorrorMovieSQL movie(int id) {
+        Random random = new Random(id);
+        HorrorMovieSQL movie = new HorrorMovieSQL("Movie " + id, "Director " + random.nextInt(5_000),
+                1960 + random.nextInt(65), 75 + random.nextInt(70), PLATFORMS[random.nextInt(PLATFORMS.length)],
+                random.nextInt(101) / 10.0, "slasher", FIRST_WATCH.plusDays(random.nextInt(3_650)));
+        movie.setId(id);
+        return movie;
+    }
+
+    //Heap in use once everything unreachable has been collected
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,150 @@
+package com.slasherstats;
+
+import com.slasherstats.model.HorrorMovieSQL;
+import com.slasherstats.service.BulkImportReport;
+import com.slasherstats.service.slasherStatsManager;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Imports synthetic catalogs (see {@link SyntheticCatalog}) of growing size through
+ * {@link slasherStatsManager#addBulkMovies(String)} into the application running on the embedded database,
+ * and checks each import against a throughput floor and a heap ceiling. The heap ceiling is a fixed allowance
+ * plus a number of bytes per row, since the catalog, its indexes and the returned list all grow with the file.
+ * Only runs with {@code mvn test -Pperf}; tune with {@code -Dscale.rows=1000,100000,1000000},
+ * {@code -Dscale.seed}, {@code -Dscale.dirty-rate}, {@code -Dscale.min-rows-per-second},
+ * {@code -Dscale.max-heap-bytes-per-row} and {@code -Dscale.generate-rows}.
+ */
+@Tag("perf")
+@SpringBootTest
+@ActiveProfiles("embedded")
+public class CatalogScaleTest {
+
+    private static final long[] ROWS = Arrays.stream(System.getProperty("scale.rows", "1000,100000").split(","))
+            .mapToLong(rows -> Long.parseLong(rows.trim().replace("_", ""))).toArray();
+    private static final long SEED = Long.getLong("scale.seed", 42);
+    private static final double DIRTY_RATE = Double.parseDouble(System.getProperty("scale.dirty-rate", "0.01"));
+    private static final double MIN_ROWS_PER_SECOND = Double.parseDouble(System.getProperty("scale.min-rows-per-second", "2000"));
+    private static final long MAX_HEAP_BYTES_PER_ROW = Long.getLong("scale.max-heap-bytes-per-row", 4096);
+    private static final long GENERATE_ROWS = Long.getLong("scale.generate-rows", 1_000_000);
+    //Heap any import may hold whatever its size: read buffers, parsed chunks waiting to be written
+    private static final long HEAP_ALLOWANCE = 64L * 1024 * 1024;
+    //Imports smaller than this finish before throughput means anything
+    private static final long MIN_TIMED_ROWS = 10_000;
+
+    @Autowired
+    private slasherStatsManager manager;
+
+    @TempDir
+    Path dir;
+
+    //Unit test for the generator giving the same file for the same seed, and streaming rather than buffering
+    @Test
+    public void generatorIsDeterministicAndStreams() throws Exception {
+        Path first = dir.resolve("first.txt");
+        Path second = dir.resolve("second.txt");
+        Path other = dir.resolve("other.txt");
+        new SyntheticCatalog(SEED, DIRTY_RATE).write(first, 1_000);
+        new SyntheticCatalog(SEED, DIRTY_RATE).write(second, 1_000);
+        new SyntheticCatalog(SEED + 1, DIRTY_RATE).write(other, 1_000);
+        assertArrayEquals(Files.readAllBytes(first), Files.readAllBytes(second));
+        assertFalse(Arrays.equals(Files.readAllBytes(first), Files.readAllBytes(other)));
+        assertEquals(1_000, Files.readAllLines(first).size());
+
+        Path large = dir.resolve("large.txt");
+        HeapSampler sampler = new HeapSampler();
+        long start = System.nanoTime();
+        long bytes = new SyntheticCatalog(SEED, DIRTY_RATE).write(large, GENERATE_ROWS);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long peak = sampler.stop();
+        System.out.printf("Generated %d rows, %d MB in %.1f s (%.0f rows/s), live heap growth %d MB%n", GENERATE_ROWS,
+                bytes >> 20, seconds, GENERATE_ROWS / seconds, peak >> 20);
+        assertTrue(peak < HEAP_ALLOWANCE, "Generating should not hold the file in memory");
+        Files.delete(large);
+    }
+
+    //Unit test for imports of each size staying above the throughput floor and under the heap ceiling
+    @Test
+    public void importsStayWithinBudget() throws Exception {
+        for (long rows : ROWS) {
+            Path file = dir.resolve("catalog-" + rows + ".txt");
+            SyntheticCatalog catalog = new SyntheticCatalog(SEED, DIRTY_RATE);
+            long bytes = catalog.write(file, rows);
+
+            HeapSampler sampler = new HeapSampler();
+            List<HorrorMovieSQL> added = manager.addBulkMovies(file.toString());
+            long peak = sampler.stop();
+            Files.delete(file);
+
+            BulkImportReport report = manager.getLastImportReport();
+            long ceiling = HEAP_ALLOWANCE + rows * MAX_HEAP_BYTES_PER_ROW;
+            System.out.printf("%,d rows (%d MB, %d dirty): %.0f rows/s, live heap growth %d MB (%.0f bytes/row), ceiling %d MB%n",
+                    rows, bytes >> 20, catalog.getDirtyLineCount(), report.getRowsPerSecond(), peak >> 20,
+                    peak / (double) rows, ceiling >> 20);
+
+            assertEquals(rows - catalog.getDirtyLineCount(), report.getRowsAccepted());
+            assertEquals(report.getRowsAccepted(), added.size());
+            assertEquals(catalog.getDirtyLines(), report.getRejectCounts());
+            assertTrue(peak <= ceiling, String.format("Import of %d rows grew the heap by %d MB, ceiling %d MB", rows, peak >> 20, ceiling >> 20));
+            if (rows >= MIN_TIMED_ROWS) {
+                assertTrue(report.getRowsPerSecond() >= MIN_ROWS_PER_SECOND, String.format(
+                        "Import of %d rows ran at %.0f rows/s, floor %.0f rows/s", rows, report.getRowsPerSecond(), MIN_ROWS_PER_SECOND));
+            }
+        }
+    }
+
+    //Polls the heap left live after each garbage collection from a background thread and keeps the highest
+    //value above the starting point; garbage that a collection would free does not count
+    private static final class HeapSampler {
+        private final List<MemoryPoolMXBean> pools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP && pool.getCollectionUsage() != null).toList();
+        private final AtomicLong peak = new AtomicLong();
+        private final long baseline;
+        private final Thread thread;
+        private volatile boolean running = true;
+
+        HeapSampler() {
+            System.gc();
+            baseline = liveHeap();
+            thread = new Thread(() -> {
+                while (running) {
+                    peak.accumulateAndGet(liveHeap(), Math::max);
+                    try {
+                        Thread.sleep(5);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }, "heap-sampler");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        //Returns the most the live heap grew while sampling, in bytes
+        long stop() throws InterruptedException {
+            running = false;
+            thread.join();
+            peak.accumulateAndGet(liveHeap(), Math::max);
+            return Math.max(0, peak.get() - baseline);
+        }
+
+        private long liveHeap() {
+            return pools.stream().mapToLong(pool -> pool.getCollectionUsage().getUsed()).sum();
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.slasherstats;
+
+import com.slasherstats.config.ConnectionPoolMetrics;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.h2.tools.Server;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares request throughput with a new physical connection per borrow (the old
+ * {@code DriverManagerDataSource}) against the Hikari pool, using the statements the
+ * {@code /} and {@code /update} routes issue. The database runs as an H2 TCP server so every
+ * unpooled borrow pays for a real socket connect and login, as it does with MySQL.
+ * Only runs with {@code mvn test -Pperf}; tune with {@code -Dbench.threads} and {@code -Dbench.seconds}.
+ */
+@Tag("perf")
+public class ConnectionPoolBenchmark {
+
+    private static final int THREADS = Integer.getInteger("bench.threads", 8);
+    private static final int SECONDS = Integer.getInteger("bench.seconds", 5);
+    private static final int MOVIES = 1_000;
+
+    private Server server;
+    private String url;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        server = Server.createTcpServer("-tcpPort", String.valueOf(port), "-ifNotExists").start();
+        url = "jdbc:h2:tcp://localhost:" + port + "/mem:pool;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+        JdbcTemplate jdbc = new JdbcTemplate(new DriverManagerDataSource(url, "sa", ""));
+        jdbc.execute("CREATE TABLE horror_movies (id INT AUTO_INCREMENT PRIMARY KEY, title VARCHAR(255) NOT NULL, "
+                + "director VARCHAR(255), release_year INT, runtime_minutes INT, streaming_platform VARCHAR(255), "
+                + "rating DOUBLE, tags VARCHAR(255), date_watched DATE)");
+        for (int i = 0; i < MOVIES; i++) {
+            jdbc.update("INSERT INTO horror_movies (title, director, release_year, runtime_minutes, streaming_platform, "
+                    + "rating, tags, date_watched) VALUES (?, 'Director', 2000, 90, 'Shudder', 5.0, 'slasher', CURRENT_DATE)",
+                    "Movie " + i);
+        }
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    public void pooledDataSourceBeatsConnectionPerBorrow() throws Exception {
+        double unpooled = requestsPerSecond(new DriverManagerDataSource(url, "sa", ""));
+
+        ConnectionPoolMetrics metrics = new ConnectionPoolMetrics();
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(url);
+        config.setUsername("sa");
+        config.setMaximumPoolSize(THREADS);
+        config.setMetricsTrackerFactory(metrics);
+        double pooled;
+        try (HikariDataSource hikari = new HikariDataSource(config)) {
+            metrics.bind(hikari);
+            pooled = requestsPerSecond(hikari);
+            System.out.println("Pool after run: " + metrics.snapshot());
+        }
+
+        System.out.printf("Unpooled: %.0f req/s, pooled: %.0f req/s, speedup x%.1f%n", unpooled, pooled, pooled / unpooled);
+        assertTrue(metrics.snapshot().borrows() > 0);
+        assertTrue(pooled > unpooled, "Pooled connections should serve more requests per second");
+    }
+
+    //Runs the index and update statement mix from several threads and returns requests per second
+    private double requestsPerSecond(DataSource dataSource) throws Exception {
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        ExecutorService threads = Executors.newFixedThreadPool(THREADS);
+        long deadline = System.nanoTime() + SECONDS * 1_000_000_000L;
+        List<Future<Long>> results = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            results.add(threads.submit(() -> {
+                long requests = 0;
+                while (System.nanoTime() < deadline) {
+                    if (ThreadLocalRandom.current().nextBoolean()) {
+                        //GET / : count for the points, then a page of movies
+                        jdbc.queryForObject("SELECT COUNT(*) FROM horror_movies", Long.class);
+                        jdbc.queryForList("SELECT * FROM horror_movies ORDER BY id LIMIT 50");
+                    } else {
+                        //POST /update : look the movie up by title, then write it back
+                        String title = "Movie " + ThreadLocalRandom.current().nextInt(MOVIES);
+                        Integer id = jdbc.queryForObject("SELECT id FROM horror_movies WHERE title = ?", Integer.class, title);
+                        jdbc.update("UPDATE horror_movies SET rating = ? WHERE id = ?", 7.5, id);
+                    }
+                    requests++;
+                }
+                return requests;
+            }));
+        }
+        long total = 0;
+        for (Future<Long> result : results) total += result.get();
+        threads.shutdown();
+        return total / (double) SECONDS;
+    }
+}
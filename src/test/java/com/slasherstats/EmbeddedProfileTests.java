@@ -0,0 +1,234 @@
+package com.slasherstats;
+
+import com.slasherstats.model.HorrorMovieSQL;
+import com.slasherstats.repository.HorrorMovieRepository;
+import com.slasherstats.repository.QueryCounter;
+import com.slasherstats.service.MovieTableCache;
+import com.slasherstats.service.slasherStatsManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Starts the whole application with the "embedded" profile: the schema and seed data of
+ * db/slasherStats.sql are loaded into an in-memory database, and nothing waits on the console.
+ * Requests go through the real controllers and templates.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("embedded")
+public class EmbeddedProfileTests {
+
+    @Autowired
+    private HorrorMovieRepository repository;
+
+    @Autowired
+    private slasherStatsManager manager;
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private MovieTableCache tableCache;
+
+    @Autowired
+    private DataSource dataSource;
+
+    //Unit test for the seed data being loaded and the catalog accepting writes
+    @Test
+    public void testSeedDataLoaded() {
+        assertTrue(repository.count() >= 20);
+        HorrorMovieSQL halloween = manager.findMovie("Halloween");
+        assertNotNull(halloween);
+        assertEquals("John Carpenter", halloween.getDirector());
+        assertEquals(LocalDate.of(2024, 6, 18), halloween.getDateWatched());
+
+        HorrorMovieSQL movie = new HorrorMovieSQL("Embedded Test", "Director", 2001, 90, "Shudder", 6.5,
+                "slasher", LocalDate.of(2024, 7, 1));
+        assertTrue(manager.addMovie(movie));
+        assertNotNull(manager.findMovie("embedded test"));
+
+        //The console menu would block startup waiting for input
+        assertTrue(context.getBeansOfType(slasherStatsApp.class).isEmpty());
+    }
+
+    //Unit test for an unchanged catalog answering 304 from its entity tag without a query or a render
+    @Test
+    public void testConditionalGet() throws Exception {
+        for (String path : new String[]{"/", "/search/tags?any=slasher", "/movies/export.csv"}) {
+            MvcResult first = mvc.perform(get(path)).andReturn();
+            assertEquals(200, first.getResponse().getStatus());
+            String etag = first.getResponse().getHeader(HttpHeaders.ETAG);
+            assertNotNull(etag, path);
+            assertFalse(etag.startsWith("W/"), "Entity tags are strong");
+
+            QueryCounter.reset();
+            MvcResult unchanged = mvc.perform(get(path).header(HttpHeaders.IF_NONE_MATCH, etag)).andReturn();
+            assertEquals(304, unchanged.getResponse().getStatus(), path);
+            assertEquals(0, QueryCounter.count(), "A 304 should not reach the database");
+            assertNull(unchanged.getModelAndView(), "A 304 should not render a template");
+            assertEquals(0, unchanged.getResponse().getContentLength());
+
+            long version = manager.getCatalogVersion();
+            assertTrue(manager.addMovie(new HorrorMovieSQL("Conditional " + path, "Director", 2001, 90, "Shudder", 6.5,
+                    "slasher", LocalDate.of(2024, 7, 1))));
+            assertTrue(manager.getCatalogVersion() > version);
+            MvcResult changed = mvc.perform(get(path).header(HttpHeaders.IF_NONE_MATCH, etag)).andReturn();
+            assertEquals(200, changed.getResponse().getStatus(), path);
+            assertNotEquals(etag, changed.getResponse().getHeader(HttpHeaders.ETAG));
+        }
+        //Reads leave the version alone
+        long version = manager.getCatalogVersion();
+        manager.findMovie("Halloween");
+        mvc.perform(get("/"));
+        assertEquals(version, manager.getCatalogVersion());
+    }
+
+    //Unit test for a repeated page view being served the table rendered the first time, until the catalog changes
+    @Test
+    public void testMovieTableCache() throws Exception {
+        String path = "/?sort=rating&dir=desc&size=5";
+        String first = mvc.perform(get(path)).andReturn().getResponse().getContentAsString();
+        assertTrue(first.contains("<table"));
+
+        MovieTableCache.Stats before = tableCache.stats();
+        QueryCounter.reset();
+        MvcResult repeated = mvc.perform(get(path)).andReturn();
+        assertEquals(first, repeated.getResponse().getContentAsString());
+        assertEquals(0, QueryCounter.count(), "A cached table should not reach the database");
+        assertEquals(before.hits() + 1, tableCache.stats().hits());
+        assertEquals(before.misses(), tableCache.stats().misses());
+
+        //Another order is another table
+        mvc.perform(get("/?sort=rating&dir=asc&size=5"));
+        assertEquals(before.misses() + 1, tableCache.stats().misses());
+
+        assertTrue(manager.addMovie(new HorrorMovieSQL("Table Cache Test", "Director", 2001, 90, "Shudder", 10.0,
+                "slasher", LocalDate.of(2024, 7, 1))));
+        String changed = mvc.perform(get(path)).andReturn().getResponse().getContentAsString();
+        assertEquals(before.misses() + 2, tableCache.stats().misses());
+        assertTrue(changed.contains("Table Cache Test"));
+        //The tables of the old catalog are dropped once a newer one is stored
+        assertEquals(1, tableCache.stats().tables());
+        assertTrue(tableCache.stats().hitRatio() > 0);
+    }
+
+    //Unit test for each range query being answered through the index it was written for
+    @Test
+    public void testRangeQueriesUseIndexes() throws Exception {
+        List<HorrorMovieSQL> movies = new ArrayList<>();
+        String[] platforms = {"Shudder", "Netflix", "Hulu", "Tubi", "Peacock"};
+        for (int i = 0; i < 500; i++) {
+            movies.add(new HorrorMovieSQL("Range " + i, "Director " + i % 40, 1960 + i % 60, 80 + i % 50,
+                    platforms[i % platforms.length], (i % 100) / 10.0, "slasher", LocalDate.of(2023, 1, 1).plusDays(i)));
+        }
+        assertTrue(repository.insertChunk(movies).isEmpty());
+
+        try (Connection connection = dataSource.getConnection()) {
+            try (ResultSet rs = connection.createStatement().executeQuery("SELECT data_type FROM information_schema.columns"
+                    + " WHERE table_name = 'horror_movies' AND column_name = 'date_watched'")) {
+                assertTrue(rs.next());
+                assertEquals("date", rs.getString(1).toLowerCase());
+            }
+            Map<String, Object[]> queries = Map.of(
+                    HorrorMovieRepository.WATCHED_BETWEEN,
+                    new Object[]{LocalDate.of(2023, 10, 1), LocalDate.of(2023, 10, 31), 50},
+                    HorrorMovieRepository.RELEASED_BETWEEN, new Object[]{1978, 1989, 50},
+                    HorrorMovieRepository.PLATFORM_RATED_AT_LEAST, new Object[]{"Shudder", 8.0, 50},
+                    HorrorMovieRepository.PLATFORM_WATCHED_BETWEEN,
+                    new Object[]{"Shudder", LocalDate.of(2023, 10, 1), LocalDate.of(2023, 10, 31), 50});
+            Map<String, String> indexes = Map.of(
+                    HorrorMovieRepository.WATCHED_BETWEEN, "idx_horror_movies_date_watched",
+                    HorrorMovieRepository.RELEASED_BETWEEN, "idx_horror_movies_release_year",
+                    HorrorMovieRepository.PLATFORM_RATED_AT_LEAST, "idx_horror_movies_platform_rating",
+                    HorrorMovieRepository.PLATFORM_WATCHED_BETWEEN, "idx_horror_movies_platform_date_watched");
+            for (Map.Entry<String, Object[]> query : queries.entrySet()) {
+                String plan = explain(connection, query.getKey(), query.getValue());
+                assertTrue(plan.toLowerCase().contains(indexes.get(query.getKey()) + ":"), plan);
+            }
+        }
+
+        JsonNode october = json("/movies/watched?from=2023-10-01&to=2023-10-31&limit=500");
+        assertEquals(31, october.size());
+        assertEquals("2023-10-01", october.get(0).get("dateWatched").asText());
+        assertEquals(6, json("/movies/watched?from=2023-10-01&to=2023-10-31&platform=Shudder").size());
+        assertEquals(2, json("/movies/watched?from=2023-10-01&to=2023-10-31&limit=2").size());
+
+        JsonNode rated = json("/movies/rated?platform=Shudder&minRating=9.5");
+        assertFalse(rated.isEmpty());
+        for (JsonNode movie : rated) {
+            assertEquals("Shudder", movie.get("streamingPlatform").asText());
+            assertTrue(movie.get("rating").asDouble() >= 9.5);
+        }
+        for (int i = 1; i < rated.size(); i++) {
+            assertTrue(rated.get(i - 1).get("rating").asDouble() >= rated.get(i).get("rating").asDouble());
+        }
+
+        JsonNode eighties = json("/movies/released?fromYear=1980&toYear=1989&limit=500");
+        assertFalse(eighties.isEmpty());
+        for (JsonNode movie : eighties) {
+            int year = movie.get("releaseYear").asInt();
+            assertTrue(year >= 1980 && year <= 1989);
+        }
+        assertEquals(400, mvc.perform(get("/movies/watched?from=October&to=2023-10-31")).andReturn().getResponse().getStatus());
+    }
+
+    //Returns H2's plan for one of the repository's statements, with its named parameters bound in order
+    private static String explain(Connection connection, String sql, Object[] params) throws Exception {
+        try (PreparedStatement ps = connection.prepareStatement("EXPLAIN " + sql.replaceAll(":\\w+", "?"))) {
+            for (int i = 0; i < params.length; i++) ps.setObject(i + 1, params[i]);
+            try (ResultSet rs = ps.executeQuery()) {
+                assertTrue(rs.next());
+                return rs.getString(1);
+            }
+        }
+    }
+
+    //Unit test for the bulk update endpoint setting only the platform, tags or rating
+    @Test
+    public void testBulkUpdateFields() throws Exception {
+        String nobody = "&director=Nobody";
+        for (String field : new String[]{"platform", "tags", "rating"}) {
+            MvcResult result = mvc.perform(post("/movies/update?field=" + field + "&value=9" + nobody)).andReturn();
+            assertEquals(200, result.getResponse().getStatus(), field);
+            assertEquals(0, new ObjectMapper().readTree(result.getResponse().getContentAsString()).get("updated").asInt());
+        }
+        long version = manager.getCatalogVersion();
+        for (String field : new String[]{"director", "releaseYear", "runtimeMinutes", "dateWatched", "title", "id"}) {
+            assertEquals(400, mvc.perform(post("/movies/update?field=" + field + "&value=9" + nobody))
+                    .andReturn().getResponse().getStatus(), field);
+        }
+        assertEquals(version, manager.getCatalogVersion());
+    }
+
+    private JsonNode json(String path) throws Exception {
+        MvcResult result = mvc.perform(get(path)).andReturn();
+        assertEquals(200, result.getResponse().getStatus(), path);
+        return new ObjectMapper().readTree(result.getResponse().getContentAsString());
+    }
+}
@@ -0,0 +1,325 @@
+package com.slasherstats;
+
+import com.slasherstats.model.HorrorMovieSQL;
+import com.slasherstats.repository.HorrorMovieRepository;
+import com.slasherstats.repository.MovieField;
+import com.slasherstats.repository.MovieFilter;
+import com.slasherstats.repository.MovieSort;
+import com.slasherstats.repository.QueryCounter;
+import com.slasherstats.service.BulkImportReport;
+import com.slasherstats.service.CatalogExport;
+import com.slasherstats.service.CatalogStatistics;
+import com.slasherstats.service.MoviePage;
+import com.slasherstats.service.MovieUpdate;
+import com.slasherstats.service.slasherStatsManager;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the repository queries against an in-memory database: walking every page of the keyset-paged
+ * listing must return each movie exactly once, in the same order as sorting the whole table, and
+ * title lookups must go through the normalized title key. The statistics rebuild streams the same table.
+ */
+//Keeps date_watched nullable as in db/slasherStats.sql instead of copying @NotNull into the generated schema
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.validator.apply_to_ddl=false")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class HorrorMovieRepositoryTests {
+
+    @Autowired
+    private HorrorMovieRepository repository;
+    private slasherStatsManager manager;
+
+    @BeforeEach
+    public void setUp() {
+        manager = new slasherStatsManager(repository);
+        repository.deleteAllInBatch();
+        //Few distinct keys so that many rows tie and page boundaries fall inside runs of equal keys
+        List<HorrorMovieSQL> movies = new ArrayList<>();
+        for (int i = 0; i < 137; i++) {
+            LocalDate watched = i % 9 == 0 ? null : LocalDate.of(2024, 1, 1 + i % 5);
+            movies.add(new HorrorMovieSQL("Movie " + (i % 11), "Director", 1990 + i % 7, 90, "Shudder",
+                    (i % 4) * 2.5, "slasher", watched));
+        }
+        //Written through JDBC because rows without a date can only come from outside the application
+        assertTrue(repository.insertChunk(movies).isEmpty());
+    }
+
+    //Orders movies by a sort key as the database does, with missing dates first
+    private static Comparator<HorrorMovieSQL> keyOrder(MovieSort sort) {
+        return switch (sort) {
+            case TITLE -> Comparator.comparing(HorrorMovieSQL::getTitle);
+            case RATING -> Comparator.comparingDouble(HorrorMovieSQL::getRating);
+            case RELEASE_YEAR -> Comparator.comparingInt(HorrorMovieSQL::getReleaseYear);
+            case DATE_WATCHED -> Comparator.comparing(HorrorMovieSQL::getDateWatched, Comparator.nullsFirst(Comparator.naturalOrder()));
+        };
+    }
+
+    //Unit test for walking every sort in both directions page by page
+    @Test
+    public void testPagesCoverTableInSortOrder() {
+        for (MovieSort sort : MovieSort.values()) {
+            for (boolean descending : new boolean[]{false, true}) {
+                Comparator<HorrorMovieSQL> order = keyOrder(sort).thenComparingInt(HorrorMovieSQL::getId);
+                if (descending) order = order.reversed();
+                List<Integer> expected = repository.findAll().stream().sorted(order).map(HorrorMovieSQL::getId).toList();
+
+                List<Integer> paged = new ArrayList<>();
+                MoviePage page = manager.viewMovies(sort, descending, null, 10);
+                page.movies().forEach(m -> paged.add(m.getId()));
+                while (page.hasNext()) {
+                    page = manager.viewMovies(sort, descending, page.nextCursor(), 10);
+                    assertTrue(page.movies().size() <= 10);
+                    page.movies().forEach(m -> paged.add(m.getId()));
+                }
+                assertEquals(expected, paged, sort + (descending ? " desc" : " asc"));
+            }
+        }
+    }
+
+    //Unit test for a cursor that belongs to a different sort
+    @Test
+    public void testForeignCursorStartsOver() {
+        MoviePage byTitle = manager.viewMovies(MovieSort.TITLE, false, null, 10);
+        MoviePage byRating = manager.viewMovies(MovieSort.RATING, false, byTitle.nextCursor(), 10);
+        assertEquals(ids(manager.viewMovies(MovieSort.RATING, false, null, 10)), ids(byRating));
+        assertEquals(ids(manager.viewMovies(MovieSort.RATING, false, "not a cursor", 10)), ids(byRating));
+    }
+
+    //Unit test for case-insensitive lookups through the title key, including keys written by the bulk insert
+    @Test
+    public void testTitleLookupUsesTitleKey() {
+        HorrorMovieSQL found = repository.findByTitleIgnoreCase("  MOVIE 3 ");
+        assertNotNull(found);
+        assertEquals("movie 3", found.getTitleKey());
+        //Several movies share the title, the first one added wins
+        int lowestId = repository.findAll().stream().filter(m -> m.getTitle().equals("Movie 3"))
+                .mapToInt(HorrorMovieSQL::getId).min().getAsInt();
+        assertEquals(lowestId, found.getId());
+
+        found.setTitle("The Burning");
+        repository.save(found);
+        assertEquals(found.getId(), repository.findByTitleIgnoreCase("the BURNING").getId());
+        assertNull(repository.findByTitleIgnoreCase("Missing"));
+    }
+
+    //Unit test for counting the statements sent through Hibernate and through plain JDBC
+    @Test
+    public void testQueryCounterCountsStatements() {
+        QueryCounter.reset();
+        repository.findByTitleIgnoreCase("Movie 3");
+        assertEquals(1, QueryCounter.count());
+        repository.count();
+        assertEquals(2, QueryCounter.count());
+        //A whole chunk goes out as one batch
+        repository.insertChunk(new ArrayList<>(List.of(
+                new HorrorMovieSQL("Alien", "Ridley Scott", 1979, 117, "Hulu", 8.5, "space", LocalDate.of(2024, 2, 1)),
+                new HorrorMovieSQL("Aliens", "James Cameron", 1986, 137, "Hulu", 8.4, "space", LocalDate.of(2024, 2, 2)))));
+        assertEquals(3, QueryCounter.count());
+        QueryCounter.reset();
+        assertEquals(0, QueryCounter.count());
+    }
+
+    //Unit test for bulk deletes and updates reading the rows they change and writing them in one transaction,
+    //and rebuilding the listeners only past the event limit
+    @Test
+    public void testSetBasedDeleteAndUpdate() {
+        manager.rebuildCatalogListeners();
+        List<HorrorMovieSQL> all = repository.findAll();
+        long titled = all.stream().filter(m -> m.getTitle().equals("Movie 3") || m.getTitle().equals("Movie 4")).count();
+
+        QueryCounter.reset();
+        assertEquals(titled, manager.deleteMovies(List.of("movie 3", " MOVIE 4 ", "Missing")));
+        assertEquals(2, QueryCounter.count());
+        assertNull(repository.findByTitleIgnoreCase("Movie 3"));
+        assertEquals(137 - titled, repository.count());
+        assertEquals((137 - titled) * 10, manager.getAccountPoints());
+
+        //Surrounding spaces are trimmed off the filter; case is left to the collation, which is exact in this database
+        MovieFilter filter = new MovieFilter(5.0, null, 1990, 1992, null, null, " Shudder ", null, null, null);
+        long matching = repository.findAll().stream()
+                .filter(m -> m.getRating() >= 5.0 && m.getReleaseYear() <= 1992).count();
+        QueryCounter.reset();
+        //The new value is stored trimmed as well
+        assertEquals(matching, manager.updateMovies(filter, MovieField.PLATFORM, " Tubi "));
+        assertEquals(2, QueryCounter.count());
+        assertEquals(matching, repository.findAll().stream().filter(m -> m.getStreamingPlatform().equals("Tubi")).count());
+        assertEquals(matching, manager.scanCatalog(new MovieFilter(null, null, null, null, null, null, "tubi", null, null, null)).movies());
+
+        //Movies without a watch date never match a date bound
+        long dated = repository.findAll().stream().filter(m -> m.getDateWatched() != null).count();
+        assertEquals(dated, manager.updateMovies(new MovieFilter(null, null, null, null, null, null, null, null,
+                LocalDate.of(2024, 1, 1), null), MovieField.RATING, "9.5"));
+        assertEquals(dated, repository.findAll().stream().filter(m -> m.getRating() == 9.5).count());
+        assertEquals(dated, manager.scanCatalog(new MovieFilter(9.5, null, null, null, null, null, null, null, null, null)).movies());
+
+        //Nothing matched, so only the read goes out and the listeners are left alone
+        QueryCounter.reset();
+        assertEquals(0, manager.updateMovies(new MovieFilter(null, null, null, null, null, null, null, "Nobody", null, null),
+                MovieField.TAGS, "gone"));
+        assertEquals(1, QueryCounter.count());
+
+        //Past the event limit the write runs on the filter alone and one pass over the table rebuilds the listeners
+        manager.setBulkEventLimit(10);
+        QueryCounter.reset();
+        assertEquals(137 - titled, manager.updateMovies(MovieFilter.ALL, MovieField.RATING, "1.5"));
+        assertEquals(3, QueryCounter.count());
+        assertEquals(1.5, manager.scanCatalog(MovieFilter.ALL).maxRating());
+        assertEquals(137 - titled, manager.scanCatalog(MovieFilter.ALL).movies());
+    }
+
+    //Unit test for streaming the table out as CSV and NDJSON and uploading the CSV again
+    @Test
+    public void testExportRoundTrip() throws Exception {
+        assertTrue(repository.insertChunk(List.of(
+                new HorrorMovieSQL("Tucker, Dale vs \"Evil\"", " Eli Craig", 2010, 89, "Hulu", 7.5, "comedy, slasher", LocalDate.of(2024, 10, 31)),
+                new HorrorMovieSQL("Hush", "Mike Flanagan", 2016, 82, "Netflix", 6.6, "", LocalDate.of(2024, 2, 29)))).isEmpty());
+        Function<HorrorMovieSQL, List<Object>> fields = m -> Arrays.asList(m.getTitle(), m.getDirector(), m.getReleaseYear(),
+                m.getRuntimeMinutes(), m.getStreamingPlatform(), m.getRating(), m.getTags(), m.getDateWatched());
+        List<HorrorMovieSQL> stored = repository.findAll(Sort.by("id"));
+
+        ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+        QueryCounter.reset();
+        assertEquals(stored.size(), manager.exportMovies(CatalogExport.Format.NDJSON, ndjson));
+        assertEquals(1, QueryCounter.count());
+        List<String> lines = ndjson.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(stored.size(), lines.size());
+        JsonNode tucker = new ObjectMapper().readTree(lines.get(lines.size() - 2));
+        assertEquals("comedy, slasher", tucker.get("tags").asText());
+        assertEquals("2024-10-31", tucker.get("dateWatched").asText());
+        assertTrue(new ObjectMapper().readTree(lines.get(0)).get("dateWatched").isNull());
+
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        assertEquals(stored.size(), manager.exportMovies(CatalogExport.Format.CSV, csv));
+        repository.deleteAllInBatch();
+        manager.addBulkMovies(new MockMultipartFile("file", "export.csv", "text/csv", csv.toByteArray()));
+
+        //Every movie comes back as it was, apart from those without a watch date, which uploads turn away
+        List<List<Object>> expected = stored.stream().filter(m -> m.getDateWatched() != null).map(fields).toList();
+        assertEquals(expected, repository.findAll(Sort.by("id")).stream().map(fields).toList());
+        assertEquals(stored.size() - expected.size(), manager.getLastImportReport().getRowsRejected());
+    }
+
+    //Unit test for backing the table up to a snapshot and restoring it into an empty table
+    @Test
+    public void testSnapshotBackupAndRestore() throws Exception {
+        List<HorrorMovieSQL> stored = repository.findAll(Sort.by("id"));
+        ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        QueryCounter.reset();
+        assertEquals(stored.size(), manager.writeSnapshot(Channels.newChannel(snapshot)));
+        assertEquals(1, QueryCounter.count());
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        manager.exportMovies(CatalogExport.Format.CSV, csv);
+        assertTrue(snapshot.size() < csv.size() / 2, "Snapshot should be far smaller than the CSV export");
+
+        repository.deleteAllInBatch();
+        BulkImportReport report = new BulkImportReport(manager.getBulkChunkSize());
+        manager.restoreSnapshot(Channels.newChannel(new ByteArrayInputStream(snapshot.toByteArray())), report);
+
+        //Unlike a CSV upload, movies without a watch date come back too
+        Function<HorrorMovieSQL, List<Object>> fields = m -> Arrays.asList(m.getTitle(), m.getDirector(), m.getReleaseYear(),
+                m.getRuntimeMinutes(), m.getStreamingPlatform(), m.getRating(), m.getTags(), m.getDateWatched());
+        assertEquals(stored.stream().map(fields).toList(), repository.findAll(Sort.by("id")).stream().map(fields).toList());
+        assertEquals(stored.size(), report.getRowsAccepted());
+        assertEquals(0, report.getRowsRejected());
+    }
+
+    //Unit test for partial updates that write only changed columns and turn away edits based on an old version
+    @Test
+    public void testPartialUpdateWithVersion() {
+        HorrorMovieSQL movie = manager.findMovie("Movie 5");
+        assertEquals(0L, movie.getVersion());
+
+        QueryCounter.reset();
+        MovieUpdate rated = manager.patchMovie("Movie 5", 0L, Map.of(MovieField.RATING, "9.9"));
+        assertEquals(MovieUpdate.Outcome.UPDATED, rated.outcome());
+        assertEquals(1L, rated.movie().getVersion());
+        //The lookup came from the cache; the merge reads the row once and writes it once
+        assertEquals(2, QueryCounter.count());
+        HorrorMovieSQL stored = repository.findById(movie.getId()).orElseThrow();
+        assertEquals(9.9, stored.getRating());
+        assertEquals(1L, stored.getVersion());
+
+        //Two editors start from the same version; the second one is turned away and writes nothing
+        HorrorMovieSQL first = manager.findMovie("Movie 5");
+        HorrorMovieSQL second = manager.findMovie("Movie 5");
+        first.setDirector("Sam Raimi");
+        second.setStreamingPlatform("Tubi");
+        assertTrue(manager.updateMovie(first));
+        MovieUpdate conflict = manager.editMovie(second);
+        assertEquals(MovieUpdate.Outcome.CONFLICT, conflict.outcome());
+        assertEquals(2L, conflict.movie().getVersion());
+        stored = repository.findById(movie.getId()).orElseThrow();
+        assertEquals("Sam Raimi", stored.getDirector());
+        assertEquals("Shudder", stored.getStreamingPlatform());
+
+        //Without an expected version the change goes on top of whatever is stored
+        assertEquals(MovieUpdate.Outcome.UPDATED, manager.patchMovie("movie 5", null, Map.of(MovieField.TAGS, "cabin")).outcome());
+        assertEquals(MovieUpdate.Outcome.INVALID, manager.patchMovie("Movie 5", null, Map.of(MovieField.RATING, "11")).outcome());
+        assertEquals(MovieUpdate.Outcome.NOT_FOUND, manager.patchMovie("Missing", null, Map.of(MovieField.TAGS, "x")).outcome());
+
+        //Set-based updates bump the version too, so edits from before them conflict
+        manager.updateMovies(new MovieFilter(null, null, null, null, null, null, null, "Sam Raimi", null, null),
+                MovieField.PLATFORM, "Peacock");
+        assertEquals(4L, repository.findById(movie.getId()).orElseThrow().getVersion());
+        assertEquals(MovieUpdate.Outcome.CONFLICT, manager.patchMovie("Movie 5", 3L, Map.of(MovieField.TAGS, "x")).outcome());
+    }
+
+    //Unit test for rebuilding the statistics from one streaming pass over the table
+    @Test
+    public void testStatisticsRebuildStreamsTable() {
+        CatalogStatistics stats = new CatalogStatistics();
+        manager.setCatalogListeners(List.of(stats));
+
+        assertEquals(137, manager.rebuildCatalogListeners());
+        assertEquals(137, stats.overview(0).all().movies());
+        CatalogStatistics.GroupSummary nineties = stats.group(CatalogStatistics.Dimension.DECADE, "1990s");
+        assertEquals(137, nineties.movies());
+        assertEquals(137 * 90, nineties.totalRuntimeMinutes());
+        assertEquals(0.0, nineties.minRating());
+        assertEquals(7.5, nineties.maxRating());
+        assertEquals(137, stats.group(CatalogStatistics.Dimension.TAG, "Slasher").movies());
+        assertEquals(1370, manager.getAccountPoints());
+    }
+
+    //Unit test for the columnar catalog keeping watch dates when it is rebuilt from the table
+    @Test
+    public void testRebuiltColumnsFilterByWatchDate() {
+        manager.rebuildCatalogListeners();
+        LocalDate from = LocalDate.of(2024, 1, 2);
+        LocalDate to = LocalDate.of(2024, 1, 3);
+        long dated = repository.findAll().stream().map(HorrorMovieSQL::getDateWatched)
+                .filter(watched -> watched != null && !watched.isBefore(from) && !watched.isAfter(to)).count();
+        assertTrue(dated > 0);
+        assertEquals(dated, manager.scanCatalog(new MovieFilter(null, null, null, null, null, null, null, null, from, to)).movies());
+        //Movies without a date still drop out of any date bound
+        long undated = repository.findAll().stream().filter(m -> m.getDateWatched() == null).count();
+        assertEquals(137 - undated, manager.scanCatalog(new MovieFilter(null, null, null, null, null, null, null, null,
+                LocalDate.of(2000, 1, 1), null)).movies());
+    }
+
+    private List<Integer> ids(MoviePage page) {
+        return page.movies().stream().map(HorrorMovieSQL::getId).toList();
+    }
+}
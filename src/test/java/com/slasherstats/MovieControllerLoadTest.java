@@ -0,0 +1,299 @@
+package com.slasherstats;
+
+import com.slasherstats.model.HorrorMovieSQL;
+import com.slasherstats.service.slasherStatsManager;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Drives a mix of {@code /}, {@code /addMovie}, {@code /upload}, {@code /update} and {@code /deleteConfirmed}
+ * requests at the application running on the embedded database, from several client threads for a fixed time,
+ * and reports throughput and p50/p95/p99/p99.9 latency per route. Fails when a route is slower than its budget
+ * in load-budget.properties, when throughput drops below the budget or when too many requests fail.
+ * Only runs with {@code mvn test -Pperf}; tune with {@code -Dload.threads}, {@code -Dload.seconds},
+ * {@code -Dload.warmup-seconds}, {@code -Dload.movies} and {@code -Dload.mix=index=60,addMovie=15,...};
+ * any budget can be overridden with {@code -Dload.budget.<key>}.
+ */
+@Tag("perf")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("embedded")
+public class MovieControllerLoadTest {
+
+    private static final int THREADS = Integer.getInteger("load.threads", 8);
+    private static final int SECONDS = Integer.getInteger("load.seconds", 20);
+    private static final int WARMUP_SECONDS = Integer.getInteger("load.warmup-seconds", 5);
+    private static final int MOVIES = Integer.getInteger("load.movies", 2_000);
+    private static final String MIX = System.getProperty("load.mix", "index=60,addMovie=15,update=15,deleteConfirmed=8,upload=2");
+    private static final int UPLOAD_LINES = 5;
+
+    //The routes under load, named as in the mix and the budget
+    private enum Route {
+        INDEX("index"), ADD_MOVIE("addMovie"), UPLOAD("upload"), UPDATE("update"), DELETE_CONFIRMED("deleteConfirmed");
+
+        private final String key;
+
+        Route(String key) {
+            this.key = key;
+        }
+
+        static Route fromKey(String key) {
+            for (Route route : values()) {
+                if (route.key.equals(key)) return route;
+            }
+            throw new IllegalArgumentException("Unknown route '" + key + "' in load.mix");
+        }
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private slasherStatsManager manager;
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    //Unit test for every route staying within its latency budget under concurrent load
+    @Test
+    public void routesStayWithinBudget() throws Exception {
+        for (int i = 0; i < MOVIES; i++) {
+            assertTrue(manager.addMovie(new HorrorMovieSQL("Load Seed " + i, "Director " + (i % 50), 1970 + i % 50,
+                    80 + i % 60, i % 3 == 0 ? "Shudder" : "Netflix", (i % 100) / 10.0, "slasher, load",
+                    LocalDate.of(2024, 1, 1).plusDays(i % 365))));
+        }
+        Route[] mix = parseMix(MIX);
+
+        //Lets the JIT, the template cache and the connection pool settle before anything is kept
+        run(mix, WARMUP_SECONDS, "warmup");
+        Map<Route, Latencies> results = run(mix, SECONDS, "load");
+
+        long requests = 0;
+        long errors = 0;
+        System.out.printf("%d threads for %d s against %d movies%n", THREADS, SECONDS, MOVIES);
+        System.out.printf("%-16s %9s %9s %9s %9s %9s %9s %7s%n", "route", "requests", "req/s", "p50 ms", "p95 ms", "p99 ms", "p999 ms", "errors");
+        for (Map.Entry<Route, Latencies> entry : results.entrySet()) {
+            Latencies latencies = entry.getValue();
+            requests += latencies.count();
+            errors += latencies.errors;
+            if (latencies.count() == 0) continue;
+            System.out.printf("%-16s %9d %9.0f %9.2f %9.2f %9.2f %9.2f %7d%n", entry.getKey().key, latencies.count(),
+                    latencies.count() / (double) SECONDS, latencies.percentileMillis(0.50), latencies.percentileMillis(0.95),
+                    latencies.percentileMillis(0.99), latencies.percentileMillis(0.999), latencies.errors);
+        }
+        double throughput = requests / (double) SECONDS;
+        System.out.printf("Total: %.0f req/s, %d errors%n", throughput, errors);
+
+        List<String> overBudget = new ArrayList<>();
+        Properties budget = loadBudget();
+        for (Map.Entry<Route, Latencies> entry : results.entrySet()) {
+            Latencies latencies = entry.getValue();
+            for (String percentile : new String[]{"p99", "p999"}) {
+                String key = entry.getKey().key + "." + percentile + "-ms";
+                String limit = budget.getProperty(key);
+                if (limit == null || latencies.count() == 0) continue;
+                double actual = latencies.percentileMillis(percentile.equals("p99") ? 0.99 : 0.999);
+                if (actual > Double.parseDouble(limit)) {
+                    overBudget.add(String.format("%s = %.2f ms, budget %s ms", key, actual, limit));
+                }
+            }
+        }
+        double minThroughput = Double.parseDouble(budget.getProperty("min-throughput", "0"));
+        if (throughput < minThroughput) {
+            overBudget.add(String.format("throughput = %.0f req/s, budget at least %.0f req/s", throughput, minThroughput));
+        }
+        double maxErrorRate = Double.parseDouble(budget.getProperty("max-error-rate", "0"));
+        if (errors > requests * maxErrorRate) {
+            overBudget.add(String.format("error rate = %.4f, budget %.4f", errors / (double) Math.max(requests, 1), maxErrorRate));
+        }
+        assertTrue(requests > 0, "No requests were made");
+        assertTrue(overBudget.isEmpty(), "Over the regression budget: " + String.join("; ", overBudget));
+    }
+
+    //Runs every client thread until the time is up and merges what they measured
+    private Map<Route, Latencies> run(Route[] mix, int seconds, String phase) throws Exception {
+        ExecutorService threads = Executors.newFixedThreadPool(THREADS);
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        List<Future<Map<Route, Latencies>>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            String client = phase + "-" + t;
+            workers.add(threads.submit(() -> drive(client, mix, deadline)));
+        }
+        Map<Route, Latencies> merged = new EnumMap<>(Route.class);
+        for (Route route : Route.values()) merged.put(route, new Latencies());
+        for (Future<Map<Route, Latencies>> worker : workers) {
+            worker.get().forEach((route, latencies) -> merged.get(route).addAll(latencies));
+        }
+        threads.shutdown();
+        return merged;
+    }
+
+    //One client: picks the next route from the mix, times the request and keeps the titles it added for deletes
+    private Map<Route, Latencies> drive(String client, Route[] mix, long deadline) {
+        Map<Route, Latencies> measured = new EnumMap<>(Route.class);
+        for (Route route : Route.values()) measured.put(route, new Latencies());
+        Deque<String> added = new ArrayDeque<>();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int sent = 0;
+        while (System.nanoTime() < deadline) {
+            Route route = mix[random.nextInt(mix.length)];
+            //Nothing of this client's to delete yet, so add something instead
+            if (route == Route.DELETE_CONFIRMED && added.isEmpty()) route = Route.ADD_MOVIE;
+            String title = client + " " + sent++;
+            HttpRequest request = switch (route) {
+                case INDEX -> get("/?sort=" + (random.nextBoolean() ? "title" : "rating") + "&dir=" + (random.nextBoolean() ? "asc" : "desc"));
+                case ADD_MOVIE -> {
+                    added.add(title);
+                    yield postForm("/addMovie", movieForm(title, random));
+                }
+                case UPDATE -> postForm("/update", movieForm("Load Seed " + random.nextInt(MOVIES), random));
+                case DELETE_CONFIRMED -> postForm("/deleteConfirmed", Map.of("title", added.poll()));
+                case UPLOAD -> postFile("/upload", uploadFile(title, random));
+            };
+            long start = System.nanoTime();
+            int status;
+            try {
+                status = this.client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            } catch (Exception e) {
+                status = -1;
+            }
+            measured.get(route).add(System.nanoTime() - start, status >= 200 && status < 400);
+        }
+        return measured;
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).GET().build();
+    }
+
+    private HttpRequest postForm(String path, Map<String, String> fields) {
+        String body = fields.entrySet().stream()
+                .map(field -> URLEncoder.encode(field.getKey(), StandardCharsets.UTF_8) + "=" + URLEncoder.encode(field.getValue(), StandardCharsets.UTF_8))
+                .collect(Collectors.joining("&"));
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private HttpRequest postFile(String path, String content) {
+        String boundary = "load" + System.nanoTime();
+        String body = "--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"load.txt\"\r\n"
+                + "Content-Type: text/plain\r\n\r\n"
+                + content + "\r\n"
+                + "--" + boundary + "--\r\n";
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    //The fields of the add and update forms; the form takes dates as yyyy-MM-dd
+    private static Map<String, String> movieForm(String title, ThreadLocalRandom random) {
+        Map<String, String> form = new LinkedHashMap<>();
+        form.put("title", title);
+        form.put("director", "Director " + random.nextInt(50));
+        form.put("releaseYear", String.valueOf(1970 + random.nextInt(50)));
+        form.put("runtimeMinutes", String.valueOf(80 + random.nextInt(60)));
+        form.put("streamingPlatform", random.nextBoolean() ? "Shudder" : "Netflix");
+        form.put("rating", String.valueOf(random.nextInt(100) / 10.0));
+        form.put("tags", "slasher, load");
+        form.put("dateWatched", String.format("2024-%02d-%02d", 1 + random.nextInt(12), 1 + random.nextInt(28)));
+        return form;
+    }
+
+    //A few lines of the bulk format: title,director,year,runtime,platform,rating,tags,dd-MM-yyyy
+    private static String uploadFile(String title, ThreadLocalRandom random) {
+        StringBuilder file = new StringBuilder();
+        for (int i = 0; i < UPLOAD_LINES; i++) {
+            file.append(title).append(" upload ").append(i).append(",Director ").append(random.nextInt(50))
+                    .append(',').append(1970 + random.nextInt(50)).append(',').append(80 + random.nextInt(60))
+                    .append(",Shudder,").append(random.nextInt(100) / 10.0).append(",slasher,")
+                    .append(String.format("%02d-%02d-2024", 1 + random.nextInt(28), 1 + random.nextInt(12))).append('\n');
+        }
+        return file.toString();
+    }
+
+    //Turns "index=60,addMovie=15" into a table to draw routes from with those weights
+    private static Route[] parseMix(String mix) {
+        List<Route> table = new ArrayList<>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split("=");
+            if (parts.length != 2) throw new IllegalArgumentException("Expected route=weight in load.mix but got '" + entry + "'");
+            Route route = Route.fromKey(parts[0].trim());
+            for (int i = Integer.parseInt(parts[1].trim()); i > 0; i--) table.add(route);
+        }
+        if (table.isEmpty()) throw new IllegalArgumentException("load.mix has no routes");
+        return table.toArray(new Route[0]);
+    }
+
+    //The budget file, with any load.budget.* system property taking precedence
+    private static Properties loadBudget() throws Exception {
+        Properties budget = new Properties();
+        try (InputStream in = MovieControllerLoadTest.class.getResourceAsStream("/load-budget.properties")) {
+            if (in != null) budget.load(in);
+        }
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith("load.budget.")) budget.setProperty(name.substring("load.budget.".length()), System.getProperty(name));
+        }
+        return budget;
+    }
+
+    //Request latencies of one route in nanoseconds, and how many requests failed
+    private static final class Latencies {
+        private long[] nanos = new long[1024];
+        private int size;
+        private long errors;
+
+        void add(long elapsed, boolean ok) {
+            if (size == nanos.length) nanos = Arrays.copyOf(nanos, size * 2);
+            nanos[size++] = elapsed;
+            if (!ok) errors++;
+        }
+
+        void addAll(Latencies other) {
+            for (int i = 0; i < other.size; i++) add(other.nanos[i], true);
+            errors += other.errors;
+        }
+
+        int count() {
+            return size;
+        }
+
+        //Nearest-rank percentile
+        double percentileMillis(double percentile) {
+            long[] sorted = Arrays.copyOf(nanos, size);
+            Arrays.sort(sorted);
+            int rank = (int) Math.ceil(percentile * size) - 1;
+            return sorted[Math.max(rank, 0)] / 1_000_000.0;
+        }
+    }
+}
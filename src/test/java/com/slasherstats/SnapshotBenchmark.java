@@ -0,0 +1,131 @@
+package com.slasherstats;
+
+import com.slasherstats.model.HorrorMovieSQL;
+import com.slasherstats.repository.HorrorMovieRepository;
+import com.slasherstats.service.BulkImportReport;
+import com.slasherstats.service.BulkRecordParser;
+import com.slasherstats.service.CatalogExport;
+import com.slasherstats.service.SnapshotReader;
+import com.slasherstats.service.slasherStatsManager;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Compares a binary snapshot with a CSV export of the same catalog: file size, and the cost of turning
+ * each back into movies, decoding against parsing on one thread. Also prints both imports end to end
+ * with the database writes mocked out.
+ * Only runs with {@code mvn test -Pperf}; tune with {@code -Dbench.movies}.
+ */
+@Tag("perf")
+public class SnapshotBenchmark {
+
+    private static final int MOVIES = Integer.getInteger("bench.movies", 200_000);
+
+    @TempDir
+    Path dir;
+
+    //Unit test for a snapshot being smaller and faster to read than the CSV export of the same catalog
+    @Test
+    public void snapshotBeatsCsv() throws Exception {
+        //Stub-only, so the mock does not hold on to every chunk it is handed
+        HorrorMovieRepository repository = mock(HorrorMovieRepository.class, withSettings().stubOnly());
+        AtomicInteger ids = new AtomicInteger();
+        when(repository.insertChunk(anyList())).thenAnswer(invocation -> {
+            List<HorrorMovieSQL> chunk = invocation.getArgument(0);
+            for (HorrorMovieSQL movie : chunk) movie.setId(ids.incrementAndGet());
+            return List.of();
+        });
+        doAnswer(invocation -> {
+            Consumer<HorrorMovieSQL> action = invocation.getArgument(0);
+            for (int i = 0; i < MOVIES; i++) action.accept(movie(i));
+            return (long) MOVIES;
+        }).when(repository).streamMovies(any());
+        slasherStatsManager manager = new slasherStatsManager(repository);
+
+        Path csv = dir.resolve("catalog.csv");
+        Path snapshot = dir.resolve("catalog.snapshot");
+        try (OutputStream out = Files.newOutputStream(csv)) {
+            manager.exportMovies(CatalogExport.Format.CSV, out);
+        }
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            manager.writeSnapshot(channel);
+        }
+
+        //Warm up both formats before the last round is kept
+        double parseRate = 0;
+        double decodeRate = 0;
+        for (int round = 0; round < 5; round++) {
+            parseRate = parseCsv(csv);
+            decodeRate = decodeSnapshot(snapshot);
+        }
+        System.out.printf("CSV: %d bytes, parsed at %.0f movies/s; snapshot: %d bytes, decoded at %.0f movies/s; x%.1f%n",
+                Files.size(csv), parseRate, Files.size(snapshot), decodeRate, decodeRate / parseRate);
+
+        //End to end the catalog indexes are updated for every movie either way, which costs more than reading it
+        BulkImportReport imported = null;
+        BulkImportReport restored = null;
+        for (int round = 0; round < 2; round++) {
+            imported = new BulkImportReport(manager.getBulkChunkSize());
+            manager.importBulkMovies(csv, imported);
+            restored = new BulkImportReport(manager.getBulkChunkSize());
+            try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+                manager.restoreSnapshot(channel, restored);
+            }
+            assertEquals(MOVIES, imported.getRowsAccepted());
+            assertEquals(MOVIES, restored.getRowsAccepted());
+        }
+        System.out.printf("Import with writes mocked: CSV %.0f movies/s (%d parse workers), snapshot %.0f movies/s%n",
+                imported.getRowsPerSecond(), manager.getBulkParseWorkers(), restored.getRowsPerSecond());
+
+        assertTrue(Files.size(snapshot) * 2 < Files.size(csv), "Snapshot should be less than half the size of the CSV export");
+        assertTrue(decodeRate > parseRate * 2, "Decoding a snapshot should be well ahead of parsing CSV");
+    }
+
+    //Parses every line of the CSV on one thread, as one parse worker of a bulk import does
+    private static double parseCsv(Path csv) throws Exception {
+        byte[] bytes = Files.readAllBytes(csv);
+        BulkRecordParser parser = new BulkRecordParser();
+        long start = System.nanoTime();
+        int movies = 0;
+        for (int lineStart = 0, i = 0; i < bytes.length; i++) {
+            if (bytes[i] != '\n') continue;
+            if (parser.parse(bytes, lineStart, i) != null) movies++;
+            lineStart = i + 1;
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        assertEquals(MOVIES, movies);
+        return movies / seconds;
+    }
+
+    private static double decodeSnapshot(Path snapshot) throws Exception {
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            long start = System.nanoTime();
+            SnapshotReader reader = new SnapshotReader(channel);
+            int movies = 0;
+            while (reader.next() != null) movies++;
+            double seconds = (System.nanoTime() - start) / 1e9;
+            assertEquals(MOVIES, movies);
+            return movies / seconds;
+        }
+    }
+
+    private static HorrorMovieSQL movie(int i) {
+        return new HorrorMovieSQL("Movie " + i, "Director " + (i % 500), 1970 + i % 50, 80 + i % 60,
+                i % 3 == 0 ? "Shudder" : "Netflix", (i % 100) / 10.0, i % 2 == 0 ? "slasher, gore" : "ghost",
+                LocalDate.of(2024, 1, 1).plusDays(i % 365));
+    }
+}
@@ -0,0 +1,290 @@
+package com.slasherstats;
+
+import com.slasherstats.service.BulkRejectReason;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.StringJoiner;
+
+/**
+ * Writes synthetic movie catalogs in the bulk import format,
+ * {@code title,director,releaseYear,runtimeMinutes,platform,rating,tags,dd-MM-yyyy}, for tests at sizes the
+ * sample files do not reach. The same seed always gives the same file. Lines are written as they are made, so
+ * a 100M row file needs no more memory than a 1K row one.
+ * <p>
+ * Like a real catalog, a few directors, platforms and tags account for most movies (Zipf-distributed), ratings
+ * and runtimes cluster around typical values and recent years are more common. About one title in a hundred
+ * contains a comma, and movies with more than one tag list them comma separated, so both are quoted. A share of
+ * lines can be made dirty, each broken in a way that the importer rejects for one known {@link BulkRejectReason},
+ * counted in {@link #getDirtyLines()}.
+ * <p>
+ * Run {@link #main} to write a file by hand: {@code <file> <rows> [seed] [dirtyRate]}.
+ */
+public class SyntheticCatalog {
+
+    private static final String[] ADJECTIVES = {"Black", "Silent", "Hollow", "Bloody", "Last", "Dark", "Crimson", "Cursed",
+            "Forgotten", "Burning", "Wicked", "Frozen", "Endless", "Hungry", "Pale", "Rotten", "Screaming", "Twisted",
+            "Haunted", "Savage", "Lost", "Deadly", "Unholy", "Midnight", "Sleepless"};
+    private static final String[] NOUNS = {"House", "Night", "Woods", "Lake", "Harvest", "Mask", "Cabin", "Asylum",
+            "Carnival", "Doll", "Choir", "Hotel", "Ritual", "Orchard", "Attic", "Static", "Tide", "Basement", "Hunger",
+            "Shadow", "Chapel", "Road", "Signal", "Farm", "Witness", "Sermon", "Island", "Circus", "Camp", "Mirror"};
+    private static final String[] FIRST_NAMES = {"John", "Wes", "Ari", "Jennifer", "James", "Robert", "Mike", "Rob",
+            "Sam", "Jordan", "Karyn", "Julia", "Ti", "Mary", "David", "Fede", "Jason", "Leigh", "Osgood", "Natalie"};
+    private static final String[] LAST_NAMES = {"Carpenter", "Craven", "Aster", "Kent", "Wan", "Eggers", "Flanagan",
+            "Zombie", "Raimi", "Peele", "Kusama", "Ducournau", "West", "Harron", "Cronenberg", "Alvarez", "Lei",
+            "Whannell", "Perkins", "Erika", "Argento", "Romero", "Hooper", "Barker", "Bava"};
+    private static final String[] PLATFORMS = {"Netflix", "Shudder", "Amazon Prime", "Hulu", "Max", "Tubi", "Peacock",
+            "Paramount+", "Apple TV", "Criterion Channel", "Blu-ray", "Theater"};
+    private static final String[] TAGS = {"slasher", "supernatural", "psychological", "gore", "found footage", "ghost",
+            "haunted house", "possession", "zombie", "vampire", "werewolf", "creature", "body horror", "folk horror",
+            "cult", "witch", "demon", "survival", "home invasion", "classic", "comedy", "sci-fi", "anthology",
+            "monster", "cosmic", "revenge", "teen", "holiday", "killer doll", "clown", "cannibal", "alien", "occult",
+            "giallo", "creepy kids", "isolation", "small town", "camp", "mockumentary", "splatter"};
+    private static final int DIRECTORS = FIRST_NAMES.length * LAST_NAMES.length;
+    private static final LocalDate FIRST_WATCHED = LocalDate.of(2015, 1, 1);
+    private static final int WATCHED_DAYS = 10 * 365;
+    //How strongly the most common values dominate; 1.0 is the classic word-frequency skew
+    private static final double SKEW = 1.1;
+    //Dirty line kinds, drawn uniformly; WRITE_FAILED needs a database to refuse the row and is left out
+    private static final BulkRejectReason[] DIRTY_KINDS = {BulkRejectReason.FIELD_COUNT, BulkRejectReason.MISSING_TITLE,
+            BulkRejectReason.BAD_YEAR, BulkRejectReason.BAD_RUNTIME, BulkRejectReason.BAD_RATING,
+            BulkRejectReason.RATING_OUT_OF_RANGE, BulkRejectReason.BAD_DATE};
+
+    private final long seed;
+    private final double dirtyRate;
+    private final double[] directorWeights = zipf(DIRECTORS);
+    private final double[] platformWeights = zipf(PLATFORMS.length);
+    private final double[] tagWeights = zipf(TAGS.length);
+    private final Map<BulkRejectReason, Long> dirtyLines = new EnumMap<>(BulkRejectReason.class);
+
+    /**
+     * Creates a generator.
+     *
+     * @param seed      the random seed; the same seed and settings give the same file
+     * @param dirtyRate share of lines to break, from 0.0 to 1.0
+     */
+    public SyntheticCatalog(long seed, double dirtyRate) {
+        if (dirtyRate < 0.0 || dirtyRate > 1.0) throw new IllegalArgumentException("Dirty rate must be between 0.0 and 1.0");
+        this.seed = seed;
+        this.dirtyRate = dirtyRate;
+    }
+
+    /**
+     * Writes a catalog to a file, replacing it if it exists.
+     *
+     * @param file the file to write
+     * @param rows the number of lines to write
+     * @return the size of the file in bytes
+     * @throws IOException if the file cannot be written
+     */
+    public long write(Path file, long rows) throws IOException {
+        try (Writer out = new BufferedWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8), 1 << 16)) {
+            write(out, rows);
+        }
+        return Files.size(file);
+    }
+
+    /**
+     * Writes a catalog, one line per movie.
+     *
+     * @param out  where the lines are written; not closed
+     * @param rows the number of lines to write
+     * @throws IOException if writing fails
+     */
+    public void write(Writer out, long rows) throws IOException {
+        if (rows < 0) throw new IllegalArgumentException("Rows must not be negative");
+        dirtyLines.clear();
+        SplittableRandom random = new SplittableRandom(seed);
+        StringBuilder line = new StringBuilder(160);
+        for (long row = 0; row < rows; row++) {
+            line.setLength(0);
+            if (dirtyRate > 0 && random.nextDouble() < dirtyRate) {
+                BulkRejectReason kind = DIRTY_KINDS[random.nextInt(DIRTY_KINDS.length)];
+                appendDirty(line, row, kind, random);
+                dirtyLines.merge(kind, 1L, Long::sum);
+            } else {
+                appendMovie(line, row, random);
+            }
+            out.append(line).append('\n');
+        }
+        out.flush();
+    }
+
+    /**
+     * Returns how many lines of the last catalog written were broken, by the reason the importer gives.
+     *
+     * @return dirty line counts; reasons without dirty lines are left out
+     */
+    public Map<BulkRejectReason, Long> getDirtyLines() {
+        return Collections.unmodifiableMap(dirtyLines);
+    }
+
+    /**
+     * Returns the number of broken lines in the last catalog written.
+     *
+     * @return the number of dirty lines
+     */
+    public long getDirtyLineCount() {
+        return dirtyLines.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    //title,director,year,runtime,platform,rating,tags,dd-MM-yyyy
+    private void appendMovie(StringBuilder line, long row, SplittableRandom random) {
+        appendTitle(line, row, random);
+        line.append(',');
+        int director = pick(directorWeights, random);
+        line.append(FIRST_NAMES[director % FIRST_NAMES.length]).append(' ').append(LAST_NAMES[director / FIRST_NAMES.length]);
+        //Skewed towards recent years: the later of two draws
+        line.append(',').append(1960 + Math.max(random.nextInt(65), random.nextInt(65)));
+        line.append(',').append(clamp((int) Math.round(95 + random.nextGaussian() * 14), 60, 200));
+        line.append(',').append(PLATFORMS[pick(platformWeights, random)]);
+        double rating = clamp(6.2 + random.nextGaussian() * 1.4, 0.0, 10.0);
+        line.append(',').append(Math.round(rating * 10) / 10.0);
+        line.append(',');
+        appendTags(line, random);
+        line.append(',');
+        appendDate(line, FIRST_WATCHED.plusDays(random.nextInt(WATCHED_DAYS)));
+    }
+
+    //A good line with one field broken the way a hand-edited or exported file breaks it
+    private void appendDirty(StringBuilder line, long row, BulkRejectReason kind, SplittableRandom random) {
+        appendMovie(line, row, random);
+        String[] fields = splitUnquoted(line.toString());
+        switch (kind) {
+            case FIELD_COUNT -> fields[6] = null;
+            case MISSING_TITLE -> fields[0] = "";
+            case BAD_YEAR -> fields[2] = "19" + (char) ('a' + random.nextInt(26)) + "9";
+            case BAD_RUNTIME -> fields[3] = random.nextBoolean() ? "ninety" : "";
+            case BAD_RATING -> fields[5] = random.nextBoolean() ? "n/a" : "7.5.1";
+            case RATING_OUT_OF_RANGE -> fields[5] = random.nextBoolean() ? "11.5" : "-1.0";
+            case BAD_DATE -> fields[7] = random.nextBoolean() ? "31-02-2023" : "2023/10/31";
+            default -> throw new IllegalArgumentException("Cannot make a dirty line for " + kind);
+        }
+        StringJoiner joined = new StringJoiner(",");
+        for (String field : fields) {
+            if (field != null) joined.add(field);
+        }
+        line.setLength(0);
+        line.append(joined);
+    }
+
+    //Unique per row: the adjective and noun cycle and a sequel number tells repeats apart
+    private static void appendTitle(StringBuilder line, long row, SplittableRandom random) {
+        long combos = (long) ADJECTIVES.length * NOUNS.length;
+        String title = "The " + ADJECTIVES[(int) (row / NOUNS.length % ADJECTIVES.length)] + " " + NOUNS[(int) (row % NOUNS.length)];
+        long sequel = row / combos;
+        if (sequel > 0) title += " " + (sequel + 1);
+        if (random.nextInt(100) == 0) {
+            line.append('"').append(title).append(", Again\"");
+        } else {
+            line.append(title);
+        }
+    }
+
+    //One to three distinct tags; several are comma separated as the tags column stores them, so the field is quoted
+    private void appendTags(StringBuilder line, SplittableRandom random) {
+        int first = pick(tagWeights, random);
+        int second = random.nextInt(3) > 0 ? pick(tagWeights, random) : first;
+        int third = random.nextInt(3) == 0 ? pick(tagWeights, random) : first;
+        if (second == first && third == first) {
+            line.append(TAGS[first]);
+            return;
+        }
+        line.append('"').append(TAGS[first]);
+        if (second != first) line.append(", ").append(TAGS[second]);
+        if (third != first && third != second) line.append(", ").append(TAGS[third]);
+        line.append('"');
+    }
+
+    private static void appendDate(StringBuilder line, LocalDate date) {
+        appendTwoDigits(line, date.getDayOfMonth());
+        line.append('-');
+        appendTwoDigits(line, date.getMonthValue());
+        line.append('-').append(date.getYear());
+    }
+
+    private static void appendTwoDigits(StringBuilder line, int value) {
+        if (value < 10) line.append('0');
+        line.append(value);
+    }
+
+    //Cumulative Zipf weights for ranks 1..n, so value 0 is the most common
+    private static double[] zipf(int n) {
+        double[] cumulative = new double[n];
+        double total = 0;
+        for (int rank = 1; rank <= n; rank++) {
+            total += 1.0 / Math.pow(rank, SKEW);
+            cumulative[rank - 1] = total;
+        }
+        for (int i = 0; i < n; i++) cumulative[i] /= total;
+        return cumulative;
+    }
+
+    private static int pick(double[] cumulative, SplittableRandom random) {
+        double target = random.nextDouble();
+        int low = 0;
+        int high = cumulative.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cumulative[mid] < target) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    private static double clamp(double value, double min, double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    //Splits a generated line into its 8 fields, keeping quoted fields whole
+    private static String[] splitUnquoted(String line) {
+        String[] fields = new String[8];
+        int field = 0;
+        int start = 0;
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') quoted = !quoted;
+            if (c == ',' && !quoted) {
+                fields[field++] = line.substring(start, i);
+                start = i + 1;
+            }
+        }
+        fields[field] = line.substring(start);
+        return fields;
+    }
+
+    /**
+     * Writes a catalog file from the command line.
+     *
+     * @param args the file, the number of rows, and optionally the seed and the dirty rate
+     * @throws IOException if the file cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: SyntheticCatalog <file> <rows> [seed] [dirtyRate]");
+            return;
+        }
+        long rows = Long.parseLong(args[1].replace("_", ""));
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+        double dirtyRate = args.length > 3 ? Double.parseDouble(args[3]) : 0.0;
+        SyntheticCatalog catalog = new SyntheticCatalog(seed, dirtyRate);
+        long start = System.nanoTime();
+        long bytes = catalog.write(Path.of(args[0]), rows);
+        System.out.printf("Wrote %d rows (%d dirty), %d bytes in %.1f s%n", rows, catalog.getDirtyLineCount(), bytes,
+                (System.nanoTime() - start) / 1e9);
+    }
+}
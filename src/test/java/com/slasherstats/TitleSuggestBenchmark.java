@@ -0,0 +1,121 @@
+package com.slasherstats;
+
+import com.slasherstats.model.HorrorMovieSQL;
+import com.slasherstats.repository.HorrorMovieRepository;
+import com.slasherstats.service.TitleSuggestIndex;
+import com.slasherstats.service.slasherStatsManager;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Measures title suggestion latency at a million titles. Titles are two to four words drawn from a
+ * long-tailed vocabulary: a few horror staples such as "the" and "night" appear in a large share of
+ * titles, most words are rare, as in a real catalog. The rare words are random strings drawn with
+ * English letter frequencies, so their grams range from very common to very rare. Each query is a
+ * real title with one typo.
+ * Only runs with {@code mvn test -Pperf}; tune with {@code -Dbench.titles} and {@code -Dbench.queries}.
+ */
+@Tag("perf")
+public class TitleSuggestBenchmark {
+
+    private static final int TITLES = Integer.getInteger("bench.titles", 1_000_000);
+    private static final int QUERIES = Integer.getInteger("bench.queries", 20_000);
+    private static final int VOCABULARY = 50_000;
+    private static final String[] COMMON = {"the", "night", "of", "dead", "return", "living", "house", "blood",
+            "evil", "curse", "scream", "witch", "dark", "hollow", "massacre", "revenge", "beyond", "grave",
+            "shadow", "cabin", "woods", "hills", "eyes", "silent", "hell", "demon", "possession", "ritual",
+            "haunting", "creature", "black", "lagoon", "zombie", "terror", "attack", "killer", "clown", "doll"};
+    //Letters repeated in proportion to their frequency in English text (per mille), so some grams are common and some rare
+    private static final String LETTERS = letters("e127t91a82o75i70n67s63h61r60d43l40c28u28m24w24f22g20y20p19b15v10k8j2x2q1z1");
+    private static final String[] WORDS = vocabulary();
+
+    //Unit test for a million-title index answering typo queries in about a millisecond
+    @Test
+    public void benchmarkSuggestLatency() {
+        HorrorMovieRepository repository = mock(HorrorMovieRepository.class);
+        doAnswer(invocation -> {
+            Consumer<HorrorMovieSQL> action = invocation.getArgument(0);
+            for (int i = 0; i < TITLES; i++) {
+                HorrorMovieSQL movie = new HorrorMovieSQL(title(i), "Director", 2000, 90, "Shudder", 5.0, "slasher", null);
+                movie.setId(i + 1);
+                action.accept(movie);
+            }
+            return (long) TITLES;
+        }).when(repository).forEachMovie(any());
+        slasherStatsManager manager = new slasherStatsManager(repository);
+        long buildStart = System.nanoTime();
+        manager.rebuildCatalogListeners();
+        System.out.printf("Indexed %d titles in %d ms%n", TITLES, (System.nanoTime() - buildStart) / 1_000_000);
+
+        Random random = new Random(42);
+        //Warm up the JIT before timing
+        for (int i = 0; i < 2_000; i++) manager.suggestTitles(typo(title(random.nextInt(TITLES)), random), 10);
+        long[] nanos = new long[QUERIES];
+        int found = 0;
+        for (int i = 0; i < QUERIES; i++) {
+            String title = title(random.nextInt(TITLES));
+            String query = typo(title, random);
+            long start = System.nanoTime();
+            List<TitleSuggestIndex.Suggestion> suggestions = manager.suggestTitles(query, 10);
+            nanos[i] = System.nanoTime() - start;
+            if (suggestions.stream().anyMatch(s -> s.title().equalsIgnoreCase(title))) found++;
+        }
+        Arrays.sort(nanos);
+        double median = nanos[QUERIES / 2] / 1_000_000.0;
+        double p99 = nanos[QUERIES * 99 / 100] / 1_000_000.0;
+        System.out.printf("Suggest: median %.3f ms, p99 %.3f ms, intended title in top 10 for %.1f%% of typos%n",
+                median, p99, 100.0 * found / QUERIES);
+        assertTrue(median < 2.0, "Median suggestion latency should stay around a millisecond");
+        assertTrue(found > QUERIES * 0.8, "Most single typos should still find the intended title");
+    }
+
+    //Two to four words; word ranks are log-uniform so the first few words are very common
+    private static String title(int i) {
+        Random random = new Random(i);
+        StringBuilder title = new StringBuilder();
+        int words = 2 + random.nextInt(3);
+        for (int w = 0; w < words; w++) {
+            if (w > 0) title.append(' ');
+            title.append(WORDS[(int) Math.pow(WORDS.length, random.nextDouble()) - 1]);
+        }
+        return title.toString();
+    }
+
+    private static String[] vocabulary() {
+        String[] words = Arrays.copyOf(COMMON, VOCABULARY);
+        Random random = new Random(7);
+        for (int i = COMMON.length; i < VOCABULARY; i++) {
+            char[] word = new char[4 + random.nextInt(6)];
+            for (int c = 0; c < word.length; c++) word[c] = LETTERS.charAt(random.nextInt(LETTERS.length()));
+            words[i] = new String(word);
+        }
+        return words;
+    }
+
+    private static String letters(String frequencies) {
+        StringBuilder letters = new StringBuilder();
+        java.util.regex.Matcher m = java.util.regex.Pattern.compile("([a-z])(\\d+)").matcher(frequencies);
+        while (m.find()) letters.append(m.group(1).repeat(Integer.parseInt(m.group(2))));
+        return letters.toString();
+    }
+
+    //Swaps two neighbouring letters of a random word, the most common typing mistake
+    private static String typo(String title, Random random) {
+        char[] chars = title.toCharArray();
+        int at = random.nextInt(chars.length - 1);
+        if (Character.isLetter(chars[at]) && Character.isLetter(chars[at + 1])) {
+            char c = chars[at];
+            chars[at] = chars[at + 1];
+            chars[at + 1] = c;
+        }
+        return new String(chars);
+    }
+}
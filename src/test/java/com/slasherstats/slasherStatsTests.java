@@ -1,18 +1,53 @@
 package com.slasherstats;
 
 import com.slasherstats.model.HorrorMovieSQL;
+import com.slasherstats.repository.BulkWrite;
 import com.slasherstats.repository.HorrorMovieRepository;
+import com.slasherstats.repository.MovieField;
+import com.slasherstats.repository.MovieFilter;
+import com.slasherstats.repository.MovieSort;
+import com.slasherstats.service.BulkImportJob;
+import com.slasherstats.service.BulkImportJobService;
+import com.slasherstats.service.BulkImportReport;
+import com.slasherstats.service.BulkRejectReason;
+import com.slasherstats.service.CatalogColumns;
+import com.slasherstats.service.CatalogStatistics;
+import com.slasherstats.service.MoviePage;
+import com.slasherstats.service.MovieUpdate;
+import com.slasherstats.service.OperationMetrics;
+import com.slasherstats.service.TagSearchResult;
+import com.slasherstats.service.TitleSuggestIndex;
 import com.slasherstats.service.slasherStatsManager;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.FileWriter;
+import java.io.IOException;
 import java.io.PrintWriter;
+import java.nio.channels.Channels;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.AdditionalAnswers.answer;
+import static org.mockito.AdditionalAnswers.returnsFirstArg;
 import static org.mockito.Mockito.*;
 
 /**
@@ -27,6 +62,8 @@ public class slasherStatsTests {
     @BeforeEach
     public void setUp() {
         mockRepository = mock(HorrorMovieRepository.class);
+        //Like a real repository, save hands back the movie it stored
+        when(mockRepository.save(any())).thenAnswer(returnsFirstArg());
         appManager = new slasherStatsManager(mockRepository);
     }
     //Unit test for add movie success
@@ -67,8 +104,8 @@ public class slasherStatsTests {
     public void testBulkMoviesSuccess() throws Exception {
         String filename = "test_bulk_movies.txt";
         try (PrintWriter writer = new PrintWriter(new FileWriter(filename))) {
-            writer.println("It Follows,David Robert Mitchell,2014,100,Netflix,6.8,supernatural,10-29-2021");
-            writer.println("The Babadook,Jennifer Kent,2014,94,Hulu,6.9,psychological,10-30-2021");
+            writer.println("It Follows,David Robert Mitchell,2014,100,Netflix,6.8,supernatural,29-10-2021");
+            writer.println("The Babadook,Jennifer Kent,2014,94,Hulu,6.9,psychological,30-10-2021");
         }
         List<HorrorMovieSQL> added = appManager.addBulkMovies(filename);
         assertEquals(2, added.size());
@@ -118,4 +155,635 @@ public class slasherStatsTests {
         appManager.deleteMovie("Nonexistent");
         assertEquals(0, appManager.getAccountPoints());
     }
-}
\ No newline at end of file
+    //Unit test for concurrent adds and reconciling the points with the movie count
+    @Test
+    public void testAccountPointsConcurrentAndReconcile() throws Exception {
+        LocalDate dateWatched = LocalDate.parse("06-25-2025", formatter);
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 500; i++) {
+                    appManager.addMovie(new HorrorMovieSQL("Movie", "Director", 2025, 100, "Platform", 5.0, "tag", dateWatched));
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) thread.join();
+        assertEquals(40_000, appManager.getAccountPoints());
+        verify(mockRepository, never()).findAll();
+
+        //Rows removed outside the application are picked up by the next reconciliation
+        when(mockRepository.count()).thenReturn(3_990L);
+        assertEquals(-100, appManager.reconcilePoints());
+        assertEquals(39_900, appManager.getAccountPoints());
+        assertEquals(0, appManager.reconcilePoints());
+    }
+    //Unit test for a recalculation never overwriting an add that commits while the rows are counted
+    @Test
+    public void testRecalculatePointsKeepsConcurrentWrites() throws Exception {
+        LocalDate dateWatched = LocalDate.parse("06-25-2025", formatter);
+        Thread[] writer = new Thread[1];
+        when(mockRepository.count()).thenAnswer(invocation -> {
+            writer[0] = new Thread(() -> appManager.addMovie(
+                    new HorrorMovieSQL("Late", "Director", 2025, 100, "Platform", 5.0, "tag", dateWatched)));
+            writer[0].start();
+            writer[0].join(200);
+            return 5L;
+        });
+        appManager.recalculatePoints();
+        writer[0].join();
+        assertEquals(60, appManager.getAccountPoints());
+    }
+    //Unit test for remembering title lookups and forgetting them once the movie is gone
+    @Test
+    public void testTitleLookupCache() {
+        LocalDate dateWatched = LocalDate.parse("06-25-2025", formatter);
+        HorrorMovieSQL movie = new HorrorMovieSQL("Movie", "Director", 2025, 100, "Platform", 5.0, "tag", dateWatched);
+        movie.setId(7);
+        //Only the title to id layer is under test here
+        appManager.setCatalogCacheLookups(0);
+        when(mockRepository.findByTitleIgnoreCase(anyString())).thenReturn(movie);
+        when(mockRepository.findById(7)).thenReturn(Optional.of(movie));
+
+        assertSame(movie, appManager.findMovie("Movie"));
+        assertSame(movie, appManager.findMovie(" MOVIE"));
+        verify(mockRepository, times(1)).findByTitleIgnoreCase(anyString());
+        verify(mockRepository, times(1)).findById(7);
+
+        //A cached id whose movie was renamed is not trusted
+        movie.setTitle("Renamed");
+        when(mockRepository.findByTitleIgnoreCase("movie")).thenReturn(null);
+        assertNull(appManager.findMovie("movie"));
+
+        movie.setTitle("Movie");
+        assertTrue(appManager.deleteMovie("Movie"));
+        when(mockRepository.findByTitleIgnoreCase("Movie")).thenReturn(null);
+        assertNull(appManager.findMovie("Movie"));
+    }
+    //Unit test for serving pages and lookups from the catalog cache and invalidating only what a write touches
+    @Test
+    public void testCatalogCacheInvalidatesOnlyAffectedPages() {
+        LocalDate dateWatched = LocalDate.parse("06-25-2025", formatter);
+        List<HorrorMovieSQL> firstPage = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            HorrorMovieSQL movie = new HorrorMovieSQL("B" + i, "Director", 2000, 90, "Platform", 5.0, "tag", dateWatched);
+            movie.setId(i + 1);
+            firstPage.add(movie);
+        }
+        HorrorMovieSQL last = new HorrorMovieSQL("Z", "Director", 2000, 90, "Platform", 5.0, "tag", dateWatched);
+        last.setId(9);
+        //Pages of two: B0, B1 and then B2, Z
+        when(mockRepository.findPage(MovieSort.TITLE, false, null, null, 3)).thenReturn(firstPage);
+        when(mockRepository.findPage(eq(MovieSort.TITLE), eq(false), eq("B1"), eq(2), anyInt()))
+                .thenReturn(List.of(firstPage.get(2), last));
+        when(mockRepository.findByTitleIgnoreCase("B1")).thenReturn(firstPage.get(1));
+
+        MoviePage page = appManager.viewMovies(MovieSort.TITLE, false, null, 2);
+        appManager.viewMovies(MovieSort.TITLE, false, null, 2);
+        appManager.viewMovies(MovieSort.TITLE, false, page.nextCursor(), 2);
+        appManager.viewMovies(MovieSort.TITLE, false, page.nextCursor(), 2);
+        appManager.findMovie("B1");
+        HorrorMovieSQL found = appManager.findMovie("b1");
+        assertNotSame(firstPage.get(1), found);
+        verify(mockRepository, times(1)).findPage(MovieSort.TITLE, false, null, null, 3);
+        verify(mockRepository, times(1)).findByTitleIgnoreCase(anyString());
+        assertEquals(3, appManager.getCatalogCache().stats().hits());
+
+        //"C" sorts after B1, so only the second page is dropped
+        appManager.addMovie(new HorrorMovieSQL("C", "Director", 2000, 90, "Platform", 5.0, "tag", dateWatched));
+        appManager.viewMovies(MovieSort.TITLE, false, null, 2);
+        appManager.viewMovies(MovieSort.TITLE, false, page.nextCursor(), 2);
+        verify(mockRepository, times(1)).findPage(MovieSort.TITLE, false, null, null, 3);
+        verify(mockRepository, times(2)).findPage(eq(MovieSort.TITLE), eq(false), eq("B1"), eq(2), anyInt());
+
+        //Updating B1 drops the first page and its lookup
+        found.setRating(9.0);
+        appManager.updateMovie(found);
+        appManager.viewMovies(MovieSort.TITLE, false, null, 2);
+        appManager.findMovie("B1");
+        verify(mockRepository, times(2)).findPage(MovieSort.TITLE, false, null, null, 3);
+        verify(mockRepository, times(2)).findByTitleIgnoreCase(anyString());
+        assertEquals(3, appManager.getCatalogCache().stats().invalidations());
+    }
+    //Unit test for statistics kept up to date by adds, updates, deletes, bulk imports and a rebuild
+    @Test
+    public void testCatalogStatisticsIncremental(@TempDir Path dir) throws Exception {
+        CatalogStatistics stats = new CatalogStatistics();
+        appManager.setCatalogListeners(List.of(stats));
+        LocalDate dateWatched = LocalDate.parse("10-30-2021", formatter);
+        HorrorMovieSQL scream = new HorrorMovieSQL("Scream", "Wes Craven", 1996, 111, "HBO Max", 7.8, "slasher, Slasher,meta", dateWatched);
+        appManager.addMovie(scream);
+        appManager.addMovie(new HorrorMovieSQL("A Nightmare on Elm Street", "Wes Craven", 1984, 91, "Max", 7.4, "slasher,supernatural", dateWatched));
+        String filename = dir.resolve("stats_movies.txt").toString();
+        try (PrintWriter writer = new PrintWriter(new FileWriter(filename))) {
+            writer.println("Halloween,John Carpenter,1978,91,Shudder,7.7,slasher,31-10-2021");
+            writer.println("The Thing,John Carpenter,1982,109,Shudder,8.2,creature,01-11-2021");
+        }
+        when(mockRepository.insertChunk(anyList())).thenReturn(List.of());
+        appManager.addBulkMovies(filename);
+
+        CatalogStatistics.GroupSummary craven = stats.group(CatalogStatistics.Dimension.DIRECTOR, "wes craven ");
+        assertEquals(2, craven.movies());
+        assertEquals(7.6, craven.meanRating(), 1e-9);
+        assertEquals(7.4, craven.minRating());
+        assertEquals(7.8, craven.maxRating());
+        assertEquals(202, craven.totalRuntimeMinutes());
+        //A tag listed twice on one movie counts once
+        assertEquals(3, stats.group(CatalogStatistics.Dimension.TAG, "slasher").movies());
+        assertEquals(2, stats.group(CatalogStatistics.Dimension.DECADE, "1980s").movies());
+        assertEquals(List.of("Shudder", "HBO Max"), stats.top(CatalogStatistics.Dimension.PLATFORM, CatalogStatistics.Ranking.COUNT, 2)
+                .stream().map(CatalogStatistics.GroupSummary::name).toList());
+        assertEquals("creature", stats.top(CatalogStatistics.Dimension.TAG, CatalogStatistics.Ranking.RATING, 1).get(0).name());
+
+        //Moving Scream to another platform and deleting the other Craven movie only touches their groups
+        when(mockRepository.findByTitleIgnoreCase(anyString())).thenReturn(scream);
+        appManager.updateMovie(new HorrorMovieSQL("Scream", "Wes Craven", 1996, 111, "Shudder", 9.0, "slasher", dateWatched));
+        assertNull(stats.group(CatalogStatistics.Dimension.PLATFORM, "HBO Max"));
+        assertEquals(3, stats.group(CatalogStatistics.Dimension.PLATFORM, "shudder").movies());
+        assertNull(stats.group(CatalogStatistics.Dimension.TAG, "meta"));
+        HorrorMovieSQL nightmare = new HorrorMovieSQL("A Nightmare on Elm Street", "Wes Craven", 1984, 91, "Max", 7.4, "slasher,supernatural", dateWatched);
+        when(mockRepository.findByTitleIgnoreCase("A Nightmare on Elm Street")).thenReturn(nightmare);
+        appManager.deleteMovie("A Nightmare on Elm Street");
+        craven = stats.group(CatalogStatistics.Dimension.DIRECTOR, "Wes Craven");
+        assertEquals(1, craven.movies());
+        assertEquals(9.0, craven.minRating());
+        assertEquals(3, stats.overview(10).groups().get(CatalogStatistics.Dimension.DECADE));
+        assertEquals(3, stats.overview(10).all().movies());
+
+        //A rebuild replaces everything with what the table holds
+        doAnswer(invocation -> {
+            Consumer<HorrorMovieSQL> action = invocation.getArgument(0);
+            action.accept(new HorrorMovieSQL("Us", "Jordan Peele", 2019, 116, "Hulu", 6.8, "thriller", dateWatched));
+            return 1L;
+        }).when(mockRepository).forEachMovie(any());
+        assertEquals(1, appManager.rebuildCatalogListeners());
+        assertEquals(1, stats.overview(10).all().movies());
+        assertNull(stats.group(CatalogStatistics.Dimension.DIRECTOR, "Wes Craven"));
+        assertEquals(10, appManager.getAccountPoints());
+    }
+    //Unit test for AND/OR/NOT tag queries answered by the tag index as movies are added, changed and deleted
+    @Test
+    public void testTagSearch() {
+        LocalDate dateWatched = LocalDate.parse("10-30-2021", formatter);
+        String[][] movies = {
+                {"Scream", "Slasher, Meta"}, {"Halloween", "slasher,Classic"}, {"The Blair Witch Project", "Found Footage"},
+                {"REC", "found footage, zombie"}, {"Friday the 13th", "Slasher, classic, SLASHER"}};
+        List<HorrorMovieSQL> added = new ArrayList<>();
+        for (int i = 0; i < movies.length; i++) {
+            HorrorMovieSQL movie = new HorrorMovieSQL(movies[i][0], "Director", 1990, 90, "Platform", 7.0, movies[i][1], dateWatched);
+            movie.setId(i + 1);
+            appManager.addMovie(movie);
+            added.add(movie);
+        }
+        when(mockRepository.findAllById(anyIterable())).thenAnswer(answer((Iterable<Integer> requested) -> {
+            List<Integer> ids = new ArrayList<>();
+            requested.forEach(ids::add);
+            return added.stream().filter(m -> ids.contains(m.getId())).toList();
+        }));
+
+        TagSearchResult slashers = appManager.searchByTags("slasher", "", "classic", 0, 10);
+        assertEquals(1, slashers.count());
+        assertEquals("Scream", slashers.movies().get(0).getTitle());
+        assertEquals(5, appManager.searchByTags("", "", "", 0, 10).count());
+        TagSearchResult spooky = appManager.searchByTags("", "found footage,meta", "zombie", 0, 10);
+        assertEquals(List.of(1, 3), spooky.movies().stream().map(HorrorMovieSQL::getId).toList());
+        assertEquals(0, appManager.searchByTags("slasher,unknown", "", "", 0, 10).count());
+        //Counts of the tags among the matches, most common first
+        TagSearchResult all = appManager.searchByTags("", "", "", 0, 10);
+        assertEquals(List.of("Slasher", "Classic", "Found Footage"), all.tagCounts().keySet().stream().limit(3).toList());
+        assertEquals(3L, all.tagCounts().get("Slasher"));
+
+        //Paging through the matches two at a time
+        TagSearchResult first = appManager.searchByTags("", "", "", 0, 2);
+        assertEquals(2, first.nextAfter());
+        TagSearchResult last = appManager.searchByTags("", "", "", 4, 2);
+        assertEquals(List.of(5), last.movies().stream().map(HorrorMovieSQL::getId).toList());
+        assertNull(last.nextAfter());
+
+        //Retagging and deleting move ids between bitmaps
+        when(mockRepository.findByTitleIgnoreCase(anyString())).thenAnswer(invocation ->
+                added.stream().filter(m -> m.getTitle().equalsIgnoreCase(invocation.getArgument(0))).findFirst().orElse(null));
+        appManager.updateMovie(new HorrorMovieSQL("Halloween", "Director", 1990, 90, "Platform", 7.0, "slasher", dateWatched));
+        assertEquals(1, appManager.searchByTags("classic", "", "", 0, 10).count());
+        appManager.deleteMovie("Friday the 13th");
+        assertEquals(0, appManager.searchByTags("classic", "", "", 0, 10).count());
+        assertFalse(appManager.searchByTags("", "", "", 0, 10).tagCounts().containsKey("Classic"));
+    }
+    //Unit test for typo-tolerant title suggestions following adds, renames and deletes
+    @Test
+    public void testTitleSuggestions() {
+        LocalDate dateWatched = LocalDate.parse("10-30-2021", formatter);
+        for (String title : new String[]{"Halloween", "Halloween II", "Hellraiser", "Scream", "Scream 2", "The Shining", "SCREAM"}) {
+            appManager.addMovie(new HorrorMovieSQL(title, "Director", 1990, 90, "Platform", 7.0, "tag", dateWatched));
+        }
+
+        List<TitleSuggestIndex.Suggestion> halloween = appManager.suggestTitles("halowen", 5);
+        assertEquals(List.of("Halloween", "Halloween II"), halloween.stream().map(TitleSuggestIndex.Suggestion::title).toList());
+        assertTrue(halloween.get(0).similarity() >= 0.5);
+        //Titles differing only in case are suggested once, and the closer length wins among equal matches
+        assertEquals(List.of("Scream", "Scream 2"), appManager.suggestTitles("screem", 5).stream()
+                .map(TitleSuggestIndex.Suggestion::title).toList());
+        assertEquals("The Shining", appManager.suggestTitles("shinin", 1).get(0).title());
+        assertTrue(appManager.suggestTitles("zzzz", 5).isEmpty());
+        assertTrue(appManager.suggestTitles("", 5).isEmpty());
+
+        //Deleting one of two "Scream" spellings keeps the title; renaming moves it
+        HorrorMovieSQL scream = new HorrorMovieSQL("Scream", "Director", 1990, 90, "Platform", 7.0, "tag", dateWatched);
+        when(mockRepository.findByTitleIgnoreCase(anyString())).thenReturn(scream);
+        appManager.deleteMovie("Scream");
+        assertEquals("Scream", appManager.suggestTitles("scream", 1).get(0).title());
+        HorrorMovieSQL shining = new HorrorMovieSQL("The Shining", "Director", 1990, 90, "Platform", 7.0, "tag", dateWatched);
+        when(mockRepository.findByTitleIgnoreCase(anyString())).thenReturn(shining);
+        appManager.deleteMovie("The Shining");
+        assertTrue(appManager.suggestTitles("shinin", 1).isEmpty());
+    }
+    //Unit test for the latency timers and bulk row counters of manager operations
+    @Test
+    public void testOperationMetrics(@TempDir Path dir) throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        appManager.setMeterRegistry(registry);
+        LocalDate dateWatched = LocalDate.parse("10-30-2021", formatter);
+        appManager.addMovie(new HorrorMovieSQL("Scream", "Wes Craven", 1996, 111, "HBO Max", 7.8, "slasher", dateWatched));
+        appManager.addMovie(null);
+        appManager.findMovie("Missing");
+        appManager.deleteMovie("Missing");
+        String filename = dir.resolve("metrics_movies.txt").toString();
+        try (PrintWriter writer = new PrintWriter(new FileWriter(filename))) {
+            writer.println("Halloween,John Carpenter,1978,91,Shudder,7.7,slasher,31-10-2021");
+            writer.println("The Thing,John Carpenter,1982,109,Shudder,12.0,creature,01-11-2021");
+        }
+        when(mockRepository.insertChunk(anyList())).thenReturn(List.of());
+        appManager.addBulkMovies(filename);
+
+        assertEquals(1, timer(registry, "add", "success").count());
+        assertEquals(1, timer(registry, "add", "failure").count());
+        assertEquals(1, timer(registry, "find", "failure").count());
+        assertEquals(1, timer(registry, "delete", "failure").count());
+        assertEquals(0, timer(registry, "delete", "success").count());
+        assertEquals(1, timer(registry, "bulkImport", "success").count());
+        assertTrue(timer(registry, "add", "success").totalTime(TimeUnit.NANOSECONDS) > 0);
+        assertEquals(1.0, registry.get(OperationMetrics.BULK_ROWS).tag("result", "accepted").counter().count());
+        assertEquals(1.0, registry.get(OperationMetrics.BULK_ROWS).tag("result", "rejected").counter().count());
+    }
+
+    private static Timer timer(SimpleMeterRegistry registry, String operation, String outcome) {
+        return registry.get(OperationMetrics.TIMER).tag("operation", operation).tag("outcome", outcome).timer();
+    }
+    //Unit test for filters and aggregates over the columnar catalog following adds, updates, deletes and a rebuild
+    @Test
+    public void testCatalogColumnsScan() {
+        LocalDate dateWatched = LocalDate.parse("10-30-2021", formatter);
+        List<HorrorMovieSQL> movies = List.of(
+                new HorrorMovieSQL("Halloween", "John Carpenter", 1978, 91, "Shudder", 7.7, "slasher", dateWatched),
+                new HorrorMovieSQL("The Thing", "John Carpenter", 1982, 109, "shudder ", 8.2, "creature", dateWatched.plusDays(1)),
+                new HorrorMovieSQL("Scream", "Wes Craven", 1996, 111, "HBO Max", 7.8, "slasher", dateWatched.plusDays(2)),
+                new HorrorMovieSQL("Terrifier", "Damien Leone", 2016, 85, null, 5.7, "slasher", dateWatched.plusDays(3)));
+        for (int i = 0; i < movies.size(); i++) {
+            movies.get(i).setId(i + 1);
+            appManager.addMovie(movies.get(i));
+        }
+
+        CatalogColumns.Summary all = appManager.scanCatalog(MovieFilter.ALL);
+        assertEquals(4, all.movies());
+        assertEquals(396, all.totalRuntimeMinutes());
+        assertEquals(5.7, all.minRating());
+        assertEquals(8.2, all.maxRating());
+        assertEquals(1, all.ratingHistogram()[5]);
+        assertEquals(2, all.ratingHistogram()[7]);
+        //Platforms are grouped ignoring case, with movies lacking one under ""
+        assertEquals(List.of("Shudder", "HBO Max", ""), List.copyOf(all.platforms().keySet()));
+        assertEquals(2L, all.platforms().get("Shudder"));
+
+        CatalogColumns.Summary carpenter = appManager.scanCatalog(new MovieFilter(
+                null, null, 1980, null, null, null, null, "john carpenter", null, null));
+        assertEquals(1, carpenter.movies());
+        assertEquals(8.2, carpenter.meanRating(), 1e-9);
+        assertEquals(2, appManager.scanCatalog(new MovieFilter(
+                null, null, null, null, null, null, null, null, null, dateWatched.plusDays(1))).movies());
+        assertEquals(0, appManager.scanCatalog(new MovieFilter(
+                null, null, null, null, null, null, "Tubi", null, null, null)).movies());
+
+        //An update patches its row and a delete moves the last row into the gap
+        when(mockRepository.findByTitleIgnoreCase(anyString())).thenReturn(movies.get(0));
+        appManager.updateMovie(new HorrorMovieSQL("Halloween", "John Carpenter", 1978, 91, "Peacock", 9.0, "slasher", dateWatched));
+        appManager.deleteMovie("Halloween");
+        CatalogColumns.Summary afterDelete = appManager.scanCatalog(MovieFilter.ALL);
+        assertEquals(3, afterDelete.movies());
+        assertEquals(8.2, afterDelete.maxRating());
+        assertFalse(afterDelete.platforms().containsKey("Peacock"));
+        assertEquals(1, appManager.scanCatalog(new MovieFilter(
+                5.0, 6.0, null, null, null, null, null, null, null, null)).movies());
+
+        //A rebuild replaces the columns with what the table holds
+        doAnswer(invocation -> {
+            Consumer<HorrorMovieSQL> action = invocation.getArgument(0);
+            action.accept(movies.get(2));
+            return 1L;
+        }).when(mockRepository).forEachMovie(any());
+        appManager.rebuildCatalogListeners();
+        assertEquals(1, appManager.scanCatalog(MovieFilter.ALL).movies());
+        assertEquals(1, appManager.getCatalogColumns().size());
+        //The rebuilt row keeps its watch date, so date bounds still find it
+        assertEquals(1, appManager.scanCatalog(new MovieFilter(
+                null, null, null, null, null, null, null, null, dateWatched.plusDays(2), dateWatched.plusDays(2))).movies());
+    }
+    //Unit test for set-based bulk deletes and updates keeping the points and in-memory indexes in step
+    @Test
+    public void testBulkDeleteAndUpdate() {
+        LocalDate dateWatched = LocalDate.parse("10-30-2021", formatter);
+        List<HorrorMovieSQL> movies = List.of(
+                new HorrorMovieSQL("Scream", "Wes Craven", 1996, 111, "HBO Max", 7.8, "slasher", dateWatched),
+                new HorrorMovieSQL("Scream 2", "Wes Craven", 1997, 120, "HBO Max", 6.3, "slasher", dateWatched),
+                new HorrorMovieSQL("The Thing", "John Carpenter", 1982, 109, "Shudder", 8.2, "creature", dateWatched));
+        for (int i = 0; i < movies.size(); i++) {
+            movies.get(i).setId(i + 1);
+            appManager.addMovie(movies.get(i));
+        }
+
+        //Titles are matched by key, each asked for once however it is spelled; the deleted rows are reported one by one
+        when(mockRepository.deleteByTitleKeys(Set.of("scream 2", "missing"), slasherStatsManager.DEFAULT_BULK_EVENT_LIMIT))
+                .thenReturn(new BulkWrite(1, List.of(new HorrorMovieSQL(movies.get(1)))));
+        assertEquals(1, appManager.deleteMovies(List.of(" SCREAM 2", "scream 2", "Missing", " ")));
+        verify(mockRepository, never()).delete(any());
+        assertEquals(20, appManager.getAccountPoints());
+        assertEquals(1, appManager.scanCatalog(new MovieFilter(null, null, null, null, null, null, "HBO Max", null, null, null)).movies());
+        assertEquals(0, appManager.deleteMovies(List.of()));
+
+        MovieFilter craven = new MovieFilter(null, null, null, null, null, null, null, "Wes Craven", null, null);
+        when(mockRepository.updateMatching(eq(craven), eq(MovieField.TAGS), eq("slasher, meta"), anyInt()))
+                .thenReturn(new BulkWrite(1, List.of(new HorrorMovieSQL(movies.get(0)))));
+        assertEquals(1, appManager.updateMovies(craven, MovieField.TAGS, "slasher, meta"));
+        assertEquals(1, appManager.searchByTags("meta", "", "", 0, 10).count());
+        when(mockRepository.updateMatching(eq(MovieFilter.ALL), eq(MovieField.RATING), eq(9.0), anyInt()))
+                .thenReturn(new BulkWrite(2, List.of(new HorrorMovieSQL(movies.get(0)), new HorrorMovieSQL(movies.get(2)))));
+        assertEquals(2, appManager.updateMovies(MovieFilter.ALL, MovieField.RATING, "9"));
+        assertEquals(9.0, appManager.scanCatalog(MovieFilter.ALL).minRating());
+        assertEquals(20, appManager.getAccountPoints());
+
+        //Nothing matched, so the listeners are left as they were
+        long version = appManager.getCatalogVersion();
+        when(mockRepository.updateMatching(eq(craven), eq(MovieField.RATING), eq(5.0), anyInt())).thenReturn(BulkWrite.NONE);
+        assertEquals(0, appManager.updateMovies(craven, MovieField.RATING, "5"));
+        assertEquals(version, appManager.getCatalogVersion());
+        //Each write was applied to the listeners without reading the table again
+        verify(mockRepository, never()).forEachMovie(any());
+
+        //Past the event limit the repository reports only a count and the listeners are rebuilt from the table
+        appManager.setBulkEventLimit(1);
+        HorrorMovieSQL thing = new HorrorMovieSQL(movies.get(2));
+        thing.setRating(9.0);
+        thing.setStreamingPlatform("Tubi");
+        doAnswer(invocation -> {
+            Consumer<HorrorMovieSQL> action = invocation.getArgument(0);
+            action.accept(thing);
+            return 1L;
+        }).when(mockRepository).forEachMovie(any());
+        when(mockRepository.deleteByTitleKeys(Set.of("scream"), 1)).thenReturn(new BulkWrite(1, null));
+        assertEquals(1, appManager.deleteMovies(List.of("Scream")));
+        verify(mockRepository, times(1)).forEachMovie(any());
+        assertEquals(10, appManager.getAccountPoints());
+        assertEquals(1, appManager.scanCatalog(new MovieFilter(null, null, null, null, null, null, "Tubi", null, null, null)).movies());
+        assertThrows(IllegalArgumentException.class, () -> appManager.setBulkEventLimit(-1));
+
+        //Invalid values are turned away before anything is written
+        assertThrows(IllegalArgumentException.class, () -> appManager.updateMovies(MovieFilter.ALL, MovieField.RATING, "11"));
+        assertThrows(IllegalArgumentException.class, () -> appManager.updateMovies(MovieFilter.ALL, MovieField.RATING, "ten"));
+        assertThrows(IllegalArgumentException.class, () -> appManager.updateMovies(MovieFilter.ALL, MovieField.PLATFORM, " "));
+        assertThrows(IllegalArgumentException.class, () -> appManager.updateMovies(MovieFilter.ALL, MovieField.DIRECTOR, "Nobody"));
+        verify(mockRepository, times(3)).updateMatching(any(), any(), any(), anyInt());
+    }
+    //Unit test for every kind of write moving the catalog version and entity tag forward, and reads leaving them alone
+    @Test
+    public void testCatalogVersion() throws Exception {
+        LocalDate dateWatched = LocalDate.parse("10-30-2021", formatter);
+        HorrorMovieSQL scream = new HorrorMovieSQL("Scream", "Wes Craven", 1996, 111, "HBO Max", 7.8, "slasher", dateWatched);
+        scream.setId(1);
+        when(mockRepository.findByTitleIgnoreCase("Scream")).thenReturn(scream);
+        when(mockRepository.deleteByTitleKeys(any(), anyInt())).thenReturn(new BulkWrite(1, List.of(scream)));
+        when(mockRepository.updateMatching(any(), any(), any(), anyInt())).thenReturn(new BulkWrite(1, List.of(scream)));
+        String etag = appManager.getCatalogETag();
+        assertTrue(etag.startsWith("\"") && etag.endsWith("\""));
+
+        List<Runnable> writes = List.of(
+                () -> appManager.addMovie(scream),
+                () -> appManager.addBulkMovies(new MockMultipartFile("file", "movies.txt", "text/plain",
+                        "It Follows,David Robert Mitchell,2014,100,Netflix,6.8,supernatural,29-10-2021\n".getBytes())),
+                () -> appManager.updateMovies(MovieFilter.ALL, MovieField.RATING, "9"),
+                () -> appManager.deleteMovies(List.of("It Follows")),
+                () -> appManager.deleteMovie("Scream"),
+                appManager::rebuildCatalogListeners);
+        for (int i = 0; i < writes.size(); i++) {
+            long version = appManager.getCatalogVersion();
+            writes.get(i).run();
+            assertTrue(appManager.getCatalogVersion() > version, "Write " + i);
+            assertNotEquals(etag, appManager.getCatalogETag());
+            etag = appManager.getCatalogETag();
+        }
+
+        appManager.findMovie("Scream");
+        appManager.viewMovies();
+        appManager.searchByTags("slasher", "", "", 0, 10);
+        assertEquals(etag, appManager.getCatalogETag());
+        //Another instance, as after a restart, never hands out the same tags
+        assertNotEquals(new slasherStatsManager(mockRepository).getCatalogETag(), appManager.getCatalogETag());
+    }
+    //Unit test for patching single fields with an expected version
+    @Test
+    public void testPatchMovie() {
+        LocalDate dateWatched = LocalDate.parse("10-30-2021", formatter);
+        HorrorMovieSQL movie = new HorrorMovieSQL("Halloween", "John Carpenter", 1978, 91, "Shudder", 7.7, "slasher", dateWatched);
+        movie.setId(1);
+        movie.setVersion(3L);
+        appManager.addMovie(movie);
+        when(mockRepository.findByTitleIgnoreCase("halloween")).thenReturn(movie);
+        //The stored copy comes back with the version the update moved it to
+        when(mockRepository.save(any())).thenAnswer(answer((HorrorMovieSQL changed) -> {
+            HorrorMovieSQL saved = new HorrorMovieSQL(changed);
+            saved.setVersion(changed.getVersion() + 1);
+            return saved;
+        }));
+
+        MovieUpdate update = appManager.patchMovie("halloween", 3L, Map.of(MovieField.RATING, "8.1", MovieField.DIRECTOR, "John Carpenter"));
+        assertEquals(MovieUpdate.Outcome.UPDATED, update.outcome());
+        assertEquals(8.1, update.movie().getRating());
+        assertEquals(4L, update.movie().getVersion());
+        assertEquals(8.1, appManager.scanCatalog(MovieFilter.ALL).maxRating());
+        when(mockRepository.findById(1)).thenReturn(Optional.of(update.movie()));
+
+        //Values equal to the stored ones write nothing
+        assertEquals(MovieUpdate.Outcome.UPDATED, appManager.patchMovie("Halloween", 4L, Map.of(MovieField.RATING, "8.1")).outcome());
+        verify(mockRepository, times(2)).save(any());
+
+        //A version other than the cached one is checked against the stored row
+        HorrorMovieSQL stored = new HorrorMovieSQL(update.movie());
+        stored.setVersion(5L);
+        when(mockRepository.findById(1)).thenReturn(Optional.of(stored));
+        assertEquals(MovieUpdate.Outcome.CONFLICT, appManager.patchMovie("Halloween", 3L, Map.of(MovieField.TAGS, "masked")).outcome());
+        assertEquals(6L, appManager.patchMovie("Halloween", 5L, Map.of(MovieField.TAGS, "masked")).movie().getVersion());
+
+        doThrow(new ObjectOptimisticLockingFailureException(HorrorMovieSQL.class, 1)).when(mockRepository).save(any());
+        assertEquals(MovieUpdate.Outcome.CONFLICT, appManager.patchMovie("Halloween", null, Map.of(MovieField.TAGS, "masked")).outcome());
+        assertEquals(MovieUpdate.Outcome.INVALID, appManager.patchMovie("Halloween", null, Map.of(MovieField.RUNTIME_MINUTES, "0")).outcome());
+        assertEquals(MovieUpdate.Outcome.INVALID, appManager.patchMovie("Halloween", null, Map.of(MovieField.DATE_WATCHED, "yesterday")).outcome());
+        assertEquals(MovieUpdate.Outcome.NOT_FOUND, appManager.patchMovie("Missing", null, Map.of(MovieField.TAGS, "masked")).outcome());
+    }
+    //Unit test for writing a snapshot and restoring it chunk by chunk
+    @Test
+    public void testSnapshotRoundTrip() throws Exception {
+        List<HorrorMovieSQL> movies = List.of(
+                new HorrorMovieSQL("Nosferatu", "F. W. Murnau", 1922, 94, "Kanopy", 7.9, "vampire", LocalDate.of(1969, 12, 31)),
+                new HorrorMovieSQL("Ringu", "Hideo Nakata", 1998, 96, "Shudder", 7.2, "ghost, \u546a\u3044", LocalDate.of(2024, 10, 31)),
+                new HorrorMovieSQL("Audition", "Takashi Miike", 1999, 115, "Shudder", 7.2, null, null),
+                new HorrorMovieSQL("x".repeat(100_000), "Hideo Nakata", -1, 0, "Shudder", 0.1, "", LocalDate.of(2024, 10, 31)));
+        doAnswer(invocation -> {
+            Consumer<HorrorMovieSQL> action = invocation.getArgument(0);
+            movies.forEach(action);
+            return (long) movies.size();
+        }).when(mockRepository).streamMovies(any());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(4, appManager.writeSnapshot(Channels.newChannel(out)));
+        byte[] snapshot = out.toByteArray();
+
+        List<HorrorMovieSQL> restored = new ArrayList<>();
+        when(mockRepository.insertChunk(anyList())).thenAnswer(invocation -> {
+            List<HorrorMovieSQL> chunk = invocation.getArgument(0);
+            for (HorrorMovieSQL movie : chunk) {
+                movie.setId(restored.size() + 1);
+                restored.add(movie);
+            }
+            return List.of();
+        });
+        appManager.setBulkChunkSize(3);
+        BulkImportReport report = new BulkImportReport(3);
+        appManager.restoreSnapshot(Channels.newChannel(new ByteArrayInputStream(snapshot)), report);
+        Function<HorrorMovieSQL, List<Object>> fields = m -> Arrays.asList(m.getTitle(), m.getDirector(), m.getReleaseYear(),
+                m.getRuntimeMinutes(), m.getStreamingPlatform(), m.getRating(), m.getTags(), m.getDateWatched());
+        assertEquals(movies.stream().map(fields).toList(), restored.stream().map(fields).toList());
+        assertEquals(2, report.getChunks());
+        assertEquals(snapshot.length, report.getBytesProcessed());
+        assertEquals(40, appManager.getAccountPoints());
+        assertEquals(2, appManager.searchByTags("", "vampire,ghost", "", 0, 10).count());
+
+        //Damaged snapshots fail instead of restoring part of a catalog quietly
+        byte[] otherVersion = snapshot.clone();
+        otherVersion[4] = 2;
+        assertThrows(IOException.class, () -> appManager.restoreSnapshot(
+                Channels.newChannel(new ByteArrayInputStream(otherVersion)), new BulkImportReport(3)));
+        assertThrows(IOException.class, () -> appManager.restoreSnapshot(
+                Channels.newChannel(new ByteArrayInputStream(Arrays.copyOf(snapshot, snapshot.length - 1))), new BulkImportReport(3)));
+        //Chunks read before the damage are already written
+        assertEquals(3, appManager.getLastImportReport().getRowsAccepted());
+    }
+    //Unit test for chunked bulk add where one row of a chunk fails to write
+    @Test
+    public void testBulkMoviesChunkedWithFailedRow(@TempDir Path dir) throws Exception {
+        String filename = dir.resolve("chunked_movies.txt").toString();
+        try (PrintWriter writer = new PrintWriter(new FileWriter(filename))) {
+            writer.println("It Follows,David Robert Mitchell,2014,100,Netflix,6.8,supernatural,29-10-2021");
+            writer.println("The Babadook,Jennifer Kent,2014,94,Hulu,6.9,psychological,30-10-2021");
+            writer.println("Us,Jordan Peele,2019,116,Hulu,6.8,thriller,31-10-2021");
+        }
+        when(mockRepository.insertChunk(anyList())).thenAnswer(invocation -> {
+            List<HorrorMovieSQL> chunk = invocation.getArgument(0);
+            return chunk.stream().filter(m -> m.getTitle().equals("The Babadook")).toList();
+        });
+        appManager.setBulkChunkSize(2);
+
+        List<HorrorMovieSQL> added = appManager.addBulkMovies(filename);
+
+        verify(mockRepository, times(2)).insertChunk(anyList());
+        verify(mockRepository, never()).save(any());
+        assertEquals(2, added.size());
+        assertEquals(20, appManager.getAccountPoints());
+        assertEquals(3, appManager.getLastImportReport().getRowsRead());
+        assertEquals(1, appManager.getLastImportReport().getRowsRejected());
+    }
+    //Unit test for the parallel bulk pipeline keeping file order across many blocks and workers
+    @Test
+    public void testBulkMoviesPipelineKeepsFileOrder(@TempDir Path dir) throws Exception {
+        String filename = dir.resolve("large_movies.txt").toString();
+        int rows = 20_000;
+        try (PrintWriter writer = new PrintWriter(new FileWriter(filename))) {
+            for (int i = 0; i < rows; i++) {
+                writer.println("Movie " + i + ",Director,2000,90,Shudder,5.5,slasher,01-10-2023");
+                if (i % 1000 == 0) writer.println("broken line");
+            }
+        }
+        appManager.setBulkParseWorkers(4);
+        appManager.setBulkChunkSize(250);
+
+        List<HorrorMovieSQL> added = appManager.addBulkMovies(filename);
+
+        assertEquals(rows, added.size());
+        for (int i = 0; i < rows; i++) {
+            assertEquals("Movie " + i, added.get(i).getTitle());
+        }
+        assertEquals(rows / 250, appManager.getLastImportReport().getChunks());
+        assertEquals(rows / 1000, appManager.getLastImportReport().getRowsRejected());
+    }
+    //Unit test for the rejected-lines report of a dirty bulk file
+    @Test
+    public void testBulkMoviesReportsRejectedLines(@TempDir Path dir) throws Exception {
+        String filename = dir.resolve("dirty_movies.txt").toString();
+        try (PrintWriter writer = new PrintWriter(new FileWriter(filename))) {
+            writer.println(" Scream , Wes Craven ,1996,111, Netflix ,7.5, Slasher ,12-10-2023");
+            writer.println("Too,few,fields");
+            writer.println("Us,Jordan Peele,20x9,116,Hulu,6.8,thriller,31-10-2021");
+            writer.println("Us,Jordan Peele,2019,116,Hulu,11.5,thriller,31-10-2021");
+            writer.println();
+            writer.println("Us,Jordan Peele,2019,116,Hulu,6.8,thriller,31-02-2021");
+            //Month first is not read as a date, even where the day would make it unambiguous
+            writer.println("Us,Jordan Peele,2019,116,Hulu,6.8,thriller,10-29-2021");
+        }
+
+        List<HorrorMovieSQL> added = appManager.addBulkMovies(filename);
+
+        assertEquals(1, added.size());
+        HorrorMovieSQL scream = added.get(0);
+        assertEquals("Scream", scream.getTitle());
+        assertEquals("Wes Craven", scream.getDirector());
+        assertEquals(7.5, scream.getRating());
+        assertEquals(LocalDate.of(2023, 10, 12), scream.getDateWatched());
+        List<BulkImportReport.RejectedLine> rejected = appManager.getLastImportReport().getRejectedLines();
+        assertEquals(List.of(
+                new BulkImportReport.RejectedLine(2, BulkRejectReason.FIELD_COUNT),
+                new BulkImportReport.RejectedLine(3, BulkRejectReason.BAD_YEAR),
+                new BulkImportReport.RejectedLine(4, BulkRejectReason.RATING_OUT_OF_RANGE),
+                new BulkImportReport.RejectedLine(6, BulkRejectReason.BAD_DATE),
+                new BulkImportReport.RejectedLine(7, BulkRejectReason.BAD_DATE)), rejected);
+    }
+    //Unit test for a background upload job finishing and reporting its progress
+    @Test
+    public void testBulkImportJobCompletes() throws Exception {
+        String content = "It Follows,David Robert Mitchell,2014,100,Netflix,6.8,supernatural,29-10-2021\n"
+                + "not a movie\n";
+        MockMultipartFile file = new MockMultipartFile("file", "movies.txt", "text/plain", content.getBytes());
+        BulkImportJobService jobs = new BulkImportJobService(appManager, 1, 1);
+
+        BulkImportJob job = jobs.submit(file);
+        for (int i = 0; i < 100 && !job.isDone(); i++) Thread.sleep(50);
+
+        BulkImportJob.Progress progress = jobs.getJob(job.getId()).progress();
+        assertEquals(BulkImportJob.Status.COMPLETED, progress.status());
+        assertEquals(2, progress.rowsRead());
+        assertEquals(1, progress.rowsAccepted());
+        assertEquals(1, progress.rowsRejected());
+        assertEquals(100.0, progress.percentDone());
+        jobs.shutdown();
+    }
+    //Unit test for concurrent imports sharing the processors instead of each taking all of them
+    @Test
+    public void testBulkImportConcurrencyLimits() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        appManager.setMaxConcurrentImports(2);
+        appManager.setBulkParseWorkers(0);
+        assertEquals(Math.max(1, cores / 2), appManager.getBulkParseWorkers());
+        appManager.setMaxConcurrentImports(cores * 4);
+        assertEquals(1, appManager.getBulkParseWorkers());
+        appManager.setBulkParseWorkers(3);
+        assertEquals(3, appManager.getBulkParseWorkers());
+
+        assertThrows(IllegalArgumentException.class, () -> appManager.setMaxConcurrentImports(0));
+        assertThrows(IllegalArgumentException.class, () -> new BulkImportJobService(appManager, 0, 1));
+    }
+}